@@ -0,0 +1,132 @@
+package mtgcardtracker.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mtgcardtracker.CsvReader;
+
+/**
+ * BenchmarkComparison - Result Regression Check
+ *
+ * Compares two CSV result files written by BenchmarkRunner, usually from
+ * the previous and the current version, and prints the change of every
+ * benchmark run in both. A change counts as a regression when the new
+ * score is worse by more than the threshold and by more than the two
+ * error margins together, so noise alone is not reported.
+ *
+ * Usage: java -cp benchmarks.jar mtgcardtracker.benchmarks.BenchmarkComparison
+ *            BASELINE.csv CANDIDATE.csv [THRESHOLD_PERCENT]   (default 10)
+ * Exits with status 1 if any benchmark regressed.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public final class BenchmarkComparison {
+
+    /**
+     * Score - One Benchmark Result
+     */
+    private static class Score {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Score(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = Double.isNaN(error) ? 0.0 : error;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Private Constructor
+     * Static entry point only
+     */
+    private BenchmarkComparison() {
+    }
+
+    /**
+     * Main method - prints the comparison
+     * @param args Baseline file, candidate file, optional threshold in percent
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BenchmarkComparison BASELINE.csv CANDIDATE.csv [THRESHOLD_PERCENT]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100.0 : 0.10;
+        Map<String, Score> baseline = read(args[0]);
+        Map<String, Score> candidate = read(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-60s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+        for (Map.Entry<String, Score> entry : candidate.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null || !before.unit.equals(after.unit) || before.score == 0) {
+                continue;
+            }
+            double change = (after.score - before.score) / before.score;
+            // Throughput is better when higher, every time-based mode when lower
+            double worse = after.mode.equals("thrpt") ? -change : change;
+            boolean beyondNoise = Math.abs(after.score - before.score) > before.error + after.error;
+            String verdict = "";
+            if (beyondNoise && worse > threshold) {
+                verdict = "  REGRESSION";
+                regressions++;
+            } else if (beyondNoise && worse < -threshold) {
+                verdict = "  improved";
+            }
+            System.out.printf("%-60s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), before.score, after.score,
+                              change * 100, after.unit, verdict);
+        }
+        System.out.println(regressions == 0 ? "No regressions." : regressions + " regression(s).");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /**
+     * Reads a JMH CSV result file
+     *
+     * @param filename The file to read
+     * @return Scores by benchmark name and parameters, in file order
+     * @throws IOException if the file cannot be read or is not a JMH CSV file
+     */
+    private static Map<String, Score> read(String filename) throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(filename));
+        CsvReader reader = new CsvReader(data, 0, data.length);
+        if (!reader.nextRecord() || reader.fieldCount() < 7 || !reader.getString(0).equals("Benchmark")) {
+            throw new IOException(filename + " is not a JMH CSV result file");
+        }
+        String[] header = new String[reader.fieldCount()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = reader.getString(i);
+        }
+
+        Map<String, Score> scores = new LinkedHashMap<>();
+        while (reader.nextRecord()) {
+            // Shorten the package away and append the parameters, e.g. QueryBenchmark.searchByName size=1000
+            String benchmark = reader.getString(0);
+            String prefix = BenchmarkComparison.class.getPackageName() + ".";
+            StringBuilder key = new StringBuilder(benchmark.startsWith(prefix)
+                                                  ? benchmark.substring(prefix.length()) : benchmark);
+            for (int i = 7; i < header.length && i < reader.fieldCount(); i++) {
+                if (header[i].startsWith("Param: ") && !reader.getString(i).isEmpty()) {
+                    key.append(' ').append(header[i].substring(7)).append('=').append(reader.getString(i));
+                }
+            }
+            try {
+                scores.put(key.toString(), new Score(reader.getString(1), Double.parseDouble(reader.getString(4)),
+                                                     Double.parseDouble(reader.getString(5)), reader.getString(6)));
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad score for " + benchmark + " in " + filename);
+            }
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,83 @@
+package mtgcardtracker.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * BenchmarkRunner - Benchmark Entry Point
+ *
+ * Runs JMH with its usual command line, but unless a result file or format
+ * is given, results are saved as CSV in results/LABEL.csv, so every run
+ * leaves a file that BenchmarkComparison can check against another
+ * version's. LABEL is the benchmark.label system property, or the date
+ * and time of the run.
+ *
+ * Examples:
+ *   java -jar benchmarks.jar                            every benchmark and size
+ *   java -jar benchmarks.jar Query -p size=1000,100000  some benchmarks and sizes
+ *   java -Dbenchmark.label=v1.2 -jar benchmarks.jar -p store=list,columnar,offheap
+ *
+ * Each benchmark forks a JVM with a 4 GB heap, enough for 5M cards in the
+ * list store; -jvmArgsAppend -Xmx8g gives it more.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Private Constructor
+     * Static entry point only
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Main method - runs the benchmarks
+     * @param args JMH command line options
+     * @throws Exception if JMH fails to start
+     */
+    public static void main(String[] args) throws Exception {
+        if (!hasOption(args, "-rf") && !hasOption(args, "-rff") && !isInfoOnly(args)) {
+            Path results = resultFile();
+            String[] withResults = Arrays.copyOf(args, args.length + 4);
+            withResults[args.length] = "-rf";
+            withResults[args.length + 1] = "csv";
+            withResults[args.length + 2] = "-rff";
+            withResults[args.length + 3] = results.toString();
+            System.out.println("Results will be saved to " + results);
+            args = withResults;
+        }
+        Main.main(args);
+    }
+
+    private static Path resultFile() throws IOException {
+        String label = System.getProperty("benchmark.label",
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Path directory = Paths.get("results");
+        Files.createDirectories(directory);
+        return directory.resolve(label + ".csv");
+    }
+
+    private static boolean hasOption(String[] args, String option) {
+        for (String arg : args) {
+            if (arg.equals(option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Listing and help options run nothing, so no result file is wanted
+    private static boolean isInfoOnly(String[] args) {
+        return hasOption(args, "-h") || hasOption(args, "-l") || hasOption(args, "-lp")
+               || hasOption(args, "-lprof") || hasOption(args, "-lrf");
+    }
+}
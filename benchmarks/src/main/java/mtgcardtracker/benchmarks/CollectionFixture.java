@@ -0,0 +1,233 @@
+package mtgcardtracker.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import mtgcardtracker.CardCollection;
+import mtgcardtracker.CardColor;
+import mtgcardtracker.CardCondition;
+import mtgcardtracker.CardStore;
+import mtgcardtracker.CollectionGenerator;
+import mtgcardtracker.ColumnarCardStore;
+import mtgcardtracker.CsvWriter;
+import mtgcardtracker.ListCardStore;
+import mtgcardtracker.MTGCard;
+import mtgcardtracker.OffHeapCardStore;
+import mtgcardtracker.Rarity;
+
+/**
+ * CollectionFixture - Benchmark Test Data
+ *
+ * Builds the collections and CSV files the benchmarks run against. Card
+ * number i is always the same card, so every run and every version measures
+ * the same data, and every card is its own printing (the number is part of
+ * the name), so a collection of N cards has N entries.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public final class CollectionFixture {
+    /** Word searched for by the name benchmarks; one name in sixteen has it */
+    public static final String SEARCH_TERM = "Dragon";
+
+    private static final long SEED = 0x4D5447L;
+    private static final String[] FIRST_WORDS = {
+        "Shivan", "Serra", "Llanowar", "Lightning", "Dark", "Savannah", "Goblin", "Elvish",
+        "Ancient", "Wrath", "Counter", "Black", "Birds", "Royal", "Sol", "Force"
+    };
+    private static final String[] SECOND_WORDS = {
+        "Dragon", "Angel", "Elves", "Bolt", "Ritual", "Lions", "Guide", "Mystic",
+        "Tomb", "Spell", "Lotus", "Paradise", "Assassin", "Ring", "Will", "Knight"
+    };
+    private static final String[] EDITIONS = {
+        "Alpha", "Beta", "Unlimited", "Revised", "Fourth Edition", "Ice Age", "Mirage", "Tempest",
+        "Urza's Saga", "Invasion", "Onslaught", "Mirrodin", "Kamigawa", "Ravnica", "Zendikar", "Innistrad"
+    };
+    private static final String[] TYPES = {"Creature", "Instant", "Sorcery", "Enchantment", "Artifact", "Land"};
+    private static final String[] SUBTYPES = {"Dragon", "Angel", "Elf", "Goblin", "Human", "Aura", "Equipment", "-"};
+
+    /**
+     * Private Constructor
+     * Static helpers only
+     */
+    private CollectionFixture() {
+    }
+
+    /**
+     * Creates an empty store by its menu name
+     *
+     * @param store list, columnar or offheap
+     * @return The new store
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static CardStore createStore(String store) {
+        switch (store) {
+            case "list":
+                return new ListCardStore();
+            case "columnar":
+                return new ColumnarCardStore();
+            case "offheap":
+                return new OffHeapCardStore();
+            default:
+                throw new IllegalArgumentException("Unknown store '" + store + "'");
+        }
+    }
+
+    /**
+     * Creates a collection holding cards 0 to size - 1
+     *
+     * @param store The store type (see createStore)
+     * @param size Number of cards
+     * @return The filled collection
+     */
+    public static CardCollection collection(String store, int size) {
+        CardCollection collection = new CardCollection("Benchmark Collection", createStore(store));
+        for (int i = 0; i < size; i++) {
+            collection.insertCard(card(i));
+        }
+        return collection;
+    }
+
+    /**
+     * Creates card number i
+     * Rarity is weighted towards commons and values towards cheap cards,
+     * roughly as in a real collection
+     *
+     * @param i The card number
+     * @return A new card
+     */
+    public static MTGCard card(int i) {
+        SplittableRandom random = new SplittableRandom(SEED + i);
+        int roll = random.nextInt(100);
+        Rarity rarity = roll < 55 ? Rarity.COMMON
+                        : roll < 85 ? Rarity.UNCOMMON
+                        : roll < 97 ? Rarity.RARE
+                        : roll < 99 ? Rarity.MYTHIC_RARE
+                        : Rarity.SPECIAL;
+        // Log-normal-ish prices: most cards are cents, a few are worth hundreds
+        double value = Math.round(Math.exp(random.nextGaussian() * 1.5 - 1.0) * 100) / 100.0;
+        return new MTGCard(FIRST_WORDS[i % FIRST_WORDS.length] + " "
+                           + SECOND_WORDS[(i / FIRST_WORDS.length) % SECOND_WORDS.length] + " " + i,
+                           rarity,
+                           CardCondition.table().get(random.nextInt(CardCondition.table().size())),
+                           value,
+                           EDITIONS[random.nextInt(EDITIONS.length)],
+                           TYPES[random.nextInt(TYPES.length)],
+                           CardColor.table().get(random.nextInt(CardColor.table().size())),
+                           random.nextInt(8),
+                           SUBTYPES[random.nextInt(SUBTYPES.length)],
+                           random.nextInt(10) == 0);
+    }
+
+    /**
+     * Writes cards 0 to size - 1 as a CSV file in the export format
+     * Streams the rows, so no collection of that size is built
+     *
+     * @param file The file to write
+     * @param size Number of cards
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeCsv(Path file, int size) throws IOException {
+        try (CsvWriter writer = new CsvWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            writer.writeRecord("Name", "Rarity", "Condition", "Value", "Edition",
+                               "CardType", "Color", "ManaCost", "Subtype", "Foil", "Quantity");
+            for (int i = 0; i < size; i++) {
+                MTGCard card = card(i);
+                writer.writeField(card.getName());
+                writer.writeField(card.getRarityCode().getDisplayName());
+                writer.writeField(card.getConditionCode().getDisplayName());
+                writer.writeFixed2(card.getValue());
+                writer.writeField(card.getEdition());
+                writer.writeField(card.getCardType());
+                writer.writeField(card.getColorCode().getDisplayName());
+                writer.writeField(card.getManaCost());
+                writer.writeField(card.getCardSubtype());
+                writer.writeField(card.isFoil() ? "Yes" : "No");
+                writer.writeField(card.getQuantity());
+                writer.endRecord();
+            }
+        }
+    }
+
+    /**
+     * Writes a CSV file of generated cards (see CollectionGenerator)
+     * Unlike writeCsv, popular printings repeat, so importing it also
+     * exercises merging copies into existing entries
+     *
+     * @param file The file to write
+     * @param size Number of cards
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeGeneratedCsv(Path file, int size) throws IOException {
+        new CollectionGenerator(SEED).writeCsv(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), size);
+    }
+
+    /**
+     * Sends System.out to a stream that discards everything
+     * The collection's display and status messages are still formatted,
+     * only the console write is skipped
+     *
+     * @return The previous System.out, for restore
+     */
+    public static PrintStream silence() {
+        PrintStream previous = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return previous;
+    }
+
+    /**
+     * Restores System.out after silence
+     * @param previous The stream silence returned
+     */
+    public static void restore(PrintStream previous) {
+        if (previous != null) {
+            System.setOut(previous);
+        }
+    }
+
+    /**
+     * NullChannel - Discarding Channel
+     *
+     * A channel that accepts and drops every byte, counting them, so export
+     * is measured without the cost of a disk or socket.
+     */
+    public static class NullChannel implements WritableByteChannel {
+        private long written;
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int count = source.remaining();
+            source.position(source.limit());
+            written += count;
+            return count;
+        }
+
+        /**
+         * Gets the number of bytes written
+         * @return Byte count
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
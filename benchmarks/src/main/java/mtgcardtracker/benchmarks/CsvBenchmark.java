@@ -0,0 +1,130 @@
+package mtgcardtracker.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mtgcardtracker.CardCollection;
+
+/**
+ * CsvBenchmark - Import and Export Benchmarks
+ *
+ * Times a whole CSV import into an empty collection and a whole export to
+ * a file. Each is one long operation, so both run once per iteration
+ * (single shot) instead of in a timed loop. The import file is written
+ * once per trial, either from the numbered fixture cards or, for data
+ * "generated", by CollectionGenerator; the export goes to a temporary file so the write path
+ * is the same as the menu's.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CsvBenchmark {
+
+    /**
+     * ImportState - CSV File To Import
+     *
+     * Holds the CSV file, and a new empty collection for each import.
+     */
+    @State(Scope.Benchmark)
+    public static class ImportState {
+        @Param({"1000", "10000", "100000", "1000000", "5000000"})
+        public int size;
+
+        @Param({"list"})
+        public String store;
+
+        @Param({"numbered", "generated"})
+        public String data;
+
+        Path file;
+        CardCollection collection;
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void writeFile() throws IOException {
+            file = Files.createTempFile("cards-import-", ".csv");
+            if (data.equals("generated")) {
+                CollectionFixture.writeGeneratedCsv(file, size);
+            } else {
+                CollectionFixture.writeCsv(file, size);
+            }
+            console = CollectionFixture.silence();
+        }
+
+        @Setup(Level.Invocation)
+        public void emptyCollection() {
+            // Drop the last import first so two full collections are never held
+            collection = null;
+            collection = new CardCollection("Benchmark Import", CollectionFixture.createStore(store));
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteFile() throws IOException {
+            CollectionFixture.restore(console);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * ExportState - Collection To Export
+     *
+     * Holds a filled collection and the file it is exported to.
+     */
+    @State(Scope.Benchmark)
+    public static class ExportState {
+        @Param({"1000", "10000", "100000", "1000000", "5000000"})
+        public int size;
+
+        @Param({"list"})
+        public String store;
+
+        Path file;
+        CardCollection collection;
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void fillCollection() throws IOException {
+            collection = CollectionFixture.collection(store, size);
+            file = Files.createTempFile("cards-export-", ".csv");
+            console = CollectionFixture.silence();
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteFile() throws IOException {
+            CollectionFixture.restore(console);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public int importFromCSV(ImportState state) {
+        return state.collection.importFromCSV(state.file.toString());
+    }
+
+    @Benchmark
+    public boolean exportToCSV(ExportState state) {
+        return state.collection.exportToCSV(state.file.toString());
+    }
+}
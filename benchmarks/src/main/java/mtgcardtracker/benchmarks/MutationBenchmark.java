@@ -0,0 +1,129 @@
+package mtgcardtracker.benchmarks;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mtgcardtracker.CardCollection;
+import mtgcardtracker.MTGCard;
+
+/**
+ * MutationBenchmark - Add and Delete Benchmarks
+ *
+ * Times adding a card and deleting one by position or by name. Each
+ * invocation gets a card that is not yet in the collection, made (and for
+ * deletes, added) in an untimed setup step, so only the collection call is
+ * measured. Cards added during an iteration are removed again afterwards
+ * and deletes remove a card added just for them, so the collection stays
+ * at its size.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class MutationBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    @Param({"list"})
+    public String store;
+
+    private CardCollection collection;
+    private PrintStream console;
+    // Next card number not yet used; numbers below size are the base collection
+    private int nextCard;
+    // IDs added by the addCard benchmark in this iteration
+    private long[] added = new long[1024];
+    private int addedCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        collection = CollectionFixture.collection(store, size);
+        nextCard = size;
+        console = CollectionFixture.silence();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CollectionFixture.restore(console);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeAdded() {
+        for (int i = 0; i < addedCount; i++) {
+            collection.removeCard(added[i]);
+        }
+        addedCount = 0;
+    }
+
+    /**
+     * NewCard - Card To Add
+     *
+     * Makes a card that is not in the collection before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class NewCard {
+        MTGCard card;
+
+        @Setup(Level.Invocation)
+        public void make(MutationBenchmark benchmark) {
+            card = CollectionFixture.card(benchmark.nextCard++);
+        }
+    }
+
+    /**
+     * Victim - Card To Delete
+     *
+     * Makes a card and adds it to the collection before each invocation.
+     */
+    @State(Scope.Thread)
+    public static class Victim {
+        MTGCard card;
+
+        @Setup(Level.Invocation)
+        public void insert(MutationBenchmark benchmark) {
+            card = CollectionFixture.card(benchmark.nextCard++);
+            benchmark.collection.insertCard(card);
+        }
+    }
+
+    @Benchmark
+    public boolean addCard(NewCard next) {
+        boolean result = collection.addCard(next.card);
+        if (addedCount == added.length) {
+            added = Arrays.copyOf(added, added.length * 2);
+        }
+        added[addedCount++] = next.card.getId();
+        return result;
+    }
+
+    @Benchmark
+    public boolean deleteCard(Victim victim) {
+        // New cards are appended, so the victim is the last card
+        return collection.deleteCard(collection.getSize() - 1);
+    }
+
+    @Benchmark
+    public boolean deleteCardByName(Victim victim) {
+        return collection.deleteCardByName(victim.card.getName());
+    }
+}
@@ -0,0 +1,104 @@
+package mtgcardtracker.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mtgcardtracker.CardCollection;
+import mtgcardtracker.CardColor;
+import mtgcardtracker.MTGCard;
+import mtgcardtracker.Rarity;
+
+/**
+ * QueryBenchmark - Read Operation Benchmarks
+ *
+ * Times the read-only collection operations against a collection built
+ * once per size and store: name search, rarity and color filters, total
+ * value, the statistics display, and CSV export to a discarding channel.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class QueryBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    @Param({"list"})
+    public String store;
+
+    private CardCollection collection;
+    // The full name of one card in the middle of the collection
+    private String exactName;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        collection = CollectionFixture.collection(store, size);
+        exactName = CollectionFixture.card(size / 2).getName();
+        console = CollectionFixture.silence();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CollectionFixture.restore(console);
+    }
+
+    @Benchmark
+    public List<MTGCard> searchByName() {
+        return collection.searchByName(CollectionFixture.SEARCH_TERM);
+    }
+
+    @Benchmark
+    public List<MTGCard> searchByExactName() {
+        return collection.searchByName(exactName);
+    }
+
+    @Benchmark
+    public List<MTGCard> filterByRarity() {
+        return collection.filterByRarity(Rarity.RARE);
+    }
+
+    @Benchmark
+    public List<MTGCard> filterByColor() {
+        return collection.filterByColor(CardColor.RED);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double getTotalValue() {
+        return collection.getTotalValue();
+    }
+
+    @Benchmark
+    public void displayStatistics() {
+        collection.displayStatistics();
+    }
+
+    @Benchmark
+    public long exportToCSV() throws IOException {
+        CollectionFixture.NullChannel channel = new CollectionFixture.NullChannel();
+        collection.exportToCSV(channel);
+        return channel.getWritten();
+    }
+}
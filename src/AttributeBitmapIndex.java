@@ -0,0 +1,115 @@
+/**
+ * AttributeBitmapIndex - Bitmap Secondary Index
+ *
+ * Keeps one bitmap per rarity, condition and color value plus one for foil
+ * cards. Bit i is set when the card in slot i has that value, so a filter is
+ * answered by walking set bits, and "Red AND Mythic Rare AND foil" is two
+ * word-level AND passes instead of three scans.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class AttributeBitmapIndex implements CollectionIndex {
+    private Bitmap[] rarities;
+    private Bitmap[] conditions;
+    private Bitmap[] colors;
+    private Bitmap foils;
+
+    /**
+     * Default Constructor
+     * Creates an empty index
+     */
+    public AttributeBitmapIndex() {
+        this.rarities = newBitmaps(Rarity.table().size());
+        this.conditions = newBitmaps(CardCondition.table().size());
+        this.colors = newBitmaps(CardColor.table().size());
+        this.foils = new Bitmap();
+    }
+
+    // Index lookups (the returned bitmaps are live; copy before modifying)
+
+    /**
+     * Gets the slots holding cards of a rarity
+     * @param rarity The rarity to look up
+     * @return Bitmap of matching slots
+     */
+    public Bitmap rarity(Rarity rarity) {
+        return rarities[rarity.ordinal()];
+    }
+
+    /**
+     * Gets the slots holding cards in a condition
+     * @param condition The condition to look up
+     * @return Bitmap of matching slots
+     */
+    public Bitmap condition(CardCondition condition) {
+        return conditions[condition.ordinal()];
+    }
+
+    /**
+     * Gets the slots holding cards of a color
+     * @param color The color to look up
+     * @return Bitmap of matching slots
+     */
+    public Bitmap color(CardColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * Gets the slots holding foil cards
+     * @return Bitmap of foil slots
+     */
+    public Bitmap foil() {
+        return foils;
+    }
+
+    // CollectionIndex maintenance
+
+    @Override
+    public void cardAdded(int slot, MTGCard card) {
+        rarities[card.getRarityCode().ordinal()].set(slot);
+        conditions[card.getConditionCode().ordinal()].set(slot);
+        colors[card.getColorCode().ordinal()].set(slot);
+        if (card.isFoil()) {
+            foils.set(slot);
+        }
+    }
+
+    @Override
+    public void cardRemoved(int slot, MTGCard card) {
+        rarities[card.getRarityCode().ordinal()].clear(slot);
+        conditions[card.getConditionCode().ordinal()].clear(slot);
+        colors[card.getColorCode().ordinal()].clear(slot);
+        foils.clear(slot);
+    }
+
+    @Override
+    public void cardChanged(int slot, MTGCard before, MTGCard after) {
+        cardRemoved(slot, before);
+        cardAdded(slot, after);
+    }
+
+    @Override
+    public void clear() {
+        clearAll(rarities);
+        clearAll(conditions);
+        clearAll(colors);
+        foils.clearAll();
+    }
+
+    // Internal helpers
+
+    private static Bitmap[] newBitmaps(int count) {
+        Bitmap[] bitmaps = new Bitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new Bitmap();
+        }
+        return bitmaps;
+    }
+
+    private static void clearAll(Bitmap[] bitmaps) {
+        for (Bitmap bitmap : bitmaps) {
+            bitmap.clearAll();
+        }
+    }
+}
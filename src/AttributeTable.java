@@ -0,0 +1,75 @@
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * AttributeTable - Case-Insensitive Parse Table
+ * 
+ * Maps user or file input such as "mythic rare" to the matching enum constant.
+ * The same table is used by the MTGCard setters, InputValidator and the CSV
+ * importer, so every entry point accepts exactly the same spellings.
+ * 
+ * @param <E> The attribute enum type
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class AttributeTable<E extends Enum<E> & CardAttribute> {
+    private final E[] constants;
+    private final String[] displayNames;
+    private final HashMap<String, E> byName;
+    
+    /**
+     * Parameterized Constructor
+     * Builds the lookup table for all constants of an attribute enum
+     * 
+     * @param constants The enum constants in ordinal order
+     */
+    public AttributeTable(E[] constants) {
+        this.constants = constants;
+        this.displayNames = new String[constants.length];
+        this.byName = new HashMap<>();
+        
+        for (E constant : constants) {
+            displayNames[constant.ordinal()] = constant.getDisplayName();
+            byName.put(constant.getDisplayName().toLowerCase(Locale.ROOT), constant);
+        }
+    }
+    
+    /**
+     * Parses a string into an attribute (case-insensitive, trimmed)
+     * 
+     * @param text The text to parse
+     * @return The matching constant, or null if the text is not valid
+     */
+    public E parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        return byName.get(text.trim().toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Gets a constant by its ordinal (byte code)
+     * 
+     * @param ordinal The ordinal to look up
+     * @return The constant with that ordinal
+     */
+    public E get(int ordinal) {
+        return constants[ordinal];
+    }
+    
+    /**
+     * Gets the number of constants in the table
+     * @return Number of valid values
+     */
+    public int size() {
+        return constants.length;
+    }
+    
+    /**
+     * Gets the display names for prompts and error messages
+     * @return Array of display names in ordinal order
+     */
+    public String[] getDisplayNames() {
+        return displayNames.clone();
+    }
+}
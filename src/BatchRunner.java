@@ -0,0 +1,452 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BatchRunner - Non-Interactive Command Processor
+ *
+ * Applies a stream of commands to a collection without prompting, one
+ * command per line, and prints one result line per command to a buffered
+ * writer. Bad lines are reported with their line number and skipped, so one
+ * typo does not stop a long job. A summary with the command counts and the
+ * throughput is printed at the end.
+ *
+ * Commands (values with spaces go in double quotes; # starts a comment):
+ *   add name=NAME [field=value ...]        add a card (or more copies of one already held)
+ *   delete NAME|#ID [COUNT]                delete the first card with a name, or by ID;
+ *                                          with COUNT, only that many of its copies
+ *   set NAME|#ID field=value [...]         change fields of a card
+ *   filter [criterion ...]                 list the cards matching every criterion
+ *   top N | bottom N                       list the N most or least valuable cards
+ *   export FILE                            write the collection as CSV
+ *   group FIELD[,FIELD...] [percentiles] [criterion ...]
+ *                                          value totals, min, average and max per group
+ *   metrics                                print operation latencies and import counts
+ *
+ * Field names are the CSV header names (case-insensitive), e.g.
+ *   add name="Lightning Bolt" rarity=Common value=1.50 color=Red foil=no
+ *   set "Lightning Bolt" condition="Near Mint" value=2.25
+ *   add name="Lightning Bolt" edition=Unlimited quantity=40
+ *
+ * Filter criteria are rarity, color, condition, foil, edition, cardtype and
+ * subtype (equal to), name (contains), and value or manacost (MIN..MAX,
+ * either end optional). A leading ! negates a criterion, e.g.
+ *   filter rarity=Rare value=5.. !color=Black
+ *
+ * group takes the same criteria to pick the cards it breaks down, e.g.
+ *   group edition,rarity percentiles foil=yes
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class BatchRunner {
+    private static final String[] COMMANDS = {"add", "delete", "set", "filter", "top", "bottom", "export", "group", "metrics"};
+
+    private final CardCollection collection;
+    private final PrintWriter out;
+    // Commands run per entry of COMMANDS
+    private final int[] counts = new int[COMMANDS.length];
+    private int failures;
+
+    /**
+     * Constructor
+     *
+     * @param collection The collection to change
+     * @param out Where results are printed (should be buffered)
+     */
+    public BatchRunner(CardCollection collection, PrintWriter out) {
+        this.collection = collection;
+        this.out = out;
+    }
+
+    /**
+     * Runs every command in a stream and prints the summary
+     *
+     * @param in The commands, one per line
+     * @return Number of commands that failed
+     * @throws IOException if the stream cannot be read
+     */
+    public int run(BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        int lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            try {
+                List<String> tokens = tokenize(line);
+                if (!tokens.isEmpty()) {
+                    execute(tokens);
+                }
+            } catch (IllegalArgumentException e) {
+                failures++;
+                out.println("Error: line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        printSummary(System.nanoTime() - start);
+        out.flush();
+        return failures;
+    }
+
+    private void execute(List<String> tokens) {
+        String command = tokens.get(0).toLowerCase();
+        switch (command) {
+            case "add":
+                add(tokens);
+                break;
+            case "delete":
+                delete(tokens);
+                break;
+            case "set":
+                set(tokens);
+                break;
+            case "filter":
+                filter(tokens);
+                break;
+            case "top":
+            case "bottom":
+                rank(tokens);
+                break;
+            case "export":
+                export(tokens);
+                break;
+            case "group":
+                group(tokens);
+                break;
+            case "metrics":
+                out.print(collection.getMetrics().report());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command '" + tokens.get(0) + "'");
+        }
+        for (int i = 0; i < COMMANDS.length; i++) {
+            if (COMMANDS[i].equals(command)) {
+                counts[i]++;
+            }
+        }
+    }
+
+    private void add(List<String> tokens) {
+        Map<CardField, String> values = parseFields(tokens, 1);
+        if (!values.containsKey(CardField.NAME)) {
+            throw new IllegalArgumentException("add needs name=NAME");
+        }
+        MTGCard card = new MTGCard();
+        for (Map.Entry<CardField, String> value : values.entrySet()) {
+            value.getKey().set(card, value.getValue());
+        }
+        String name = card.getName();
+        int copies = card.getQuantity();
+        long id = collection.insertCard(card);
+        out.println("Added #" + id + " " + name + (copies > 1 ? " x" + copies : ""));
+    }
+
+    private void delete(List<String> tokens) {
+        if (tokens.size() != 2 && tokens.size() != 3) {
+            throw new IllegalArgumentException("delete needs one card name or #ID and an optional count");
+        }
+        String target = tokens.get(1);
+        if (tokens.size() == 3) {
+            deleteCopies(target, tokens.get(2));
+            return;
+        }
+        MTGCard removed = target.startsWith("#")
+                          ? collection.removeCard(parseId(target))
+                          : collection.removeCardByName(target);
+        if (removed == null) {
+            throw new IllegalArgumentException("No card " + target);
+        }
+        out.println("Deleted #" + removed.getId() + " " + removed.getName());
+    }
+
+    private void deleteCopies(String target, String countText) {
+        int count = parseWhole(new String[] {"count", countText}, countText);
+        if (count < 1) {
+            throw new IllegalArgumentException("Invalid count '" + countText + "'");
+        }
+        long id = target.startsWith("#") ? parseId(target) : collection.findCardId(target);
+        MTGCard before = id < 0 ? null : collection.removeCopies(id, count);
+        if (before == null) {
+            throw new IllegalArgumentException("No card " + target);
+        }
+        int left = Math.max(before.getQuantity() - count, 0);
+        out.println("Deleted " + (before.getQuantity() - left) + " of #" + id + " " + before.getName()
+                    + " (" + left + " left)");
+    }
+
+    private void set(List<String> tokens) {
+        if (tokens.size() < 3) {
+            throw new IllegalArgumentException("set needs a card name or #ID and field=value");
+        }
+        String target = tokens.get(1);
+        long id = target.startsWith("#") ? parseId(target) : collection.findCardId(target);
+        MTGCard updated = id < 0 ? null : collection.updateCard(id, parseFields(tokens, 2));
+        if (updated == null) {
+            throw new IllegalArgumentException("No card " + target);
+        }
+        out.println("Updated #" + id + " " + updated.getName());
+    }
+
+    private void filter(List<String> tokens) {
+        // Cards are copied one at a time as they are printed
+        Iterator<MTGCard> matches = collection.query(parseCriteria(tokens, 1));
+        int found = 0;
+        while (matches.hasNext()) {
+            MTGCard card = matches.next();
+            out.println("  #" + card.getId() + " " + card);
+            found++;
+        }
+        out.println("Found " + found + " card(s)");
+    }
+
+    private void rank(List<String> tokens) {
+        if (tokens.size() != 2) {
+            throw new IllegalArgumentException(tokens.get(0) + " needs a number of cards");
+        }
+        int count = parseWhole(new String[] {tokens.get(0), tokens.get(1)}, tokens.get(1));
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid " + tokens.get(0) + " '" + tokens.get(1) + "'");
+        }
+        ArrayList<MTGCard> cards = tokens.get(0).equalsIgnoreCase("top")
+                                   ? collection.getMostValuable(count)
+                                   : collection.getLeastValuable(count);
+        for (MTGCard card : cards) {
+            out.println("  #" + card.getId() + " " + card);
+        }
+        out.println("Listed " + cards.size() + " card(s)");
+    }
+
+    /**
+     * Combines the criteria from a position on into one query
+     *
+     * @param tokens The command's words
+     * @param from Position of the first criterion
+     * @return A query matching cards that meet every criterion
+     */
+    private static CardQuery parseCriteria(List<String> tokens, int from) {
+        List<CardQuery> criteria = new ArrayList<>();
+        for (int i = from; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean negate = token.startsWith("!");
+            CardQuery criterion = parseCriterion(splitPair(negate ? token.substring(1) : token));
+            criteria.add(negate ? CardQuery.not(criterion) : criterion);
+        }
+        return CardQuery.allOf(criteria.toArray(new CardQuery[0]));
+    }
+
+    private static CardQuery parseCriterion(String[] pair) {
+        String value = pair[1];
+        switch (pair[0].toLowerCase()) {
+            case "name":
+                return CardQuery.nameContains(value);
+            case "rarity":
+                return CardQuery.rarity(parseAttribute(Rarity.table(), pair));
+            case "color":
+                return CardQuery.color(parseAttribute(CardColor.table(), pair));
+            case "condition":
+                return CardQuery.condition(parseAttribute(CardCondition.table(), pair));
+            case "edition":
+                return CardQuery.edition(value);
+            case "cardtype":
+                return CardQuery.cardType(value);
+            case "subtype":
+                return CardQuery.subtype(value);
+            case "foil":
+                MTGCard probe = new MTGCard();
+                CardField.FOIL.set(probe, value);
+                return CardQuery.foil(probe.isFoil());
+            case "value":
+                String[] values = splitRange(pair);
+                return CardQuery.valueBetween(values[0].isEmpty() ? 0 : parseNumber(pair, values[0]),
+                                              values[1].isEmpty() ? Double.POSITIVE_INFINITY
+                                                                  : parseNumber(pair, values[1]));
+            case "manacost":
+                String[] costs = splitRange(pair);
+                return CardQuery.manaCostBetween(costs[0].isEmpty() ? 0 : parseWhole(pair, costs[0]),
+                                                 costs[1].isEmpty() ? Integer.MAX_VALUE
+                                                                    : parseWhole(pair, costs[1]));
+            default:
+                throw new IllegalArgumentException("Cannot filter on '" + pair[0] + "'");
+        }
+    }
+
+    private void export(List<String> tokens) {
+        if (tokens.size() != 2) {
+            throw new IllegalArgumentException("export needs one file name");
+        }
+        String filename = tokens.get(1);
+        try {
+            collection.exportToCSV(FileChannel.open(Paths.get(filename),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not export to " + filename + ": " + e.getMessage());
+        }
+        out.println("Exported " + collection.getSize() + " card(s) to " + filename);
+    }
+
+    private void group(List<String> tokens) {
+        if (tokens.size() < 2) {
+            throw new IllegalArgumentException("group needs one or more fields, e.g. group edition,rarity");
+        }
+        String[] names = tokens.get(1).split(",");
+        CardField[] keys = new CardField[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = CardField.parse(names[i]);
+            if (keys[i] == null) {
+                throw new IllegalArgumentException("Unknown field '" + names[i] + "'");
+            }
+        }
+        GroupBy groupBy = GroupBy.of(keys);
+        int first = 2;
+        if (tokens.size() > first && tokens.get(first).equalsIgnoreCase("percentiles")) {
+            groupBy = groupBy.withPercentiles();
+            first++;
+        }
+        if (tokens.size() > first) {
+            groupBy = groupBy.where(parseCriteria(tokens, first));
+        }
+        List<GroupBy.Group> groups = collection.aggregate(groupBy);
+        out.print(groupBy.report(groups));
+        out.println("Listed " + groups.size() + " group(s)");
+    }
+
+    private void printSummary(long elapsedNanos) {
+        int total = failures;
+        StringBuilder breakdown = new StringBuilder();
+        for (int i = 0; i < COMMANDS.length; i++) {
+            total += counts[i];
+            breakdown.append(i == 0 ? "" : ", ").append(counts[i]).append(' ').append(COMMANDS[i]);
+        }
+        double seconds = elapsedNanos / 1e9;
+        out.println("=".repeat(60));
+        out.println("Batch complete: " + total + " command(s), " + failures + " failed");
+        out.println("  " + breakdown);
+        out.printf("  Elapsed: %.3f s, throughput: %.0f commands/second%n",
+                   seconds, seconds > 0 ? total / seconds : 0.0);
+        out.println("=".repeat(60));
+    }
+
+    // ---- Parsing ----
+
+    /**
+     * Splits a line into words; double quotes group words and \" is a literal quote
+     *
+     * @param line The command line
+     * @return The words, empty for blank and comment lines
+     * @throws IllegalArgumentException if a quote is not closed
+     */
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean inToken = false;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '\\' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    token.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    token.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                    inToken = false;
+                }
+            } else if (c == '#' && !inToken && tokens.isEmpty()) {
+                // Comment line; '#' later on the line is a card ID
+                return tokens;
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote");
+        }
+        if (inToken) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static Map<CardField, String> parseFields(List<String> tokens, int from) {
+        Map<CardField, String> fields = new EnumMap<>(CardField.class);
+        for (int i = from; i < tokens.size(); i++) {
+            String[] pair = splitPair(tokens.get(i));
+            CardField field = CardField.parse(pair[0]);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + pair[0] + "'");
+            }
+            fields.put(field, pair[1]);
+        }
+        return fields;
+    }
+
+    private static String[] splitPair(String token) {
+        int equals = token.indexOf('=');
+        if (equals <= 0) {
+            throw new IllegalArgumentException("Expected field=value but found '" + token + "'");
+        }
+        return new String[] {token.substring(0, equals), token.substring(equals + 1)};
+    }
+
+    private static <E extends Enum<E> & CardAttribute> E parseAttribute(AttributeTable<E> table, String[] pair) {
+        E value = table.parse(pair[1]);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid " + pair[0] + " '" + pair[1] + "'");
+        }
+        return value;
+    }
+
+    // Splits MIN..MAX (either end may be left out); a single number is an exact match
+    private static String[] splitRange(String[] pair) {
+        int dots = pair[1].indexOf("..");
+        if (dots < 0) {
+            return new String[] {pair[1].trim(), pair[1].trim()};
+        }
+        return new String[] {pair[1].substring(0, dots).trim(), pair[1].substring(dots + 2).trim()};
+    }
+
+    private static double parseNumber(String[] pair, String text) {
+        try {
+            double number = Double.parseDouble(text);
+            if (!Double.isNaN(number)) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + pair[0] + " '" + text + "'");
+    }
+
+    private static int parseWhole(String[] pair, String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + pair[0] + " '" + text + "'");
+        }
+    }
+
+    private static long parseId(String target) {
+        try {
+            return Long.parseLong(target.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid card ID '" + target + "'");
+        }
+    }
+}
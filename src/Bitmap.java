@@ -0,0 +1,170 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Bitmap - Growable Bit Set
+ *
+ * One bit per collection slot, packed 64 to a long. Used by the secondary
+ * indexes: combining two attributes (AND/OR/AND NOT) is one word operation
+ * per 64 cards, and results are read back by iterating the set bits.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class Bitmap {
+    private long[] words;
+
+    /**
+     * Default Constructor
+     * Creates an empty bitmap
+     */
+    public Bitmap() {
+        this.words = new long[1];
+    }
+
+    /**
+     * Copy Constructor
+     * Creates a bitmap with the same bits as another
+     *
+     * @param other The bitmap to copy
+     */
+    public Bitmap(Bitmap other) {
+        this.words = other.words.clone();
+    }
+
+    /**
+     * Sets a bit
+     * @param bit The bit to set
+     */
+    public void set(int bit) {
+        int w = bit >>> 6;
+        if (w >= words.length) {
+            words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+        }
+        words[w] |= 1L << bit;
+    }
+
+    /**
+     * Clears a bit
+     * @param bit The bit to clear
+     */
+    public void clear(int bit) {
+        int w = bit >>> 6;
+        if (w < words.length) {
+            words[w] &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * Checks a bit
+     * @param bit The bit to check
+     * @return true if the bit is set
+     */
+    public boolean get(int bit) {
+        int w = bit >>> 6;
+        return w < words.length && (words[w] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Finds the next set bit at or after a position
+     *
+     * @param from The position to start from
+     * @return The next set bit, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    /**
+     * Counts the set bits
+     * @return Number of set bits
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Keeps only the bits that are also set in another bitmap
+     * @param other The bitmap to AND with
+     */
+    public void and(Bitmap other) {
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            words[i] &= other.words[i];
+        }
+        for (int i = common; i < words.length; i++) {
+            words[i] = 0;
+        }
+    }
+
+    /**
+     * Adds every bit that is set in another bitmap
+     * @param other The bitmap to OR with
+     */
+    public void or(Bitmap other) {
+        if (other.words.length > words.length) {
+            words = Arrays.copyOf(words, other.words.length);
+        }
+        for (int i = 0; i < other.words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Clears every bit that is set in another bitmap
+     * @param other The bitmap to AND NOT with
+     */
+    public void andNot(Bitmap other) {
+        int common = Math.min(words.length, other.words.length);
+        for (int i = 0; i < common; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    /**
+     * Keeps only the set bits that pass a test
+     * Works a word at a time: each word's set bits are tested and the
+     * survivors written back with one store
+     *
+     * @param test The test applied to each set bit
+     */
+    public void retainIf(IntPredicate test) {
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            long kept = 0;
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                if (test.test((w << 6) + bit)) {
+                    kept |= 1L << bit;
+                }
+                word &= word - 1;
+            }
+            words[w] = kept;
+        }
+    }
+
+    /**
+     * Clears every bit
+     */
+    public void clearAll() {
+        words = new long[1];
+    }
+}
@@ -3,6 +3,8 @@
  * 
  * This is the base class for all trading cards in the collection system.
  * It provides common attributes and methods that all card types share.
+ * Rarity and condition are kept by each card type in its own form, so
+ * the base class only declares their accessors.
  * 
  * @author Card Collection Tracker
  * @version 1.0
@@ -10,11 +12,13 @@
 public abstract class Card {
     // Private instance variables (encapsulation)
     private String name;
-    private String rarity;
-    private String condition;
     private double value;
     private String edition;
     private String cardType;
+    // Collection-assigned ID (0 until the card is stored in a collection)
+    private long id;
+    // Number of identical copies this entry stands for
+    private int quantity;
     
     /**
      * Default Constructor
@@ -22,11 +26,10 @@ public abstract class Card {
      */
     public Card() {
         this.name = "Unknown";
-        this.rarity = "Common";
-        this.condition = "Near Mint";
         this.value = 0.0;
         this.edition = "Unknown";
         this.cardType = "Unknown";
+        this.quantity = 1;
     }
     
     /**
@@ -34,19 +37,16 @@ public abstract class Card {
      * Creates a card with specified attributes
      * 
      * @param name The card's name
-     * @param rarity The card's rarity level
-     * @param condition The physical condition of the card
      * @param value The monetary value of the card
      * @param edition The edition/set the card belongs to
      * @param cardType The type of card
      */
-    public Card(String name, String rarity, String condition, double value, String edition, String cardType) {
+    public Card(String name, double value, String edition, String cardType) {
         this.name = name;
-        this.rarity = rarity;
-        this.condition = condition;
         this.value = value;
         this.edition = edition;
         this.cardType = cardType;
+        this.quantity = 1;
     }
     
     /**
@@ -56,12 +56,12 @@ public abstract class Card {
      * @param other The card to copy
      */
     public Card(Card other) {
-        this.name = other.name;
-        this.rarity = other.rarity;
-        this.condition = other.condition;
-        this.value = other.value;
-        this.edition = other.edition;
-        this.cardType = other.cardType;
+        this.name = other.getName();
+        this.value = other.getValue();
+        this.edition = other.getEdition();
+        this.cardType = other.getCardType();
+        this.id = other.getId();
+        this.quantity = other.getQuantity();
     }
     
     // Accessors (Getters)
@@ -78,17 +78,13 @@ public abstract class Card {
      * Gets the card's rarity
      * @return The rarity level
      */
-    public String getRarity() {
-        return rarity;
-    }
+    public abstract String getRarity();
     
     /**
      * Gets the card's condition
      * @return The physical condition
      */
-    public String getCondition() {
-        return condition;
-    }
+    public abstract String getCondition();
     
     /**
      * Gets the card's value
@@ -114,6 +110,22 @@ public abstract class Card {
         return cardType;
     }
     
+    /**
+     * Gets the ID the owning collection gave the card
+     * @return The card ID, or 0 if the card has not been stored
+     */
+    public long getId() {
+        return id;
+    }
+    
+    /**
+     * Gets the number of copies of this card
+     * @return The quantity (at least 1)
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+    
     // Mutators (Setters) with validation
     
     /**
@@ -131,26 +143,16 @@ public abstract class Card {
     /**
      * Sets the card's rarity
      * @param rarity The new rarity level
-     * @throws IllegalArgumentException if rarity is null or empty
+     * @throws IllegalArgumentException if rarity is not valid for the card type
      */
-    public void setRarity(String rarity) {
-        if (rarity == null || rarity.trim().isEmpty()) {
-            throw new IllegalArgumentException("Rarity cannot be empty");
-        }
-        this.rarity = rarity.trim();
-    }
+    public abstract void setRarity(String rarity);
     
     /**
      * Sets the card's condition
      * @param condition The new condition
-     * @throws IllegalArgumentException if condition is null or empty
+     * @throws IllegalArgumentException if condition is not valid for the card type
      */
-    public void setCondition(String condition) {
-        if (condition == null || condition.trim().isEmpty()) {
-            throw new IllegalArgumentException("Condition cannot be empty");
-        }
-        this.condition = condition.trim();
-    }
+    public abstract void setCondition(String condition);
     
     /**
      * Sets the card's value
@@ -188,6 +190,39 @@ public abstract class Card {
         this.cardType = cardType.trim();
     }
     
+    /**
+     * Sets the card's collection ID
+     * Called by CardCollection when the card is stored or copied out
+     * 
+     * @param id The card ID
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+    
+    /**
+     * Sets the number of copies of this card
+     * @param quantity The new quantity
+     * @throws IllegalArgumentException if quantity is less than 1
+     */
+    public void setQuantity(int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        this.quantity = quantity;
+    }
+    
+    /**
+     * Replaces the repeating string fields with their pooled instances
+     * Cards that share an edition or card type then share one String
+     * 
+     * @param pool The string pool of the owning collection
+     */
+    public void internStrings(StringPool pool) {
+        this.edition = pool.intern(edition);
+        this.cardType = pool.intern(cardType);
+    }
+    
     /**
      * Abstract method to display card details
      * Must be implemented by derived classes
@@ -201,7 +236,7 @@ public abstract class Card {
     @Override
     public String toString() {
         return String.format("Name: %s | Rarity: %s | Condition: %s | Value: $%.2f | Edition: %s | Type: %s",
-                           name, rarity, condition, value, edition, cardType);
+                           getName(), getRarity(), getCondition(), getValue(), getEdition(), getCardType());
     }
     
     /**
@@ -215,7 +250,10 @@ public abstract class Card {
         if (obj == null || !(obj instanceof Card)) return false;
         
         Card other = (Card) obj;
-        return this.name.equalsIgnoreCase(other.name) && 
-               this.edition.equalsIgnoreCase(other.edition);
+        // Pooled editions are shared instances, so check the reference first
+        String edition = getEdition();
+        String otherEdition = other.getEdition();
+        return getName().equalsIgnoreCase(other.getName()) && 
+               (edition == otherEdition || edition.equalsIgnoreCase(otherEdition));
     }
 }
@@ -0,0 +1,17 @@
+/**
+ * CardAttribute - Enumerated Attribute Interface
+ * 
+ * Implemented by the fixed-value card attributes (rarity, condition, color)
+ * so they can share one case-insensitive parse table.
+ * 
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public interface CardAttribute {
+    
+    /**
+     * Gets the name shown to users and written to CSV files
+     * @return The properly capitalized display name
+     */
+    String getDisplayName();
+}
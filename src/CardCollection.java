@@ -1,6 +1,20 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 /**
  * CardCollection - Collection Manager Class
@@ -13,21 +27,61 @@ import java.io.*;
  * - Search and filter cards
  * - Import/Export to CSV (prepared for future implementation)
  * 
+ * Identical printings - the same card (see Card.equals) in the same
+ * condition and finish - are kept as one entry with a quantity. Adding or
+ * importing a printing the collection already holds raises that entry's
+ * quantity, and an edit that makes two entries identical merges them.
+ * 
+ * The collection is safe to share between threads. Changes are serialized
+ * by the write lock of a StampedLock. Searches, filters, statistics and
+ * lookups run without locking against an optimistic stamp and are only
+ * retried under the read lock if a change overlapped them. Cards handed
+ * out are copies, so a later change never shows through a returned card.
+ * 
  * @author Card Collection Tracker
  * @version 1.0
  */
 public class CardCollection {
-    // ArrayList to store the card collection
-    private ArrayList<MTGCard> collection;
+    // Tombstones tolerated before a compaction is considered
+    private static final int COMPACTION_MIN_TOMBSTONES = 1024;
+    // Imported cards stored per write lock acquisition
+    private static final int IMPORT_BATCH_SIZE = 4096;
+    
+    // Storage engine holding the cards (object list, columnar or off-heap)
+    private CardStore collection;
     private String collectionName;
+    // Shares one instance of repeating strings (edition, card type, subtype)
+    private StringPool stringPool;
+    // Tracks live slots; deletes leave tombstones until the store is compacted
+    private SlotTable slots;
+    // Stable IDs of the stored cards, mapped to their slots
+    private CardIdTable ids;
+    // Secondary indexes kept in step with the store
+    private ArrayList<CollectionIndex> indexes;
+    private AttributeBitmapIndex attributeIndex;
+    private TrigramIndex nameIndex;
+    private NameHashIndex nameLookup;
+    private ValueIndex valueIndex;
+    private CollectionStatistics statistics;
+    // Latencies of the public operations and import row counts
+    private final CollectionMetrics metrics = new CollectionMetrics();
+    // Write-ahead log every change is recorded in (null when not persistent)
+    private volatile MutationLog log;
+    // Log sequence of the last change reflected in the cards (from the loaded snapshot)
+    private long logSequence;
+    // Bumped whenever slots are renumbered (compaction or clear); checked by query iterators
+    private volatile int compactions;
+    // Serializes writers; readers validate optimistic stamps against it
+    private final StampedLock lock = new StampedLock();
+    // Reads that had to be repeated under the read lock
+    private final LongAdder lockedReads = new LongAdder();
     
     /**
      * Default Constructor
      * Creates an empty collection with default name
      */
     public CardCollection() {
-        this.collection = new ArrayList<>();
-        this.collectionName = "My MTG Collection";
+        this("My MTG Collection");
     }
     
     /**
@@ -37,8 +91,67 @@ public class CardCollection {
      * @param collectionName The name of the collection
      */
     public CardCollection(String collectionName) {
-        this.collection = new ArrayList<>();
+        this(collectionName, new ListCardStore());
+    }
+    
+    /**
+     * Parameterized Constructor
+     * Creates an empty collection backed by the given storage engine
+     * 
+     * @param collectionName The name of the collection
+     * @param store The storage engine to keep the cards in
+     */
+    public CardCollection(String collectionName, CardStore store) {
+        this(collectionName, store, new StringPool());
+    }
+    
+    /**
+     * Parameterized Constructor
+     * Creates an empty collection with its own string interning pool
+     * 
+     * @param collectionName The name of the collection
+     * @param store The storage engine to keep the cards in
+     * @param stringPool The pool used to intern edition, card type and subtype
+     */
+    public CardCollection(String collectionName, CardStore store, StringPool stringPool) {
+        this(collectionName, store, stringPool, true);
+    }
+    
+    /**
+     * Private Constructor
+     * 
+     * @param indexed false to skip index maintenance (replay-only copies)
+     */
+    private CardCollection(String collectionName, CardStore store, StringPool stringPool, boolean indexed) {
+        this.collection = store;
         this.collectionName = collectionName;
+        this.stringPool = stringPool;
+        this.slots = new SlotTable();
+        this.ids = new CardIdTable();
+        this.indexes = new ArrayList<>();
+        this.attributeIndex = new AttributeBitmapIndex();
+        this.nameIndex = new TrigramIndex();
+        this.nameLookup = new NameHashIndex();
+        this.valueIndex = new ValueIndex();
+        this.statistics = new CollectionStatistics();
+        if (indexed) {
+            this.indexes.add(attributeIndex);
+            this.indexes.add(nameIndex);
+            this.indexes.add(nameLookup);
+            this.indexes.add(valueIndex);
+            this.indexes.add(statistics);
+        }
+    }
+    
+    /**
+     * Creates a bare collection for folding a snapshot and log into a new snapshot
+     * Only positional updates work on it; searches, filters and statistics
+     * are not maintained
+     * 
+     * @return An empty unindexed collection on a columnar store
+     */
+    static CardCollection forReplay() {
+        return new CardCollection("My MTG Collection", new ColumnarCardStore(), new StringPool(), false);
     }
     
     /**
@@ -46,7 +159,7 @@ public class CardCollection {
      * @return The collection name
      */
     public String getCollectionName() {
-        return collectionName;
+        return read(() -> collectionName);
     }
     
     /**
@@ -55,16 +168,76 @@ public class CardCollection {
      */
     public void setCollectionName(String collectionName) {
         if (collectionName != null && !collectionName.trim().isEmpty()) {
-            this.collectionName = collectionName.trim();
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                this.collectionName = collectionName.trim();
+                sequence = logChange(LogEntry.rename(this.collectionName));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
         }
     }
     
+    /**
+     * Gets the string pool used by this collection
+     * @return The string interning pool
+     */
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+    
+    /**
+     * Gets the bitmap index over rarity, condition, color and foil
+     * The index is read without locking, so only use it while no other
+     * thread is changing the collection
+     * @return The attribute index
+     */
+    public AttributeBitmapIndex getAttributeIndex() {
+        return attributeIndex;
+    }
+    
+    /**
+     * Gets the running aggregates (value, counts per attribute, mana histogram)
+     * @return A consistent copy of the collection statistics
+     */
+    public CollectionStatistics getStatistics() {
+        return read(() -> new CollectionStatistics(statistics));
+    }
+    
+    /**
+     * Gets the operation latencies and import counters
+     * @return The live metrics (they keep changing as the collection is used)
+     */
+    public CollectionMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Gets the number of reads repeated under the read lock because a
+     * change overlapped their optimistic attempt (used by stress tests)
+     * 
+     * @return Locked read count since the collection was created
+     */
+    long getLockedReadCount() {
+        return lockedReads.sum();
+    }
+    
     /**
      * Gets the size of the collection
-     * @return Number of cards in the collection
+     * @return Number of card entries in the collection (copies of a printing count once)
      */
     public int getSize() {
-        return collection.size();
+        return read(() -> slots.liveCount());
+    }
+    
+    /**
+     * Gets the number of cards counting every copy
+     * @return Sum of the entries' quantities
+     */
+    public long getCopyCount() {
+        return read(() -> statistics.getCopyCount());
     }
     
     /**
@@ -72,7 +245,7 @@ public class CardCollection {
      * @return true if empty, false otherwise
      */
     public boolean isEmpty() {
-        return collection.isEmpty();
+        return getSize() == 0;
     }
     
     /**
@@ -87,11 +260,93 @@ public class CardCollection {
             return false;
         }
         
-        collection.add(card);
-        System.out.println("\nCard '" + card.getName() + "' added successfully to collection!");
+        String name = card.getName();
+        int copies = card.getQuantity();
+        MTGCard entry;
+        try {
+            entry = findCard(insertCard(card));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+        if (entry != null && entry.getQuantity() > copies) {
+            System.out.println("\nAdded " + copies + " more of '" + name + "' - the collection now has "
+                               + entry.getQuantity() + " copies.");
+        } else {
+            System.out.println("\nCard '" + name + "' added successfully to collection!");
+        }
         return true;
     }
     
+    /**
+     * Adds a new card without printing anything (for servers and batch jobs)
+     * If the collection already holds the same printing, the card's quantity
+     * is added to that entry instead
+     * 
+     * @param card The MTG card to add
+     * @return The ID of the entry holding the card, or -1 if card is null
+     * @throws IllegalArgumentException if the entry's quantity would overflow
+     */
+    public long insertCard(MTGCard card) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            if (card == null) {
+                return -1;
+            }
+        
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                sequence = addCopies(card);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("add", card.getId(), card.getQuantity());
+            return card.getId();
+        } finally {
+            metrics.record(CollectionMetrics.Operation.ADD, start);
+        }
+    }
+    
+    /**
+     * Adds many cards without printing anything, all under one write lock
+     * and with one log commit, for bulk loads such as generated collections
+     * Cards for printings already held add to those entries' quantities
+     * 
+     * @param cards The cards to add
+     * @return Number of cards added (cards whose entry would overflow are skipped)
+     */
+    public int addCards(List<MTGCard> cards) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            int added = 0;
+            long sequence = 0;
+            long stamp = lock.writeLock();
+            try {
+                for (MTGCard card : cards) {
+                    try {
+                        sequence = addCopies(card);
+                        added++;
+                    } catch (IllegalArgumentException e) {
+                        // Skipped; the entry keeps the copies it has
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("add", -1, added);
+            return added;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.ADD, start);
+        }
+    }
+    
     /**
      * Deletes a card from the collection by index
      * 
@@ -99,14 +354,36 @@ public class CardCollection {
      * @return true if deleted successfully, false if index is invalid
      */
     public boolean deleteCard(int index) {
-        if (index < 0 || index >= collection.size()) {
-            System.out.println("Error: Invalid card index. Must be between 0 and " + (collection.size() - 1));
-            return false;
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            String removedName;
+            long removedId;
+            int removedCopies;
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                if (index < 0 || index >= slots.liveCount()) {
+                    System.out.println("Error: Invalid card index. Must be between 0 and " + (slots.liveCount() - 1));
+                    return false;
+                }
+                int slot = slots.slotAt(index);
+                removedId = ids.idOf(slot);
+                MTGCard removed = removeSlot(slot);
+                removedName = removed.getName();
+                removedCopies = removed.getQuantity();
+                sequence = logChange(LogEntry.delete(index));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("delete", removedId, removedCopies);
+            System.out.println("\nCard '" + removedName + "' removed from collection.");
+            return true;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.DELETE, start);
         }
-        
-        MTGCard removed = collection.remove(index);
-        System.out.println("\nCard '" + removed.getName() + "' removed from collection.");
-        return true;
     }
     
     /**
@@ -116,30 +393,286 @@ public class CardCollection {
      * @return true if deleted successfully, false if not found
      */
     public boolean deleteCardByName(String cardName) {
-        for (int i = 0; i < collection.size(); i++) {
-            if (collection.get(i).getName().equalsIgnoreCase(cardName)) {
-                collection.remove(i);
-                System.out.println("\nCard '" + cardName + "' removed from collection.");
-                return true;
+        if (removeCardByName(cardName) == null) {
+            System.out.println("Error: Card '" + cardName + "' not found in collection.");
+            return false;
+        }
+        System.out.println("\nCard '" + cardName + "' removed from collection.");
+        return true;
+    }
+    
+    /**
+     * Deletes the first card with a name without printing anything
+     * 
+     * @param cardName The name of the card to delete
+     * @return A copy of the removed card, or null if not found
+     */
+    public MTGCard removeCardByName(String cardName) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            MTGCard removed;
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                // The lowest matching slot is the first match in list order
+                int slot = nameLookup.firstSlot(cardName);
+                if (slot < 0) {
+                    return null;
+                }
+                int position = slots.positionOf(slot);
+                removed = copyAt(slot);
+                removeSlot(slot);
+                sequence = logChange(LogEntry.delete(position));
+            } finally {
+                lock.unlockWrite(stamp);
             }
+            awaitLog(sequence);
+            event.emit("delete", removed.getId(), removed.getQuantity());
+            return removed;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.DELETE, start);
         }
-        
-        System.out.println("Error: Card '" + cardName + "' not found in collection.");
-        return false;
+    }
+    
+    /**
+     * Gets the ID of the first card with a name
+     * 
+     * @param cardName The name to look up
+     * @return The card's ID, or -1 if no card has that name
+     */
+    public long findCardId(String cardName) {
+        return read(() -> {
+            int slot = nameLookup.firstSlot(cardName);
+            return slot < 0 ? -1L : ids.idOf(slot);
+        });
     }
     
     /**
      * Gets a card from the collection by index
      * 
+     * The card is a copy, so edits to it must go through modifyCard to be kept
+     * 
      * @param index The index of the card to retrieve
      * @return The MTG card at the specified index, or null if invalid
      */
     public MTGCard getCard(int index) {
-        if (index < 0 || index >= collection.size()) {
+        MTGCard card = read(() -> index >= 0 && index < slots.liveCount()
+                                  ? copyAt(slots.slotAt(index)) : null);
+        if (card == null) {
             System.out.println("Error: Invalid card index.");
-            return null;
         }
-        return collection.get(index);
+        return card;
+    }
+    
+    /**
+     * Gets the stable ID of a card
+     * Unlike the index, the ID stays the same when other cards are deleted
+     * 
+     * @param index The index of the card (0-based)
+     * @return The card's ID, or -1 if the index is invalid
+     */
+    public long getCardId(int index) {
+        return read(() -> index >= 0 && index < slots.liveCount() ? ids.idOf(slots.slotAt(index)) : -1L);
+    }
+    
+    /**
+     * Gets a card from the collection by ID
+     * 
+     * @param id The card's ID
+     * @return A copy of the MTG card with that ID, or null if there is none
+     */
+    public MTGCard getCardById(long id) {
+        MTGCard card = findCard(id);
+        if (card == null) {
+            System.out.println("Error: No card with ID " + id + ".");
+        }
+        return card;
+    }
+    
+    /**
+     * Gets a card by ID without printing anything (for servers and batch jobs)
+     * 
+     * @param id The card's ID
+     * @return A copy of the MTG card with that ID, or null if there is none
+     */
+    public MTGCard findCard(long id) {
+        return read(() -> copyOf(id));
+    }
+    
+    /**
+     * Deletes a card from the collection by ID
+     * 
+     * @param id The card's ID
+     * @return true if deleted successfully, false if there is no such card
+     */
+    public boolean deleteCardById(long id) {
+        MTGCard removed = removeCard(id);
+        if (removed == null) {
+            System.out.println("Error: No card with ID " + id + ".");
+            return false;
+        }
+        System.out.println("\nCard '" + removed.getName() + "' removed from collection.");
+        return true;
+    }
+    
+    /**
+     * Deletes a card by ID without printing anything (for servers and batch jobs)
+     * 
+     * @param id The card's ID
+     * @return A copy of the removed card, or null if there is no such card
+     */
+    public MTGCard removeCard(long id) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            MTGCard removed;
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                int slot = ids.slotOf(id);
+                if (slot < 0) {
+                    return null;
+                }
+                // The log addresses cards by position
+                int position = slots.positionOf(slot);
+                removed = copyAt(slot);
+                removeSlot(slot);
+                sequence = logChange(LogEntry.delete(position));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("delete", removed.getId(), removed.getQuantity());
+            return removed;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.DELETE, start);
+        }
+    }
+    
+    /**
+     * Deletes some copies of a card by ID
+     * 
+     * @param id The card's ID
+     * @param count Number of copies to delete; the entry goes once none are left
+     * @return true if deleted successfully, false if there is no such card
+     */
+    public boolean deleteCopies(long id, int count) {
+        MTGCard before;
+        try {
+            before = removeCopies(id, count);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+        if (before == null) {
+            System.out.println("Error: No card with ID " + id + ".");
+            return false;
+        }
+        int left = before.getQuantity() - count;
+        if (left > 0) {
+            System.out.println("\nRemoved " + count + " of '" + before.getName() + "' - " + left + " left.");
+        } else {
+            System.out.println("\nCard '" + before.getName() + "' removed from collection.");
+        }
+        return true;
+    }
+    
+    /**
+     * Deletes some copies of a card by ID without printing anything
+     * Removing as many copies as the entry holds, or more, removes the entry
+     * 
+     * @param id The card's ID
+     * @param count Number of copies to remove
+     * @return A copy of the card as it was before, or null if there is no such card
+     * @throws IllegalArgumentException if count is less than 1
+     */
+    public MTGCard removeCopies(long id, int count) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            if (count < 1) {
+                throw new IllegalArgumentException("Number of copies must be at least 1");
+            }
+            MTGCard before;
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                int slot = ids.slotOf(id);
+                if (slot < 0) {
+                    return null;
+                }
+                before = copyAt(slot);
+                if (before.getQuantity() > count) {
+                    MTGCard edited = new MTGCard(before);
+                    edited.setQuantity(before.getQuantity() - count);
+                    sequence = applyField(slot, CardField.QUANTITY, edited);
+                } else {
+                    int position = slots.positionOf(slot);
+                    removeSlot(slot);
+                    sequence = logChange(LogEntry.delete(position));
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("delete", id, Math.min(count, before.getQuantity()));
+            return before;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.DELETE, start);
+        }
+    }
+    
+    /**
+     * Changes fields of a card by ID without printing anything
+     * Every value is checked on a copy first, so either all the changes are
+     * made or, if one is invalid, none of them. If the changes make the card
+     * the same printing as another entry, that entry is merged into this one
+     * 
+     * @param id The card's ID
+     * @param changes New values in text form, by field
+     * @return A copy of the updated card, or null if there is no such card
+     * @throws IllegalArgumentException if a value is not valid for its field
+     */
+    public MTGCard updateCard(long id, Map<CardField, String> changes) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            MTGCard edited = read(() -> copyOf(id));
+            if (edited == null) {
+                return null;
+            }
+            for (Map.Entry<CardField, String> change : changes.entrySet()) {
+                change.getKey().set(edited, change.getValue());
+            }
+        
+            long sequence = 0;
+            MTGCard updated;
+            long stamp = lock.writeLock();
+            try {
+                int slot = ids.slotOf(id);
+                if (slot < 0) {
+                    return null;
+                }
+                for (CardField field : changes.keySet()) {
+                    sequence = applyField(slot, field, edited);
+                }
+                sequence = Math.max(sequence, mergeInto(slot));
+                // Merging deletes an entry, which can compact the store
+                updated = copyAt(ids.slotOf(id));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("update", id, 0);
+            return updated;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.UPDATE, start);
+        }
     }
     
     /**
@@ -150,15 +683,35 @@ public class CardCollection {
      * @param scanner Scanner for user input
      */
     public void modifyCard(int index, Scanner scanner) {
-        if (index < 0 || index >= collection.size()) {
+        long id = getCardId(index);
+        if (id < 0) {
             System.out.println("Error: Invalid card index.");
             return;
         }
-        
-        MTGCard card = collection.get(index);
+        modifyCardById(id, scanner);
+    }
+    
+    /**
+     * Modifies an existing card in the collection by ID
+     * 
+     * Input is read without holding any lock; each change is applied to
+     * the stored card on its own, so other threads can keep working while
+     * the user types
+     * 
+     * @param id The card's ID
+     * @param scanner Scanner for user input
+     */
+    public void modifyCardById(long id, Scanner scanner) {
         boolean modifying = true;
         
         while (modifying) {
+            // Edit a fresh copy, so validation runs before anything is stored
+            MTGCard card = read(() -> copyOf(id));
+            if (card == null) {
+                System.out.println("Error: No card with ID " + id + ".");
+                return;
+            }
+            
             System.out.println("\n--- Modify Card: " + card.getName() + " ---");
             System.out.println("1. Modify Name");
             System.out.println("2. Modify Rarity");
@@ -170,11 +723,12 @@ public class CardCollection {
             System.out.println("8. Modify Mana Cost");
             System.out.println("9. Modify Subtype");
             System.out.println("10. Toggle Foil Status");
-            System.out.println("11. View Current Card");
+            System.out.println("11. Modify Quantity");
+            System.out.println("12. View Current Card");
             System.out.println("0. Done Modifying");
             System.out.print("Enter choice: ");
             
-            int choice = InputValidator.getValidInteger(scanner, 0, 11);
+            int choice = InputValidator.getValidInteger(scanner, 0, 12);
             
             try {
                 switch (choice) {
@@ -240,6 +794,12 @@ public class CardCollection {
                         System.out.println("Foil status is now: " + (card.isFoil() ? "FOIL" : "NON-FOIL"));
                         break;
                     case 11:
+                        System.out.print("Enter new quantity: ");
+                        int quantity = InputValidator.getValidInteger(scanner, 1, Integer.MAX_VALUE);
+                        card.setQuantity(quantity);
+                        System.out.println("Quantity updated successfully!");
+                        break;
+                    case 12:
                         card.displayCard();
                         break;
                     case 0:
@@ -247,6 +807,12 @@ public class CardCollection {
                         System.out.println("Modifications saved!");
                         break;
                 }
+                
+                CardField field = CardField.fromMenuChoice(choice);
+                if (field != null && !applyChange(id, field, card)) {
+                    System.out.println("Error: The card was deleted while it was being modified.");
+                    return;
+                }
             } catch (IllegalArgumentException e) {
                 System.out.println("Error: " + e.getMessage());
             }
@@ -255,67 +821,89 @@ public class CardCollection {
     
     /**
      * Displays all cards in the collection
+     * Holds the read lock while printing, so changes wait until it is done
      */
     public void displayAllCards() {
-        if (collection.isEmpty()) {
-            System.out.println("\nCollection is empty. No cards to display.");
-            return;
-        }
-        
-        System.out.println("\n" + "=".repeat(80));
-        System.out.println("COLLECTION: " + collectionName);
-        System.out.println("Total Cards: " + collection.size());
-        System.out.println("=".repeat(80));
-        
-        for (int i = 0; i < collection.size(); i++) {
-            System.out.printf("\n[Card #%d]%n", i);
-            collection.get(i).displayCard();
+        long stamp = lock.readLock();
+        try {
+            if (slots.liveCount() == 0) {
+                System.out.println("\nCollection is empty. No cards to display.");
+                return;
+            }
+            
+            System.out.println("\n" + "=".repeat(80));
+            System.out.println("COLLECTION: " + collectionName);
+            System.out.println("Total Cards: " + statistics.getCopyCount() + " (" + slots.liveCount() + " entries)");
+            System.out.println("=".repeat(80));
+            
+            int position = 0;
+            for (int slot = slots.nextLive(0); slot >= 0; slot = slots.nextLive(slot + 1)) {
+                System.out.printf("\n[Card #%d]%n", position++);
+                collection.get(slot).displayCard();
+            }
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
     
     /**
      * Displays a simple list of all cards (compact view)
+     * Holds the read lock while printing, like displayAllCards()
      */
     public void displayCardList() {
-        if (collection.isEmpty()) {
-            System.out.println("\nCollection is empty.");
-            return;
-        }
-        
-        System.out.println("\n" + "=".repeat(100));
-        System.out.println("CARD LIST - " + collectionName);
-        System.out.println("=".repeat(100));
-        System.out.printf("%-5s %-30s %-20s %-15s %-10s%n", "Index", "Name", "Edition", "Rarity", "Value");
-        System.out.println("-".repeat(100));
-        
-        for (int i = 0; i < collection.size(); i++) {
-            MTGCard card = collection.get(i);
-            System.out.printf("%-5d %-30s %-20s %-15s $%-9.2f%n", 
-                            i, 
-                            card.getName(), 
-                            card.getEdition(), 
-                            card.getRarity(), 
-                            card.getValue());
+        long stamp = lock.readLock();
+        try {
+            if (slots.liveCount() == 0) {
+                System.out.println("\nCollection is empty.");
+                return;
+            }
+            
+            System.out.println("\n" + "=".repeat(100));
+            System.out.println("CARD LIST - " + collectionName);
+            System.out.println("=".repeat(100));
+            System.out.printf("%-5s %-8s %-30s %-20s %-15s %-10s %-5s%n",
+                            "Index", "ID", "Name", "Edition", "Rarity", "Value", "Qty");
+            System.out.println("-".repeat(100));
+            
+            int position = 0;
+            for (int slot = slots.nextLive(0); slot >= 0; slot = slots.nextLive(slot + 1)) {
+                System.out.printf("%-5d %-8d %-30s %-20s %-15s $%-9.2f %-5d%n", 
+                                position++, 
+                                ids.idOf(slot), 
+                                collection.getName(slot), 
+                                collection.getEdition(slot), 
+                                collection.getRarity(slot), 
+                                collection.getValue(slot), 
+                                collection.getQuantity(slot));
+            }
+            System.out.println("=".repeat(100));
+        } finally {
+            lock.unlockRead(stamp);
         }
-        System.out.println("=".repeat(100));
     }
     
     /**
      * Searches for cards by name (partial match, case-insensitive)
+     * Answered from the trigram index; terms under three characters scan
      * 
      * @param searchTerm The term to search for
      * @return ArrayList of matching cards
      */
     public ArrayList<MTGCard> searchByName(String searchTerm) {
-        ArrayList<MTGCard> results = new ArrayList<>();
-        
-        for (MTGCard card : collection) {
-            if (card.getName().toLowerCase().contains(searchTerm.toLowerCase())) {
-                results.add(card);
+        CollectionEvents.SearchEvent event = new CollectionEvents.SearchEvent();
+        event.begin();
+        ArrayList<MTGCard> found = timed(CollectionMetrics.Operation.SEARCH, () -> read(() -> {
+            ArrayList<MTGCard> results = new ArrayList<>();
+            
+            IntList matches = nameIndex.search(searchTerm);
+            for (int i = 0; i < matches.size(); i++) {
+                results.add(copyAt(matches.get(i)));
             }
-        }
-        
-        return results;
+            
+            return results;
+        }));
+        event.emit(searchTerm, found.size());
+        return found;
     }
     
     /**
@@ -325,15 +913,21 @@ public class CardCollection {
      * @return ArrayList of cards with matching rarity
      */
     public ArrayList<MTGCard> filterByRarity(String rarity) {
-        ArrayList<MTGCard> results = new ArrayList<>();
-        
-        for (MTGCard card : collection) {
-            if (card.getRarity().equalsIgnoreCase(rarity)) {
-                results.add(card);
-            }
+        Rarity code = Rarity.parse(rarity);
+        if (code == null) {
+            return new ArrayList<>();
         }
-        
-        return results;
+        return filterByRarity(code);
+    }
+    
+    /**
+     * Filters cards by rarity code
+     * 
+     * @param rarity The rarity to filter by
+     * @return ArrayList of cards with matching rarity
+     */
+    public ArrayList<MTGCard> filterByRarity(Rarity rarity) {
+        return filtered("rarity", () -> read(() -> cardsIn(attributeIndex.rarity(rarity))));
     }
     
     /**
@@ -343,93 +937,212 @@ public class CardCollection {
      * @return ArrayList of cards with matching color
      */
     public ArrayList<MTGCard> filterByColor(String color) {
-        ArrayList<MTGCard> results = new ArrayList<>();
-        
-        for (MTGCard card : collection) {
-            if (card.getColor().equalsIgnoreCase(color)) {
-                results.add(card);
-            }
+        CardColor code = CardColor.parse(color);
+        if (code == null) {
+            return new ArrayList<>();
         }
-        
-        return results;
+        return filterByColor(code);
     }
     
     /**
-     * Calculates the total value of all cards in the collection
+     * Filters cards by color code
      * 
-     * @return Total monetary value
+     * @param color The color to filter by
+     * @return ArrayList of cards with matching color
      */
-    public double getTotalValue() {
-        double total = 0.0;
-        for (MTGCard card : collection) {
-            total += card.getValue();
-        }
-        return total;
+    public ArrayList<MTGCard> filterByColor(CardColor color) {
+        return filtered("color", () -> read(() -> cardsIn(attributeIndex.color(color))));
     }
     
     /**
-     * Displays collection statistics
+     * Filters cards on several attributes at once using the bitmap index
+     * Pass null for any attribute that should not be filtered on
+     * 
+     * @param rarity The rarity to match, or null
+     * @param color The color to match, or null
+     * @param condition The condition to match, or null
+     * @param foil true for foil only, false for non-foil only, or null
+     * @return ArrayList of cards matching every given attribute
      */
-    public void displayStatistics() {
-        if (collection.isEmpty()) {
-            System.out.println("\nNo statistics available - collection is empty.");
-            return;
-        }
-        
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("COLLECTION STATISTICS - " + collectionName);
-        System.out.println("=".repeat(60));
-        System.out.printf("Total Cards:        %d%n", collection.size());
-        System.out.printf("Total Value:        $%.2f%n", getTotalValue());
-        System.out.printf("Average Card Value: $%.2f%n", getTotalValue() / collection.size());
-        
-        // Count by rarity
-        int common = 0, uncommon = 0, rare = 0, mythic = 0, special = 0;
-        for (MTGCard card : collection) {
-            switch (card.getRarity()) {
-                case "Common": common++; break;
-                case "Uncommon": uncommon++; break;
-                case "Rare": rare++; break;
-                case "Mythic Rare": mythic++; break;
-                case "Special": special++; break;
+    public ArrayList<MTGCard> filter(Rarity rarity, CardColor color, CardCondition condition, Boolean foil) {
+        return filtered("attributes", () -> read(() -> {
+            Bitmap matches = null;
+            if (rarity != null) {
+                matches = intersect(matches, attributeIndex.rarity(rarity));
             }
-        }
-        
-        System.out.println("\nCards by Rarity:");
-        System.out.printf("  Common:      %d%n", common);
-        System.out.printf("  Uncommon:    %d%n", uncommon);
-        System.out.printf("  Rare:        %d%n", rare);
-        System.out.printf("  Mythic Rare: %d%n", mythic);
-        System.out.printf("  Special:     %d%n", special);
-        System.out.println("=".repeat(60));
+            if (color != null) {
+                matches = intersect(matches, attributeIndex.color(color));
+            }
+            if (condition != null) {
+                matches = intersect(matches, attributeIndex.condition(condition));
+            }
+            if (matches == null) {
+                matches = allSlots();
+            }
+            if (foil != null) {
+                if (foil) {
+                    matches.and(attributeIndex.foil());
+                } else {
+                    matches.andNot(attributeIndex.foil());
+                }
+            }
+            return cardsIn(matches);
+        }));
     }
     
     /**
-     * Exports collection to CSV file (prepared for future GUI implementation)
+     * Filters cards by value using the sorted value index
+     * 
+     * @param min Lowest value (inclusive)
+     * @param max Highest value (inclusive)
+     * @return ArrayList of the cards in the range, cheapest first
+     */
+    public ArrayList<MTGCard> filterByValue(double min, double max) {
+        return filtered("value", () -> read(() -> cardsAt(valueIndex.slotsBetween(min, max))));
+    }
+    
+    /**
+     * Gets the most valuable cards
+     * 
+     * @param count Maximum number of cards to return
+     * @return ArrayList of up to count cards, most valuable first
+     */
+    public ArrayList<MTGCard> getMostValuable(int count) {
+        return filtered("top", () -> read(() -> cardsAt(valueIndex.highest(count))));
+    }
+    
+    /**
+     * Gets the least valuable cards
+     * 
+     * @param count Maximum number of cards to return
+     * @return ArrayList of up to count cards, least valuable first
+     */
+    public ArrayList<MTGCard> getLeastValuable(int count) {
+        return filtered("bottom", () -> read(() -> cardsAt(valueIndex.lowest(count))));
+    }
+    
+    /**
+     * Gets the cards in every slot set in a bitmap
+     * Used with bitmaps combined from getAttributeIndex()
+     * 
+     * @param matches Bitmap of slots to return
+     * @return ArrayList of copies of the cards in those slots
+     */
+    public ArrayList<MTGCard> getCards(Bitmap matches) {
+        return filtered("bitmap", () -> read(() -> cardsIn(matches)));
+    }
+    
+    /**
+     * Runs a composite query
+     * 
+     * The matching slots are found up front from the indexes and column
+     * scans; cards are only copied as the iterator reaches them, after the
+     * query is tested again on the card as it is then. Cards deleted or
+     * edited so they no longer match are skipped; cards that only start
+     * to match after the query ran are not picked up. If the
+     * collection is compacted before iteration ends, the iterator throws
+     * ConcurrentModificationException, since its slots no longer apply.
+     * 
+     * @param query The query to run
+     * @return Iterator over copies of the matching cards, in list order
+     */
+    public Iterator<MTGCard> query(CardQuery query) {
+        CollectionEvents.FilterEvent event = new CollectionEvents.FilterEvent();
+        event.begin();
+        QueryIterator matches = timed(CollectionMetrics.Operation.QUERY,
+                                      () -> read(() -> new QueryIterator(query, planner().execute(query), compactions)));
+        if (event.shouldCommit()) {
+            event.emit("query", matches.size());
+        }
+        return matches;
+    }
+    
+    /**
+     * Counts the cards matching a composite query without copying any
+     * 
+     * @param query The query to run
+     * @return Number of matching cards
+     */
+    public int count(CardQuery query) {
+        CollectionEvents.FilterEvent event = new CollectionEvents.FilterEvent();
+        event.begin();
+        int matches = timed(CollectionMetrics.Operation.QUERY, () -> read(() -> planner().execute(query).cardinality()));
+        event.emit("count", matches);
+        return matches;
+    }
+    
+    /**
+     * Breaks the collection down into groups and aggregates each group's values
+     * 
+     * Runs on a fork-join pool for large collections. The read lock is
+     * held throughout, so the groups are consistent and changes wait
+     * until the aggregation is done.
+     * 
+     * @param groupBy The fields to group by, with an optional filter
+     * @return One group per combination of key values, in key order
+     */
+    public List<GroupBy.Group> aggregate(GroupBy groupBy) {
+        long start = System.nanoTime();
+        long stamp = lock.readLock();
+        try {
+            Bitmap matches = groupBy.getFilter() == null ? allSlots() : planner().execute(groupBy.getFilter());
+            return new GroupAggregator().aggregate(collection, matches, groupBy);
+        } finally {
+            lock.unlockRead(stamp);
+            metrics.record(CollectionMetrics.Operation.AGGREGATE, start);
+        }
+    }
+    
+    /**
+     * Gets the total value of all cards in the collection, every copy included
+     * Read from the running aggregates, so this is O(1)
+     * 
+     * @return Total monetary value
+     */
+    public double getTotalValue() {
+        return read(() -> statistics.getTotalValue());
+    }
+    
+    /**
+     * Displays collection statistics
+     */
+    public void displayStatistics() {
+        // Print from a snapshot of the aggregates, so no lock is held while printing
+        CollectionStatistics reading = getStatistics();
+        long copies = reading.getCopyCount();
+        if (copies == 0) {
+            System.out.println("\nNo statistics available - collection is empty.");
+            return;
+        }
+        
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println("COLLECTION STATISTICS - " + getCollectionName());
+        System.out.println("=".repeat(60));
+        System.out.printf("Total Cards:        %d%n", copies);
+        System.out.printf("Unique Entries:     %d%n", reading.getCardCount());
+        double totalValue = reading.getTotalValue();
+        System.out.printf("Total Value:        $%.2f%n", totalValue);
+        System.out.printf("Average Card Value: $%.2f%n", totalValue / copies);
+        
+        // Counts by rarity come from the running aggregates
+        System.out.println("\nCards by Rarity:");
+        for (int i = 0; i < Rarity.table().size(); i++) {
+            Rarity rarity = Rarity.table().get(i);
+            System.out.printf("  %-13s%d%n", rarity.getDisplayName() + ":", reading.getRarityCopies(rarity));
+        }
+        System.out.println("=".repeat(60));
+    }
+    
+    /**
+     * Exports collection to CSV file (prepared for future GUI implementation)
      * 
      * @param filename The name of the file to export to
      * @return true if successful, false otherwise
      */
     public boolean exportToCSV(String filename) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            // Write header
-            writer.println("Name,Rarity,Condition,Value,Edition,CardType,Color,ManaCost,Subtype,Foil");
-            
-            // Write each card
-            for (MTGCard card : collection) {
-                writer.printf("%s,%s,%s,%.2f,%s,%s,%s,%d,%s,%s%n",
-                            card.getName(),
-                            card.getRarity(),
-                            card.getCondition(),
-                            card.getValue(),
-                            card.getEdition(),
-                            card.getCardType(),
-                            card.getColor(),
-                            card.getManaCost(),
-                            card.getCardSubtype(),
-                            card.isFoil() ? "Yes" : "No");
-            }
-            
+        try {
+            exportToCSV(FileChannel.open(Paths.get(filename),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), filename);
             System.out.println("\nCollection exported successfully to " + filename);
             return true;
         } catch (IOException e) {
@@ -438,49 +1151,895 @@ public class CardCollection {
         }
     }
     
+    /**
+     * Writes the collection as CSV to a channel, such as an HTTP response
+     * The rows are encoded into memory under the read lock, which is
+     * released before anything is written to the channel, so a slow
+     * client never holds up changes to the collection
+     * 
+     * @param channel Where to write; closed afterwards
+     * @throws IOException if writing fails
+     */
+    public void exportToCSV(WritableByteChannel channel) throws IOException {
+        exportToCSV(channel, null);
+    }
+    
+    /**
+     * Writes the collection as CSV to a channel
+     * 
+     * @param channel Where to write; closed afterwards
+     * @param filename The file the channel writes to, or null, for the flight recorder
+     * @throws IOException if writing fails
+     */
+    private void exportToCSV(WritableByteChannel channel, String filename) throws IOException {
+        long start = System.nanoTime();
+        CollectionEvents.ExportEvent event = new CollectionEvents.ExportEvent();
+        event.begin();
+        int rows;
+        long bytes;
+        try (WritableByteChannel out = channel) {
+            // Encode under the read lock for a consistent copy, but only write to
+            // the channel once it is released: writers wait for every read lock
+            ExportBuffer buffer = new ExportBuffer();
+            long stamp = lock.readLock();
+            try (CsvWriter writer = new CsvWriter(buffer)) {
+                // Write header
+                writer.writeRecord("Name", "Rarity", "Condition", "Value", "Edition",
+                                   "CardType", "Color", "ManaCost", "Subtype", "Foil", "Quantity");
+            
+                // Write each card straight from the store's columns
+                for (int slot = slots.nextLive(0); slot >= 0; slot = slots.nextLive(slot + 1)) {
+                    writer.writeField(collection.getName(slot));
+                    writer.writeField(collection.getRarity(slot).getDisplayName());
+                    writer.writeField(collection.getCondition(slot).getDisplayName());
+                    writer.writeFixed2(collection.getValue(slot));
+                    writer.writeField(collection.getEdition(slot));
+                    writer.writeField(collection.getCardType(slot));
+                    writer.writeField(collection.getColor(slot).getDisplayName());
+                    writer.writeField(collection.getManaCost(slot));
+                    writer.writeField(collection.getCardSubtype(slot));
+                    writer.writeField(collection.isFoil(slot) ? "Yes" : "No");
+                    writer.writeField(collection.getQuantity(slot));
+                    writer.endRecord();
+                }
+                rows = slots.liveCount();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            bytes = buffer.drainTo(out);
+        } finally {
+            metrics.record(CollectionMetrics.Operation.EXPORT, start);
+        }
+        event.emit(filename, rows, bytes);
+    }
+    
+    /**
+     * Growable in-memory channel an export is encoded into
+     */
+    private static class ExportBuffer implements WritableByteChannel {
+        private byte[] data = new byte[1024 * 1024];
+        private int size;
+        
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            int length = source.remaining();
+            if (length > data.length - size) {
+                long needed = (long) size + length;
+                if (needed > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Export is too large to buffer");
+                }
+                data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, data.length * 2L)));
+            }
+            source.get(data, size, length);
+            size += length;
+            return length;
+        }
+        
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+        
+        @Override
+        public void close() {
+        }
+        
+        /**
+         * Writes everything buffered to a channel
+         * @return Bytes written
+         */
+        long drainTo(WritableByteChannel target) throws IOException {
+            ByteBuffer out = ByteBuffer.wrap(data, 0, size);
+            while (out.hasRemaining()) {
+                target.write(out);
+            }
+            return size;
+        }
+    }
+    
     /**
      * Imports collection from CSV file (prepared for future GUI implementation)
+     * The file is read and parsed in parallel chunks; cards are
+     * added in file order, a batch per write lock, so readers and other
+     * writers get in between batches of a long import. Rows for a printing
+     * the collection already holds add to that entry's quantity
      * 
      * @param filename The name of the file to import from
-     * @return Number of cards imported
+     * @return Number of cards stored (rows refused as invalid or because an
+     *         entry's quantity would overflow are not counted)
      */
     public int importFromCSV(String filename) {
-        int count = 0;
+        long start = System.nanoTime();
+        CollectionEvents.ImportEvent event = new CollectionEvents.ImportEvent();
+        event.begin();
+        // Rows the importer parsed, and cards actually stored (a row can still be
+        // refused when it is stored, e.g. when an entry's quantity would overflow)
+        int parsed = 0;
+        int[] applied = {0};
+        ArrayList<MTGCard> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        ParallelCsvImporter importer = new ParallelCsvImporter();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line = reader.readLine(); // Skip header
-            
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                
-                if (parts.length == 10) {
-                    try {
-                        MTGCard card = new MTGCard(
-                            parts[0],  // name
-                            parts[1],  // rarity
-                            parts[2],  // condition
-                            Double.parseDouble(parts[3]),  // value
-                            parts[4],  // edition
-                            parts[5],  // cardType
-                            parts[6],  // color
-                            Integer.parseInt(parts[7]),  // manaCost
-                            parts[8],  // subtype
-                            parts[9].equalsIgnoreCase("Yes")  // isFoil
-                        );
-                        
-                        collection.add(card);
-                        count++;
-                    } catch (Exception e) {
-                        System.out.println("Error importing card: " + parts[0] + " - " + e.getMessage());
-                    }
+        try {
+            // Rarity, condition and color are parsed by the MTGCard constructor
+            // through the same tables the setters and InputValidator use
+            parsed = importer.importFile(filename, card -> {
+                batch.add(card);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    applied[0] += importCards(batch);
                 }
-            }
-            
-            System.out.println("\nImported " + count + " cards from " + filename);
+            });
+            applied[0] += importCards(batch);
+            System.out.println("\nImported " + applied[0] + " cards from " + filename);
         } catch (IOException e) {
             System.out.println("Error reading CSV file: " + e.getMessage());
+        } finally {
+            applied[0] += importCards(batch);
         }
         
+        // One commit for the whole import
+        MutationLog current = log;
+        if (current != null) {
+            awaitLog(current.getLastSequence());
+        }
+        int count = applied[0];
+        int rejected = importer.getRejectedCount() + Math.max(0, parsed - count);
+        metrics.countRows(count, rejected);
+        metrics.record(CollectionMetrics.Operation.IMPORT, start);
+        event.emit(filename, count, rejected, importer.getFileSize());
         return count;
     }
+    
+    /**
+     * Merges entries that hold the same printing into the earliest of them
+     * Collections saved before entries had quantities can hold a printing
+     * many times over; afterwards each printing has one entry. Only cards
+     * that share a name with another entry are looked at.
+     * 
+     * @return Number of entries merged away
+     */
+    public int mergeDuplicates() {
+        int merged = 0;
+        long sequence = 0;
+        long stamp = lock.writeLock();
+        try {
+            // Work by ID, since every merge deletes an entry and can compact the store
+            Bitmap candidates = nameLookup.sharedNameSlots();
+            long[] candidateIds = new long[candidates.cardinality()];
+            int count = 0;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                candidateIds[count++] = ids.idOf(slot);
+            }
+            for (long id : candidateIds) {
+                int slot = ids.slotOf(id);
+                int first = slot < 0 ? -1 : findPrinting(collection.get(slot), slot);
+                // Slots keep their order, so the earliest entry of a printing survives
+                if (first >= 0 && first < slot) {
+                    sequence = foldInto(first, slot);
+                    merged++;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitLog(sequence);
+        return merged;
+    }
+    
+    /**
+     * Saves the collection to a binary snapshot file
+     * 
+     * @param filename The snapshot file to write
+     * @return true if successful, false otherwise
+     */
+    public boolean saveSnapshot(String filename) {
+        // Changes are logged under the write lock, so the sequence matches the cards
+        long stamp = lock.readLock();
+        try {
+            writeSnapshot(filename, log != null ? log.getLastSequence() : logSequence);
+            System.out.println("\nCollection saved to " + filename);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+            return false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Replaces the collection with the contents of a binary snapshot file
+     * The file is validated first, so a damaged snapshot leaves the
+     * collection unchanged. Load the snapshot before attaching a mutation log.
+     * 
+     * @param filename The snapshot file to read
+     * @return true if successful, false otherwise
+     */
+    public boolean loadSnapshot(String filename) {
+        try {
+            CollectionSnapshot snapshot = CollectionSnapshot.read(filename);
+            long stamp = lock.writeLock();
+            try {
+                restoreSnapshot(snapshot);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            System.out.println("\nLoaded " + snapshot.getCardCount() + " cards from " + filename);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error loading snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Replays a mutation log on top of the loaded snapshot, then records
+     * every later change in it
+     * 
+     * @param mutationLog The opened log
+     * @return true if the log was replayed and attached, false otherwise
+     */
+    public boolean attachLog(MutationLog mutationLog) {
+        long stamp = lock.writeLock();
+        try {
+            int replayed = mutationLog.replay(logSequence, this::applyLogEntry);
+            if (replayed > 0) {
+                System.out.println("Replayed " + replayed + " logged changes");
+            }
+            this.log = mutationLog;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error replaying mutation log: " + e.getMessage());
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Flushes and closes the mutation log, which folds it into the snapshot
+     * 
+     * @return true if every logged change reached the log file
+     */
+    public boolean closeLog() {
+        // Detach under the write lock so no change is appended after the close
+        MutationLog closing;
+        long stamp = lock.writeLock();
+        try {
+            closing = log;
+            log = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (closing == null) {
+            return false;
+        }
+        try {
+            closing.close();
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error closing mutation log: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Replaces the cards and name with a snapshot's contents
+     * The caller holds the write lock or owns the collection
+     * 
+     * @param snapshot A validated snapshot
+     * @throws IOException if a record in the snapshot is damaged
+     */
+    void restoreSnapshot(CollectionSnapshot snapshot) throws IOException {
+        clearCards();
+        collectionName = snapshot.getCollectionName();
+        logSequence = snapshot.getLogSequence();
+        snapshot.forEachCard(this::storeCard);
+        ids.advanceTo(snapshot.getNextId());
+    }
+    
+    /**
+     * Writes the live cards to a snapshot file
+     * 
+     * @param filename The snapshot file to write
+     * @param sequence The last log entry reflected in the cards
+     * @throws IOException if the file cannot be written
+     */
+    void writeSnapshot(String filename, long sequence) throws IOException {
+        CollectionSnapshot.write(filename, collectionName, collection, slots.liveSlots(), slots.liveCount(),
+                                 ids, sequence);
+    }
+    
+    /**
+     * Re-applies one logged change (used by replay and compaction)
+     * The caller holds the write lock or owns the collection
+     * 
+     * @param entry The logged change
+     * @throws IllegalStateException if the entry refers to a position that does not exist
+     */
+    void applyLogEntry(LogEntry entry) {
+        switch (entry.getType()) {
+            case LogEntry.ADD:
+                storeCard(entry.getCard());
+                break;
+            case LogEntry.DELETE:
+                removeSlot(slotForReplay(entry.getPosition()));
+                break;
+            case LogEntry.SET_FIELD:
+                int slot = slotForReplay(entry.getPosition());
+                MTGCard card = collection.get(slot);
+                MTGCard before = new MTGCard(card);
+                entry.applyTo(card);
+                replaceCard(slot, before, card);
+                break;
+            case LogEntry.RENAME:
+                collectionName = entry.getText();
+                break;
+        }
+    }
+    
+    /**
+     * Runs a public operation and records its latency
+     * 
+     * @param operation The kind of operation, for the metrics
+     * @param work The operation
+     * @return Whatever the operation returns
+     */
+    private <T> T timed(CollectionMetrics.Operation operation, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            metrics.record(operation, start);
+        }
+    }
+    
+    /**
+     * Runs a filter, recording its latency and a flight recorder event
+     * 
+     * @param filter The kind of filter, for the event
+     * @param work The filter
+     * @return The cards it selected
+     */
+    private ArrayList<MTGCard> filtered(String filter, Supplier<ArrayList<MTGCard>> work) {
+        CollectionEvents.FilterEvent event = new CollectionEvents.FilterEvent();
+        event.begin();
+        ArrayList<MTGCard> cards = timed(CollectionMetrics.Operation.FILTER, work);
+        event.emit(filter, cards.size());
+        return cards;
+    }
+    
+    /**
+     * Runs a read without locking and checks afterwards that no change
+     * overlapped it; if one did, the read is repeated under the read lock
+     * A read that overlaps a change can see half-updated structures and
+     * fail in any way, even with an Error such as OutOfMemoryError from a
+     * garbage length, so what it throws only counts if the stamp is still valid
+     * 
+     * @param reader The read to run; it must have no side effects
+     * @return The reader's result
+     */
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException | Error e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        lockedReads.increment();
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Copies the card with an ID (caller reads under a stamp or lock)
+     * 
+     * @param id The card's ID
+     * @return A detached copy, or null if there is no such card
+     */
+    private MTGCard copyOf(long id) {
+        int slot = ids.slotOf(id);
+        return slot < 0 ? null : copyAt(slot);
+    }
+    
+    /**
+     * Copies the card in a slot and stamps the copy with the card's ID
+     * (caller reads under a stamp or lock)
+     * 
+     * @param slot The slot to copy
+     * @return A detached copy
+     */
+    private MTGCard copyAt(int slot) {
+        MTGCard copy = new MTGCard(collection.get(slot));
+        copy.setId(ids.idOf(slot));
+        return copy;
+    }
+    
+    /**
+     * Copies one field of an edited copy onto the stored card and logs it
+     * 
+     * @param id The card's ID
+     * @param field The field that was edited
+     * @param edited The edited copy holding the new value
+     * @return false if the card no longer exists
+     */
+    private boolean applyChange(long id, CardField field, MTGCard edited) {
+        long start = System.nanoTime();
+        CollectionEvents.MutationEvent event = new CollectionEvents.MutationEvent();
+        event.begin();
+        try {
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                int slot = ids.slotOf(id);
+                if (slot < 0) {
+                    return false;
+                }
+                sequence = applyField(slot, field, edited);
+                sequence = Math.max(sequence, mergeInto(slot));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            awaitLog(sequence);
+            event.emit("update", id, 0);
+            return true;
+        } finally {
+            metrics.record(CollectionMetrics.Operation.UPDATE, start);
+        }
+    }
+    
+    /**
+     * Copies one field onto the card in a slot and logs it (caller holds the write lock)
+     * 
+     * @param slot The slot of the card
+     * @param field The field to copy
+     * @param edited The card holding the new value
+     * @return The change's log sequence
+     */
+    private long applyField(int slot, CardField field, MTGCard edited) {
+        LogEntry entry = LogEntry.fieldChange(slots.positionOf(slot), field, edited);
+        MTGCard card = collection.get(slot);
+        MTGCard before = new MTGCard(card);
+        entry.applyTo(card);
+        replaceCard(slot, before, card);
+        return logChange(entry);
+    }
+    
+    /**
+     * Stores a batch of imported cards under one write lock and queues
+     * their log entries
+     * 
+     * @param batch The cards to store; emptied afterwards
+     * @return Number of cards stored (cards whose entry would overflow are skipped)
+     */
+    private int importCards(ArrayList<MTGCard> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int stored = 0;
+        long stamp = lock.writeLock();
+        try {
+            for (MTGCard card : batch) {
+                try {
+                    addCopies(card);
+                    stored++;
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Error importing card: " + card.getName() + " - " + e.getMessage());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        batch.clear();
+        return stored;
+    }
+    
+    /**
+     * Appends a change to the mutation log (caller holds the write lock,
+     * which keeps log order the same as the order changes were applied)
+     * 
+     * @param entry The change to record
+     * @return The entry's log sequence, or 0 if nothing is being logged
+     */
+    private long logChange(LogEntry entry) {
+        if (log != null) {
+            try {
+                return log.append(entry);
+            } catch (IOException e) {
+                reportLogFailure(e);
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Waits until a logged change is committed (caller holds no lock,
+     * so readers and other writers carry on during the fsync)
+     * 
+     * @param sequence The sequence returned by logChange
+     */
+    private void awaitLog(long sequence) {
+        MutationLog current = log;
+        if (current != null && sequence > 0) {
+            try {
+                current.commit(sequence);
+            } catch (IOException e) {
+                long stamp = lock.writeLock();
+                try {
+                    // Another writer may already have given up on this log
+                    if (log == current) {
+                        reportLogFailure(e);
+                    }
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reports a mutation log failure once and stops logging
+     * The caller holds the write lock
+     * 
+     * @param e The failure
+     */
+    private void reportLogFailure(IOException e) {
+        System.out.println("Error: changes can no longer be saved - " + e.getMessage());
+        try {
+            log.close();
+        } catch (IOException ignored) {
+            // Already reported
+        }
+        log = null;
+    }
+    
+    /**
+     * Maps a logged position to a slot
+     * 
+     * @param position The position recorded in the log
+     * @return The slot at that position
+     */
+    private int slotForReplay(int position) {
+        if (position < 0 || position >= slots.liveCount()) {
+            throw new IllegalStateException("Logged change refers to card " + position
+                                            + " but the collection has " + slots.liveCount());
+        }
+        return slots.slotAt(position);
+    }
+    
+    /**
+     * Stores a card as a new entry, or adds its quantity to the entry that
+     * already holds the same printing, and logs the change (caller holds the
+     * write lock); the card is stamped with the entry's ID either way
+     * 
+     * @param card The card to add
+     * @return The change's log sequence
+     * @throws IllegalArgumentException if the entry's quantity would overflow
+     */
+    private long addCopies(MTGCard card) {
+        int slot = findPrinting(card, -1);
+        if (slot < 0) {
+            storeCard(card);
+            return logChange(LogEntry.add(card));
+        }
+        MTGCard merged = new MTGCard(collection.get(slot));
+        merged.setQuantity(addQuantities(merged.getQuantity(), card.getQuantity()));
+        card.setId(ids.idOf(slot));
+        return applyField(slot, CardField.QUANTITY, merged);
+    }
+    
+    /**
+     * Finds the entry holding the same printing as a card
+     * Only the entries with the card's name are compared
+     * (caller holds the lock or an optimistic stamp)
+     * 
+     * @param card The card to look for
+     * @param except A slot to skip (the card's own), or -1
+     * @return The lowest matching slot, or -1 if there is none
+     */
+    private int findPrinting(MTGCard card, int except) {
+        IntList named = nameLookup.slots(card.getName());
+        for (int i = 0; i < named.size(); i++) {
+            int slot = named.get(i);
+            if (slot != except && card.isSamePrinting(collection.get(slot))) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Merges another entry of the same printing into the card in a slot,
+     * after an edit has made the two identical (caller holds the write lock)
+     * The merged entry is deleted, which can compact the store, so callers
+     * must look the slot up again by ID afterwards
+     * 
+     * @param slot The slot of the edited card
+     * @return The last change's log sequence, or 0 if there was nothing to merge
+     */
+    private long mergeInto(int slot) {
+        int duplicate = findPrinting(collection.get(slot), slot);
+        return duplicate < 0 ? 0 : foldInto(slot, duplicate);
+    }
+    
+    /**
+     * Adds one entry's quantity to another and deletes it (caller holds the write lock)
+     * 
+     * @param target The slot that keeps the copies
+     * @param source The slot to fold in and delete
+     * @return The change's log sequence
+     */
+    private long foldInto(int target, int source) {
+        MTGCard merged = new MTGCard(collection.get(target));
+        merged.setQuantity(addQuantities(merged.getQuantity(), collection.getQuantity(source)));
+        applyField(target, CardField.QUANTITY, merged);
+        // The log addresses cards by position, taken before the delete shifts them
+        int position = slots.positionOf(source);
+        removeSlot(source);
+        return logChange(LogEntry.delete(position));
+    }
+    
+    /**
+     * Adds two quantities
+     * 
+     * @throws IllegalArgumentException if the sum does not fit in an int
+     */
+    private static int addQuantities(int quantity, int more) {
+        if (quantity > Integer.MAX_VALUE - more) {
+            throw new IllegalArgumentException("Quantity cannot be more than " + Integer.MAX_VALUE);
+        }
+        return quantity + more;
+    }
+    
+    /**
+     * Interns a card's strings, appends it to the store and updates the indexes
+     * 
+     * @param card The card to store
+     * @return The ID given to the card
+     */
+    private long storeCard(MTGCard card) {
+        return storeCard(card, 0);
+    }
+    
+    /**
+     * Stores a card under a known ID
+     * 
+     * @param card The card to store
+     * @param id The card's saved ID, or 0 to assign the next one
+     * @return The card's ID
+     */
+    private long storeCard(MTGCard card, long id) {
+        card.internStrings(stringPool);
+        int slot = slots.addSlot();
+        id = id > 0 ? ids.assign(slot, id) : ids.assign(slot);
+        // Stamped before storing, so both the caller's card and the stored copy carry it
+        card.setId(id);
+        collection.add(card);
+        for (CollectionIndex index : indexes) {
+            index.cardAdded(slot, card);
+        }
+        return id;
+    }
+    
+    /**
+     * Tombstones the card in a slot and updates the indexes
+     * No other slot moves, so this is O(1) apart from index upkeep
+     * 
+     * @param slot The slot to remove
+     * @return The removed card
+     */
+    private MTGCard removeSlot(int slot) {
+        MTGCard removed = collection.get(slot);
+        slots.kill(slot);
+        ids.remove(slot);
+        for (CollectionIndex index : indexes) {
+            index.cardRemoved(slot, removed);
+        }
+        
+        // Compact once tombstones outnumber live cards, so the cost is amortized O(1)
+        if (slots.deadCount() > COMPACTION_MIN_TOMBSTONES && slots.deadCount() > slots.liveCount()) {
+            // Detach the card first in case it is a view of a record that is about to move
+            removed = new MTGCard(removed);
+            compact();
+        }
+        return removed;
+    }
+    
+    /**
+     * Drops tombstoned slots from the store and rebuilds the indexes
+     */
+    private void compact() {
+        compactions++;
+        Bitmap live = slots.liveSlots();
+        collection.compact(live);
+        ids.compact(live);
+        slots.reset(collection.size());
+        for (CollectionIndex index : indexes) {
+            index.clear();
+        }
+        for (int slot = 0; slot < collection.size(); slot++) {
+            MTGCard card = collection.get(slot);
+            for (CollectionIndex index : indexes) {
+                index.cardAdded(slot, card);
+            }
+        }
+    }
+    
+    /**
+     * Removes every card and resets the slot table and indexes
+     */
+    private void clearCards() {
+        compactions++;
+        collection.clear();
+        slots.reset(0);
+        ids.clear();
+        for (CollectionIndex index : indexes) {
+            index.clear();
+        }
+    }
+    
+    /**
+     * Writes a modified card back to its slot and updates the indexes
+     * 
+     * @param slot The slot of the card
+     * @param before A copy of the card before the change
+     * @param after The card after the change
+     */
+    private void replaceCard(int slot, MTGCard before, MTGCard after) {
+        after.internStrings(stringPool);
+        collection.set(slot, after);
+        for (CollectionIndex index : indexes) {
+            index.cardChanged(slot, before, after);
+        }
+    }
+    
+    /**
+     * Copies the cards in every live slot set in a bitmap
+     * (caller reads under a stamp or lock)
+     * 
+     * @param matches Bitmap of slots to return
+     * @return ArrayList of copies of the cards in those slots
+     */
+    private ArrayList<MTGCard> cardsIn(Bitmap matches) {
+        ArrayList<MTGCard> results = new ArrayList<>();
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            if (slots.isLive(slot)) {
+                results.add(copyAt(slot));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Copies the cards in a list of slots, keeping the list's order
+     * Caller holds the lock or an optimistic stamp
+     * 
+     * @param matches Slots to copy
+     * @return ArrayList of copies of the cards in those slots
+     */
+    private ArrayList<MTGCard> cardsAt(IntList matches) {
+        ArrayList<MTGCard> results = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            results.add(copyAt(matches.get(i)));
+        }
+        return results;
+    }
+    
+    /**
+     * ANDs an index bitmap into a running result without modifying the index
+     * 
+     * @param matches The result so far, or null if nothing has been applied yet
+     * @param bitmap The index bitmap to intersect with
+     * @return The narrowed result
+     */
+    private Bitmap intersect(Bitmap matches, Bitmap bitmap) {
+        if (matches == null) {
+            return new Bitmap(bitmap);
+        }
+        matches.and(bitmap);
+        return matches;
+    }
+    
+    /**
+     * Creates a planner for one query over the current cards
+     * Caller holds the lock or an optimistic stamp
+     * 
+     * @return The planner
+     */
+    private QueryPlanner planner() {
+        return new QueryPlanner(collection, allSlots(), attributeIndex, statistics, nameLookup, nameIndex, valueIndex);
+    }
+    
+    /**
+     * Lazy iterator over the slots a query matched
+     */
+    private class QueryIterator implements Iterator<MTGCard> {
+        private final CardQuery query;
+        private final Bitmap matches;
+        // Compaction count when the query ran; slots are only valid while it is unchanged
+        private final int expectedCompactions;
+        private int nextSlot;
+        private MTGCard next;
+        
+        QueryIterator(CardQuery query, Bitmap matches, int expectedCompactions) {
+            this.query = query;
+            this.matches = matches;
+            this.expectedCompactions = expectedCompactions;
+        }
+        
+        /**
+         * Gets the number of cards the query matched when it ran
+         */
+        int size() {
+            return matches.cardinality();
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                int slot = matches.nextSetBit(nextSlot);
+                if (slot < 0) {
+                    return false;
+                }
+                nextSlot = slot + 1;
+                next = read(() -> {
+                    if (compactions != expectedCompactions) {
+                        throw new ConcurrentModificationException("Collection was compacted during the query");
+                    }
+                    // Re-test under the same stamp: the card may have changed since the query ran
+                    return slots.isLive(slot) && query.matches(collection, slot) ? copyAt(slot) : null;
+                });
+            }
+            return true;
+        }
+        
+        @Override
+        public MTGCard next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            MTGCard card = next;
+            next = null;
+            return card;
+        }
+    }
+    
+    /**
+     * Creates a bitmap with a bit set for every live slot
+     * 
+     * @return Bitmap of all live slots
+     */
+    private Bitmap allSlots() {
+        return slots.liveSlots();
+    }
 }
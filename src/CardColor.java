@@ -0,0 +1,62 @@
+/**
+ * CardColor - Card Color Enumeration
+ * 
+ * The five MTG colors plus Colorless and Multicolor.
+ * 
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public enum CardColor implements CardAttribute {
+    WHITE("White"),
+    BLUE("Blue"),
+    BLACK("Black"),
+    RED("Red"),
+    GREEN("Green"),
+    COLORLESS("Colorless"),
+    MULTICOLOR("Multicolor");
+    
+    // Shared case-insensitive lookup table
+    private static final AttributeTable<CardColor> TABLE = new AttributeTable<>(values());
+    
+    private final String displayName;
+    
+    /**
+     * Constructor
+     * @param displayName The name shown to users
+     */
+    CardColor(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Parses a color string (case-insensitive)
+     * 
+     * @param text The text to parse
+     * @return The matching color, or null if invalid
+     */
+    public static CardColor parse(String text) {
+        return TABLE.parse(text);
+    }
+    
+    /**
+     * Gets the shared parse table for this attribute
+     * @return The lookup table
+     */
+    public static AttributeTable<CardColor> table() {
+        return TABLE;
+    }
+    
+    /**
+     * Returns the display name
+     * @return The display name
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
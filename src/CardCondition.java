@@ -0,0 +1,63 @@
+/**
+ * CardCondition - Physical Condition Enumeration
+ * 
+ * Grading scale for a card's physical condition, from Mint down to Damaged.
+ * 
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public enum CardCondition implements CardAttribute {
+    MINT("Mint"),
+    NEAR_MINT("Near Mint"),
+    EXCELLENT("Excellent"),
+    GOOD("Good"),
+    LIGHT_PLAYED("Light Played"),
+    PLAYED("Played"),
+    POOR("Poor"),
+    DAMAGED("Damaged");
+    
+    // Shared case-insensitive lookup table
+    private static final AttributeTable<CardCondition> TABLE = new AttributeTable<>(values());
+    
+    private final String displayName;
+    
+    /**
+     * Constructor
+     * @param displayName The name shown to users
+     */
+    CardCondition(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Parses a condition string (case-insensitive)
+     * 
+     * @param text The text to parse
+     * @return The matching condition, or null if invalid
+     */
+    public static CardCondition parse(String text) {
+        return TABLE.parse(text);
+    }
+    
+    /**
+     * Gets the shared parse table for this attribute
+     * @return The lookup table
+     */
+    public static AttributeTable<CardCondition> table() {
+        return TABLE;
+    }
+    
+    /**
+     * Returns the display name
+     * @return The display name
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * CardField - Editable Card Field Enumeration
+ *
+ * The ten fields of an MTG card plus the entry's quantity, in the order the
+ * Modify Card menu lists them (menu choice = ordinal + 1). Used wherever a
+ * single field change has to be named, such as mutation log entries.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public enum CardField implements CardAttribute {
+    NAME("Name"),
+    RARITY("Rarity"),
+    CONDITION("Condition"),
+    VALUE("Value"),
+    EDITION("Edition"),
+    CARD_TYPE("CardType"),
+    COLOR("Color"),
+    MANA_COST("ManaCost"),
+    SUBTYPE("Subtype"),
+    FOIL("Foil"),
+    QUANTITY("Quantity");
+
+    // Case-insensitive lookup by the CSV header spelling
+    private static final AttributeTable<CardField> TABLE = new AttributeTable<>(values());
+
+    private final String displayName;
+
+    /**
+     * Constructor
+     * @param displayName The field name as written in the CSV header
+     */
+    CardField(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Sets this field on a card from its text form (as typed or as in a CSV file)
+     * Numbers are parsed as decimals, foil accepts Yes/No or true/false
+     *
+     * @param card The card to update
+     * @param text The new value
+     * @throws IllegalArgumentException if the text is not a valid value for the field
+     */
+    public void set(MTGCard card, String text) {
+        if (text == null) {
+            throw new IllegalArgumentException(displayName + " cannot be empty");
+        }
+        switch (this) {
+            case NAME: card.setName(text); break;
+            case RARITY: card.setRarity(text); break;
+            case CONDITION: card.setCondition(text); break;
+            case VALUE: card.setValue(parseNumber(text)); break;
+            case EDITION: card.setEdition(text); break;
+            case CARD_TYPE: card.setCardType(text); break;
+            case COLOR: card.setColor(text); break;
+            case MANA_COST: card.setManaCost(parseWhole(text)); break;
+            case SUBTYPE: card.setCardSubtype(text); break;
+            case FOIL: card.setIsFoil(parseFoil(text)); break;
+            case QUANTITY: card.setQuantity(parseWhole(text)); break;
+        }
+    }
+
+    /**
+     * Gets the field for a Modify Card menu choice
+     *
+     * @param choice The menu choice (1-11)
+     * @return The field, or null if the choice is not a field
+     */
+    public static CardField fromMenuChoice(int choice) {
+        return choice >= 1 && choice <= TABLE.size() ? TABLE.get(choice - 1) : null;
+    }
+
+    /**
+     * Parses a field name (case-insensitive)
+     *
+     * @param text The text to parse
+     * @return The matching field, or null if invalid
+     */
+    public static CardField parse(String text) {
+        return TABLE.parse(text);
+    }
+
+    /**
+     * Gets the shared parse table for this enum
+     * @return The lookup table
+     */
+    public static AttributeTable<CardField> table() {
+        return TABLE;
+    }
+
+    private double parseNumber(String text) {
+        try {
+            double value = Double.parseDouble(text.trim());
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(displayName + " must be a number: " + text);
+        }
+    }
+
+    private int parseWhole(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(displayName + " must be a whole number: " + text);
+        }
+    }
+
+    private static boolean parseFoil(String text) {
+        String value = text.trim();
+        if (value.equalsIgnoreCase("Yes") || value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("No") || value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Foil must be Yes or No: " + text);
+    }
+
+    /**
+     * Returns the display name
+     * @return The display name
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+/**
+ * CardIdTable - Stable Card Identifiers
+ *
+ * Gives every stored card a 64-bit ID that never changes and is never
+ * reused, and maps between IDs and store slots in both directions. IDs are
+ * handed out in increasing order starting at 1; the next ID is saved with
+ * snapshots so numbering carries on across restarts.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CardIdTable {
+    private LongIntHashMap slotsById;
+    // ID of each slot, 0 for removed slots
+    private long[] idsBySlot;
+    private int slotCount;
+    private long nextId;
+
+    /**
+     * Default Constructor
+     * Creates an empty table whose first ID is 1
+     */
+    public CardIdTable() {
+        this.slotsById = new LongIntHashMap();
+        this.idsBySlot = new long[16];
+        this.nextId = 1;
+    }
+
+    /**
+     * Assigns the next ID to a newly added slot
+     *
+     * @param slot The new slot (always the next slot number)
+     * @return The assigned ID
+     */
+    public long assign(int slot) {
+        return assign(slot, nextId);
+    }
+
+    /**
+     * Records a known ID for a newly added slot (snapshot loading)
+     * IDs at or above the next ID move the counter past them
+     *
+     * @param slot The new slot (always the next slot number)
+     * @param id The card's ID
+     * @return The ID
+     */
+    public long assign(int slot, long id) {
+        if (slot == idsBySlot.length) {
+            idsBySlot = Arrays.copyOf(idsBySlot, slot + (slot >> 1));
+        }
+        idsBySlot[slot] = id;
+        slotCount = slot + 1;
+        slotsById.put(id, slot);
+        nextId = Math.max(nextId, id + 1);
+        return id;
+    }
+
+    /**
+     * Forgets the ID of a removed slot
+     * @param slot The removed slot
+     */
+    public void remove(int slot) {
+        slotsById.remove(idsBySlot[slot]);
+        idsBySlot[slot] = 0;
+    }
+
+    /**
+     * Gets the slot of a card
+     *
+     * @param id The card's ID
+     * @return The slot, or -1 if no card has that ID
+     */
+    public int slotOf(long id) {
+        return id > 0 ? slotsById.get(id) : -1;
+    }
+
+    /**
+     * Gets the ID of the card in a slot
+     *
+     * @param slot The slot to read
+     * @return The card's ID
+     */
+    public long idOf(int slot) {
+        return idsBySlot[slot];
+    }
+
+    /**
+     * Gets the ID the next added card will receive
+     * @return The next ID
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Moves the ID counter forward (snapshot loading)
+     * @param nextId The lowest ID that may be handed out next
+     */
+    public void advanceTo(long nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+
+    /**
+     * Renumbers slots after the store dropped every slot whose bit is clear
+     * IDs are kept; only the slots they map to change
+     *
+     * @param live Bitmap of the slots that were kept
+     */
+    public void compact(Bitmap live) {
+        int kept = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0 && slot < slotCount; slot = live.nextSetBit(slot + 1)) {
+            long id = idsBySlot[slot];
+            idsBySlot[kept] = id;
+            slotsById.put(id, kept);
+            kept++;
+        }
+        Arrays.fill(idsBySlot, kept, slotCount, 0);
+        slotCount = kept;
+    }
+
+    /**
+     * Removes every mapping and restarts numbering at 1
+     */
+    public void clear() {
+        slotsById.clear();
+        idsBySlot = new long[16];
+        slotCount = 0;
+        nextId = 1;
+    }
+}
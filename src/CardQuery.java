@@ -0,0 +1,676 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * CardQuery - Composite Card Query
+ *
+ * An immutable predicate over card fields, built from the static factories
+ * and combined with and(), or(), allOf(), anyOf() and not(). Queries are run by
+ * CardCollection.query(), which hands them to a QueryPlanner.
+ *
+ * Every predicate can test a single slot against the store's column
+ * accessors, and the ones backed by an index can also produce their whole
+ * match set at once. The planner narrows a candidate bitmap one predicate at
+ * a time: indexed predicates are applied first, most selective first, and
+ * the rest only test the candidates that are left.
+ *
+ * Example: rarity(Rarity.RARE).and(valueBetween(5, 50)).and(not(foil(true)))
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public abstract class CardQuery {
+
+    // ---- Factories ----
+
+    /**
+     * Matches every card
+     * @return The query
+     */
+    public static CardQuery all() {
+        return new All();
+    }
+
+    /**
+     * Matches cards of a rarity (bitmap index)
+     * @param rarity The rarity
+     * @return The query
+     */
+    public static CardQuery rarity(Rarity rarity) {
+        return new AttributeQuery<>("rarity", rarity, CardStore::getRarity,
+                                    AttributeBitmapIndex::rarity, CollectionStatistics::getRarityCount);
+    }
+
+    /**
+     * Matches cards of a color (bitmap index)
+     * @param color The color
+     * @return The query
+     */
+    public static CardQuery color(CardColor color) {
+        return new AttributeQuery<>("color", color, CardStore::getColor,
+                                    AttributeBitmapIndex::color, CollectionStatistics::getColorCount);
+    }
+
+    /**
+     * Matches cards in a condition (bitmap index)
+     * @param condition The condition
+     * @return The query
+     */
+    public static CardQuery condition(CardCondition condition) {
+        return new AttributeQuery<>("condition", condition, CardStore::getCondition,
+                                    AttributeBitmapIndex::condition, CollectionStatistics::getConditionCount);
+    }
+
+    /**
+     * Matches foil or non-foil cards (bitmap index)
+     * @param foil true for foil cards, false for non-foil cards
+     * @return The query
+     */
+    public static CardQuery foil(boolean foil) {
+        return new FoilQuery(foil);
+    }
+
+    /**
+     * Matches cards with a name (case-insensitive, name index)
+     * @param name The full card name
+     * @return The query
+     */
+    public static CardQuery name(String name) {
+        return new NameQuery(name, false);
+    }
+
+    /**
+     * Matches cards whose name contains a term (case-insensitive, trigram index)
+     * @param term The substring to look for
+     * @return The query
+     */
+    public static CardQuery nameContains(String term) {
+        return new NameQuery(term, true);
+    }
+
+    /**
+     * Matches cards from an edition (case-insensitive)
+     * @param edition The set/edition name
+     * @return The query
+     */
+    public static CardQuery edition(String edition) {
+        return new TextQuery("edition", edition, CardStore::getEdition);
+    }
+
+    /**
+     * Matches cards of a card type (case-insensitive)
+     * @param cardType The card type
+     * @return The query
+     */
+    public static CardQuery cardType(String cardType) {
+        return new TextQuery("type", cardType, CardStore::getCardType);
+    }
+
+    /**
+     * Matches cards of a subtype (case-insensitive)
+     * @param subtype The subtype
+     * @return The query
+     */
+    public static CardQuery subtype(String subtype) {
+        return new TextQuery("subtype", subtype, CardStore::getCardSubtype);
+    }
+
+    /**
+     * Matches cards whose value is in a range (sorted value index)
+     *
+     * @param min Lowest value (inclusive)
+     * @param max Highest value (inclusive); Double.POSITIVE_INFINITY for no limit
+     * @return The query
+     */
+    public static CardQuery valueBetween(double min, double max) {
+        return new ValueRange(min, max);
+    }
+
+    /**
+     * Matches cards whose mana cost is in a range
+     *
+     * @param min Lowest mana cost (inclusive)
+     * @param max Highest mana cost (inclusive); Integer.MAX_VALUE for no limit
+     * @return The query
+     */
+    public static CardQuery manaCostBetween(int min, int max) {
+        return new ManaRange(min, max);
+    }
+
+    /**
+     * Matches cards that match every part
+     * @param parts The queries to combine
+     * @return The query
+     */
+    public static CardQuery allOf(CardQuery... parts) {
+        return new And(Arrays.asList(parts.clone()));
+    }
+
+    /**
+     * Matches cards that match at least one part
+     * @param parts The queries to combine
+     * @return The query
+     */
+    public static CardQuery anyOf(CardQuery... parts) {
+        return new Or(Arrays.asList(parts.clone()));
+    }
+
+    /**
+     * Matches cards that do not match a query
+     * @param query The query to negate
+     * @return The query
+     */
+    public static CardQuery not(CardQuery query) {
+        return new Not(query);
+    }
+
+    /**
+     * Combines this query with another using AND
+     * @param other The other query
+     * @return The combined query
+     */
+    public CardQuery and(CardQuery other) {
+        return allOf(this, other);
+    }
+
+    /**
+     * Combines this query with another using OR
+     * @param other The other query
+     * @return The combined query
+     */
+    public CardQuery or(CardQuery other) {
+        return anyOf(this, other);
+    }
+
+    // ---- Planning and evaluation (used by QueryPlanner) ----
+
+    /**
+     * Tests one slot, reading only the columns this query needs
+     *
+     * @param store The store holding the card
+     * @param slot The slot to test
+     * @return true if the card matches
+     */
+    abstract boolean matches(CardStore store, int slot);
+
+    /**
+     * Checks whether the query can be answered from indexes alone
+     * @param planner The planner running the query
+     * @return true if no slot has to be tested
+     */
+    abstract boolean isIndexed(QueryPlanner planner);
+
+    /**
+     * Estimates how many cards match
+     * @param planner The planner running the query
+     * @return Expected number of matches (the live count when unknown)
+     */
+    abstract int estimate(QueryPlanner planner);
+
+    /**
+     * Narrows a set of candidate slots to the ones that match
+     *
+     * @param planner The planner running the query
+     * @param candidates Slots to consider; may be modified and returned
+     * @return The matching candidates
+     */
+    Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+        CardStore store = planner.getStore();
+        candidates.retainIf(slot -> matches(store, slot));
+        return candidates;
+    }
+
+    // ---- Leaves ----
+
+    /**
+     * Reads one attribute column of a store
+     * @param <T> The column type
+     */
+    private interface Column<T> {
+        T read(CardStore store, int slot);
+    }
+
+    private static final class All extends CardQuery {
+        @Override
+        boolean matches(CardStore store, int slot) {
+            return true;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            return planner.getLiveCount();
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            return "all cards";
+        }
+    }
+
+    private static final class AttributeQuery<E extends Enum<E> & CardAttribute> extends CardQuery {
+        private final String label;
+        private final E value;
+        private final Column<E> column;
+        private final BiFunction<AttributeBitmapIndex, E, Bitmap> index;
+        private final ToIntBiFunction<CollectionStatistics, E> count;
+
+        AttributeQuery(String label, E value, Column<E> column,
+                       BiFunction<AttributeBitmapIndex, E, Bitmap> index, ToIntBiFunction<CollectionStatistics, E> count) {
+            if (value == null) {
+                throw new IllegalArgumentException("Missing " + label);
+            }
+            this.label = label;
+            this.value = value;
+            this.column = column;
+            this.index = index;
+            this.count = count;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            return column.read(store, slot) == value;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            return count.applyAsInt(planner.getStatistics(), value);
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            candidates.and(index.apply(planner.getAttributeIndex(), value));
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            return label + " = " + value.getDisplayName();
+        }
+    }
+
+    private static final class FoilQuery extends CardQuery {
+        private final boolean foil;
+
+        FoilQuery(boolean foil) {
+            this.foil = foil;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            return store.isFoil(slot) == foil;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            int foils = planner.getStatistics().getFoilCount();
+            return foil ? foils : planner.getLiveCount() - foils;
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            if (foil) {
+                candidates.and(planner.getAttributeIndex().foil());
+            } else {
+                candidates.andNot(planner.getAttributeIndex().foil());
+            }
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            return foil ? "foil" : "non-foil";
+        }
+    }
+
+    private static final class NameQuery extends CardQuery {
+        private final String text;
+        private final String lowerText;
+        private final boolean substring;
+
+        NameQuery(String text, boolean substring) {
+            if (text == null) {
+                throw new IllegalArgumentException("Missing name");
+            }
+            this.text = substring ? text : text.trim();
+            this.lowerText = this.text.toLowerCase();
+            this.substring = substring;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            String name = store.getName(slot);
+            return substring ? name.toLowerCase().contains(lowerText) : name.equalsIgnoreCase(text);
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            return planner.nameMatches(text, substring).cardinality();
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            candidates.and(planner.nameMatches(text, substring));
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            return substring ? "name contains \"" + text + "\"" : "name = \"" + text + "\"";
+        }
+    }
+
+    private static final class TextQuery extends CardQuery {
+        private final String label;
+        private final String text;
+        private final Column<String> column;
+
+        TextQuery(String label, String text, Column<String> column) {
+            if (text == null || text.trim().isEmpty()) {
+                throw new IllegalArgumentException("Missing " + label);
+            }
+            this.label = label;
+            this.text = text.trim();
+            this.column = column;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            return column.read(store, slot).equalsIgnoreCase(text);
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return false;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            return planner.getLiveCount();
+        }
+
+        @Override
+        public String toString() {
+            return label + " = \"" + text + "\"";
+        }
+    }
+
+    private static final class ValueRange extends CardQuery {
+        private final double min;
+        private final double max;
+
+        ValueRange(double min, double max) {
+            if (Double.isNaN(min) || Double.isNaN(max) || min > max) {
+                throw new IllegalArgumentException("Invalid value range " + min + " to " + max);
+            }
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            double value = store.getValue(slot);
+            return value >= min && value <= max;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            return planner.getValueIndex().countBetween(min, max);
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            // Walk whichever is shorter: the index range or the remaining candidates
+            ValueIndex index = planner.getValueIndex();
+            if (index.countBetween(min, max) > candidates.cardinality()) {
+                return super.evaluate(planner, candidates);
+            }
+            IntList slots = index.slotsBetween(min, max);
+            Bitmap range = new Bitmap();
+            for (int i = 0; i < slots.size(); i++) {
+                range.set(slots.get(i));
+            }
+            candidates.and(range);
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            if (max == Double.POSITIVE_INFINITY) {
+                return String.format(Locale.ROOT, "value >= %.2f", min);
+            }
+            return String.format(Locale.ROOT, "value %.2f to %.2f", min, max);
+        }
+    }
+
+    private static final class ManaRange extends CardQuery {
+        private final int min;
+        private final int max;
+
+        ManaRange(int min, int max) {
+            if (min > max) {
+                throw new IllegalArgumentException("Invalid mana cost range " + min + " to " + max);
+            }
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            int manaCost = store.getManaCost(slot);
+            return manaCost >= min && manaCost <= max;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return false;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            // The statistics histogram gives the exact count without touching the store
+            CollectionStatistics statistics = planner.getStatistics();
+            int top = Math.min(max, statistics.getMaxManaCost());
+            int count = 0;
+            for (int cost = Math.max(min, 0); cost <= top; cost++) {
+                count += statistics.getManaCostCount(cost);
+            }
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return max == Integer.MAX_VALUE ? "mana >= " + min : "mana " + min + " to " + max;
+        }
+    }
+
+    // ---- Combinators ----
+
+    private static final class And extends CardQuery {
+        private final List<CardQuery> parts;
+
+        And(List<CardQuery> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            for (CardQuery part : parts) {
+                if (!part.matches(store, slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            for (CardQuery part : parts) {
+                if (!part.isIndexed(planner)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            int estimate = planner.getLiveCount();
+            for (CardQuery part : parts) {
+                estimate = Math.min(estimate, part.estimate(planner));
+            }
+            return estimate;
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            // Indexed parts first, most selective first; the rest only see what is left
+            List<CardQuery> order = new ArrayList<>(parts);
+            order.sort(Comparator.comparing((CardQuery part) -> !part.isIndexed(planner))
+                                 .thenComparingInt(part -> part.estimate(planner)));
+            for (CardQuery part : order) {
+                candidates = part.evaluate(planner, candidates);
+            }
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            return join(parts, " AND ");
+        }
+    }
+
+    private static final class Or extends CardQuery {
+        private final List<CardQuery> parts;
+
+        Or(List<CardQuery> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            for (CardQuery part : parts) {
+                if (part.matches(store, slot)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            for (CardQuery part : parts) {
+                if (!part.isIndexed(planner)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            long estimate = 0;
+            for (CardQuery part : parts) {
+                estimate += part.estimate(planner);
+            }
+            return (int) Math.min(estimate, planner.getLiveCount());
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            // Slots already matched are not tested again by later parts
+            Bitmap matched = new Bitmap();
+            for (CardQuery part : parts) {
+                Bitmap remaining = new Bitmap(candidates);
+                remaining.andNot(matched);
+                matched.or(part.evaluate(planner, remaining));
+            }
+            return matched;
+        }
+
+        @Override
+        public String toString() {
+            return join(parts, " OR ");
+        }
+    }
+
+    private static final class Not extends CardQuery {
+        private final CardQuery part;
+
+        Not(CardQuery part) {
+            this.part = part;
+        }
+
+        @Override
+        boolean matches(CardStore store, int slot) {
+            return !part.matches(store, slot);
+        }
+
+        @Override
+        boolean isIndexed(QueryPlanner planner) {
+            return part.isIndexed(planner);
+        }
+
+        @Override
+        int estimate(QueryPlanner planner) {
+            return Math.max(0, planner.getLiveCount() - part.estimate(planner));
+        }
+
+        @Override
+        Bitmap evaluate(QueryPlanner planner, Bitmap candidates) {
+            candidates.andNot(part.evaluate(planner, new Bitmap(candidates)));
+            return candidates;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + (part instanceof And || part instanceof Or ? "(" + part + ")" : part.toString());
+        }
+    }
+
+    private static String join(List<CardQuery> parts, String operator) {
+        StringBuilder text = new StringBuilder();
+        for (CardQuery part : parts) {
+            if (text.length() > 0) {
+                text.append(operator);
+            }
+            boolean nested = part instanceof And || part instanceof Or;
+            text.append(nested ? "(" : "").append(part).append(nested ? ")" : "");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * CardStore - Storage Interface
+ *
+ * This interface describes the storage engine that sits behind a CardCollection.
+ * Cards are addressed by slot (0-based). Field accessors let the collection scan
+ * a single attribute without materializing an MTGCard for every slot.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public interface CardStore {
+
+    /**
+     * Gets the number of cards in the store
+     * @return Number of stored cards
+     */
+    int size();
+
+    /**
+     * Gets the card stored in a slot
+     * Depending on the implementation this is the stored object, a freshly
+     * materialized copy or a view over the stored record that is only valid
+     * until the next compaction, so changes must be written back with set()
+     *
+     * @param slot The slot to read
+     * @return The card in that slot
+     */
+    MTGCard get(int slot);
+
+    /**
+     * Appends a card to the end of the store
+     * @param card The card to append
+     */
+    void add(MTGCard card);
+
+    /**
+     * Replaces the card stored in a slot
+     * @param slot The slot to overwrite
+     * @param card The new card contents
+     */
+    void set(int slot, MTGCard card);
+
+    /**
+     * Drops every slot whose bit is clear, keeping the remaining cards in order
+     * Called by CardCollection to reclaim tombstoned slots in one pass
+     *
+     * @param live Bitmap with a bit set for every slot to keep
+     */
+    void compact(Bitmap live);
+
+    /**
+     * Removes every card from the store
+     */
+    void clear();
+
+    // Column accessors
+
+    /**
+     * Gets the name of the card in a slot
+     * @param slot The slot to read
+     * @return The card name
+     */
+    String getName(int slot);
+
+    /**
+     * Gets the rarity of the card in a slot
+     * @param slot The slot to read
+     * @return The rarity
+     */
+    Rarity getRarity(int slot);
+
+    /**
+     * Gets the condition of the card in a slot
+     * @param slot The slot to read
+     * @return The condition
+     */
+    CardCondition getCondition(int slot);
+
+    /**
+     * Gets the value of the card in a slot
+     * @param slot The slot to read
+     * @return The monetary value
+     */
+    double getValue(int slot);
+
+    /**
+     * Gets the edition of the card in a slot
+     * @param slot The slot to read
+     * @return The edition/set name
+     */
+    String getEdition(int slot);
+
+    /**
+     * Gets the card type of the card in a slot
+     * @param slot The slot to read
+     * @return The card type
+     */
+    String getCardType(int slot);
+
+    /**
+     * Gets the color of the card in a slot
+     * @param slot The slot to read
+     * @return The color
+     */
+    CardColor getColor(int slot);
+
+    /**
+     * Gets the mana cost of the card in a slot
+     * @param slot The slot to read
+     * @return The converted mana cost
+     */
+    int getManaCost(int slot);
+
+    /**
+     * Gets the subtype of the card in a slot
+     * @param slot The slot to read
+     * @return The card subtype
+     */
+    String getCardSubtype(int slot);
+
+    /**
+     * Checks if the card in a slot is foil
+     * @param slot The slot to read
+     * @return true if foil, false otherwise
+     */
+    boolean isFoil(int slot);
+
+    /**
+     * Gets the number of copies held in a slot
+     * @param slot The slot to read
+     * @return The quantity
+     */
+    int getQuantity(int slot);
+}
@@ -0,0 +1,212 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * CollectionEvents - Java Flight Recorder Events
+ *
+ * Custom JFR event types for the collection's imports, exports, searches,
+ * filters and mutations, so a flight recording shows which collection
+ * operation was running during a GC pause or a CPU spike. The events
+ * appear in JDK Mission Control under "MTG Card Tracker".
+ *
+ * CardCollection creates an event and calls begin() when an operation
+ * starts, then calls emit() when it ends. emit() only fills in the fields
+ * and commits if the event type is enabled and over its threshold. When
+ * JFR is not recording, begin() and emit() do nothing and the JIT removes
+ * the event allocation, so the events cost nothing.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public final class CollectionEvents {
+    private static final String CATEGORY = "MTG Card Tracker";
+
+    /**
+     * Private Constructor
+     * Holder for the event types only
+     */
+    private CollectionEvents() {
+    }
+
+    /**
+     * ImportEvent - CSV Import
+     */
+    @Name("mtgcardtracker.Import")
+    @Label("Collection Import")
+    @Description("A CSV file imported into the collection")
+    @Category({CATEGORY, "Import and Export"})
+    @StackTrace(false)
+    public static class ImportEvent extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Rows")
+        @Description("Rows turned into cards")
+        int rows;
+
+        @Label("Rejected Rows")
+        @Description("Rows skipped as invalid")
+        int rejectedRows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        /**
+         * Commits the event if it is being recorded
+         *
+         * @param file The file imported
+         * @param rows Rows turned into cards
+         * @param rejectedRows Rows skipped as invalid
+         * @param bytes Size of the file
+         */
+        void emit(String file, int rows, int rejectedRows, long bytes) {
+            if (shouldCommit()) {
+                this.file = file;
+                this.rows = rows;
+                this.rejectedRows = rejectedRows;
+                this.bytes = bytes;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * ExportEvent - CSV Export
+     */
+    @Name("mtgcardtracker.Export")
+    @Label("Collection Export")
+    @Description("The collection written as CSV")
+    @Category({CATEGORY, "Import and Export"})
+    @StackTrace(false)
+    public static class ExportEvent extends Event {
+        @Label("File")
+        @Description("The file written, or null for another channel such as an HTTP response")
+        String file;
+
+        @Label("Rows")
+        int rows;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        /**
+         * Commits the event if it is being recorded
+         *
+         * @param file The file written, or null
+         * @param rows Card entries written
+         * @param bytes Bytes written
+         */
+        void emit(String file, int rows, long bytes) {
+            if (shouldCommit()) {
+                this.file = file;
+                this.rows = rows;
+                this.bytes = bytes;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * SearchEvent - Name Search
+     */
+    @Name("mtgcardtracker.Search")
+    @Label("Name Search")
+    @Description("A search for cards by part of their name")
+    @Category({CATEGORY, "Queries"})
+    public static class SearchEvent extends Event {
+        @Label("Term Length")
+        @Description("Characters in the search term; terms under three scan the collection")
+        int termLength;
+
+        @Label("Hits")
+        int hits;
+
+        /**
+         * Commits the event if it is being recorded
+         *
+         * @param term The search term
+         * @param hits Cards found
+         */
+        void emit(String term, int hits) {
+            if (shouldCommit()) {
+                this.termLength = term == null ? 0 : term.length();
+                this.hits = hits;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * FilterEvent - Filter or Query
+     */
+    @Name("mtgcardtracker.Filter")
+    @Label("Filter")
+    @Description("Cards selected by attribute, value or composite query")
+    @Category({CATEGORY, "Queries"})
+    public static class FilterEvent extends Event {
+        @Label("Filter")
+        @Description("rarity, color, attributes, value, top, bottom, bitmap, query or count")
+        String filter;
+
+        @Label("Hits")
+        int hits;
+
+        /**
+         * Commits the event if it is being recorded
+         *
+         * @param filter The kind of filter
+         * @param hits Cards selected
+         */
+        void emit(String filter, int hits) {
+            if (shouldCommit()) {
+                this.filter = filter;
+                this.hits = hits;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * MutationEvent - Collection Change
+     */
+    @Name("mtgcardtracker.Mutation")
+    @Label("Collection Mutation")
+    @Description("A card added, deleted or updated, including the wait for the mutation log")
+    @Category({CATEGORY, "Mutations"})
+    public static class MutationEvent extends Event {
+        @Label("Operation")
+        @Description("add, delete or update")
+        String operation;
+
+        @Label("Card ID")
+        @Description("ID of the changed entry, or -1 for a bulk add")
+        long cardId;
+
+        @Label("Copies")
+        @Description("Copies added or removed; for a bulk add, the cards added")
+        int copies;
+
+        /**
+         * Commits the event if it is being recorded
+         *
+         * @param operation add, delete or update
+         * @param cardId ID of the changed entry, or -1
+         * @param copies Copies added or removed (0 for an update)
+         */
+        void emit(String operation, long cardId, int copies) {
+            if (shouldCommit()) {
+                this.operation = operation;
+                this.cardId = cardId;
+                this.copies = copies;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+/**
+ * CollectionGenerator - Synthetic Collection Generator
+ *
+ * Produces made-up but realistic collections for load and scale tests. The
+ * same seed always gives the same cards in the same order, whether they are
+ * written as CSV or added straight into a collection.
+ *
+ * The generator first invents a pool of card designs (name, rarity, type,
+ * color, mana cost, subtype, base price), each printed in a few of a few
+ * hundred editions. Every card drawn is a design in one of its editions, a
+ * condition and foil or not, so like a real collection it holds several
+ * copies of popular cards, and printings repeat.
+ *
+ * Distributions:
+ *   Rarity    55% Common, 28% Uncommon, 12% Rare, 4% Mythic Rare, 1% Special
+ *   Color     every CardColor; the five colors evenly, artifacts and lands colorless
+ *   Value     log-normal around a price per rarity, with a Pareto tail of chase
+ *             cards, a premium for old editions, and condition and foil factors
+ *   Names     include commas, apostrophes, hyphens and a few double quotes,
+ *             so CSV quoting is exercised
+ *   Designs   popular ones are drawn more often (skewed, not uniform)
+ *
+ * Usage: java CollectionGenerator COUNT FILE [SEED]   (writes FILE as CSV)
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionGenerator {
+    /** Seed used when none is given */
+    public static final long DEFAULT_SEED = 20240101L;
+    /** Number of card designs used when none is given */
+    public static final int DEFAULT_DESIGNS = 30000;
+
+    // Highest card value generated
+    private static final double MAX_VALUE = 250000.0;
+    // Cards per write lock when filling a collection
+    private static final int BATCH_SIZE = 4096;
+
+    // Name parts
+    private static final String[] ADJECTIVES = {
+        "Savage", "Ancient", "Crimson", "Silent", "Feral", "Gilded", "Hollow", "Radiant",
+        "Grim", "Verdant", "Frozen", "Burning", "Shrouded", "Eternal", "Wild", "Restless",
+        "Sacred", "Vengeful", "Shattered", "Arcane", "Tireless", "Mirrored", "Sunlit", "Dread",
+        "Noble", "Cunning", "Howling", "Unyielding", "Wandering", "Bitter", "Luminous", "Rusted",
+        "Thundering", "Veiled", "Bloodthirsty", "Serene", "Forsaken", "Stalwart", "Primal", "Glorious",
+        "Ravenous", "Spectral", "Ironclad", "Whispering", "Exalted", "Blighted", "Soaring", "Hidden"
+    };
+    private static final String[] NOUNS = {
+        "Dragon", "Angel", "Hydra", "Wurm", "Sphinx", "Golem", "Knight", "Shaman",
+        "Elemental", "Vampire", "Zombie", "Goblin", "Elf", "Merfolk", "Giant", "Djinn",
+        "Phoenix", "Serpent", "Wraith", "Behemoth", "Titan", "Sentinel", "Oracle", "Rogue",
+        "Bolt", "Ritual", "Growth", "Counterspell", "Reclamation", "Edict", "Tutor", "Visions",
+        "Charm", "Command", "Blessing", "Curse", "Rampage", "Insight", "Decree", "Pact",
+        "Lotus", "Scepter", "Blade", "Crown", "Tome", "Idol", "Monolith", "Sanctum"
+    };
+    private static final String[] PLACES = {
+        "Thraben", "Zendikar", "Dominaria", "Ravnica", "Innistrad", "Theros", "Kaladesh", "Ixalan",
+        "Amonkhet", "Tarkir", "Mirrodin", "Kamigawa", "Lorwyn", "Alara", "Eldraine", "Ikoria",
+        "Strixhaven", "Kaldheim", "Fiora", "Phyrexia", "Urborg", "Llanowar", "Benalia", "Tolaria"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Gisela", "Urza", "Mishra", "Teferi", "Jhoira", "Karn", "Liliana", "Nissa",
+        "Chandra", "Ajani", "Sorin", "Jace", "Elspeth", "Tamiyo", "Kiora", "Ob",
+        "Yawgmoth", "Rhys", "Sygg", "Brigid", "Kozilek", "Ulamog", "Emrakul", "Niv",
+        "Sliver", "Akroma", "Baral", "Kess", "Hallar", "Tymna", "Kydele", "Ishai"
+    };
+    private static final String[] TITLES = {
+        "Blade", "Warden", "Keeper", "Voice", "Herald", "Champion", "Scourge", "Bane",
+        "Lord", "Lady", "Tyrant", "Savior", "Architect", "Prophet", "Hunter", "Seeker",
+        "Guardian", "Heir", "Pride", "Terror", "Wanderer", "Master", "Conqueror", "Exile"
+    };
+    private static final String[] HYPHEN_FIRST = {
+        "Fire", "Blood", "Storm", "Sky", "Iron", "Moon", "Sun", "Bone",
+        "Ash", "Frost", "Thorn", "Shadow", "Star", "Spirit", "Soul", "Glass"
+    };
+    private static final String[] HYPHEN_SECOND = {
+        "Touched", "Born", "Forged", "Crowned", "Marked", "Bound", "Scarred", "Blessed",
+        "Cursed", "Kissed", "Tempered", "Sworn"
+    };
+    private static final String[] EDITION_PREFIXES = {
+        "Shadows over", "Return to", "Rise of", "Throne of", "Battle for", "Lords of",
+        "Dawn of", "Legends of", "War of", "Secrets of", "Masters of", "Tales of",
+        "Echoes of", "Ruins of", "Guilds of", "Heroes of"
+    };
+
+    // Card types with their draw weights (percent) and subtypes
+    private static final String[] CARD_TYPES = {
+        "Creature", "Instant", "Sorcery", "Enchantment", "Artifact", "Land", "Planeswalker"
+    };
+    private static final int[] CARD_TYPE_WEIGHTS = {45, 12, 11, 10, 9, 9, 4};
+    private static final String[][] SUBTYPES = {
+        {"Human", "Elf", "Goblin", "Dragon", "Angel", "Zombie", "Vampire", "Merfolk", "Wizard", "Beast"},
+        {"None", "Arcane", "Trap"},
+        {"None", "Arcane", "Lesson"},
+        {"None", "Aura", "Saga", "Shrine"},
+        {"None", "Equipment", "Vehicle", "Artifact"},
+        {"None", "Forest", "Island", "Swamp", "Mountain", "Plains", "Desert"},
+        {"Jace", "Liliana", "Chandra", "Nissa", "Ajani", "Teferi"}
+    };
+
+    // Draw weights (percent) per Rarity, CardColor and CardCondition table entry
+    private static final int[] RARITY_WEIGHTS = {55, 28, 12, 4, 1};
+    private static final int[] COLOR_WEIGHTS = {15, 15, 15, 15, 15, 10, 15};
+    private static final int[] CONDITION_WEIGHTS = {8, 35, 20, 12, 12, 8, 3, 2};
+    // Typical price per rarity, in table order
+    private static final double[] RARITY_PRICES = {0.10, 0.25, 1.00, 4.00, 8.00};
+    // Price factor per condition, in table order
+    private static final double[] CONDITION_FACTORS = {1.10, 1.00, 0.90, 0.75, 0.65, 0.50, 0.30, 0.15};
+
+    private final SplittableRandom random;
+    private final Design[] designs;
+    private final String[] editions;
+    // Price factor per edition; the first editions are the old, valuable ones
+    private final double[] editionPremiums;
+
+    // The card drawn last, kept as fields so CSV output needs no MTGCard
+    private Design design;
+    private String edition;
+    private CardCondition condition;
+    private boolean foil;
+    private double value;
+
+    /**
+     * Design - One Card Design
+     *
+     * Everything that is the same for every printing of a card.
+     */
+    private static final class Design {
+        final String name;
+        final Rarity rarity;
+        final String cardType;
+        final CardColor color;
+        final int manaCost;
+        final String subtype;
+        final double basePrice;
+        // Printed in editions firstEdition .. firstEdition + printings - 1 (wrapping)
+        final int firstEdition;
+        final int printings;
+
+        Design(String name, Rarity rarity, String cardType, CardColor color, int manaCost, String subtype,
+               double basePrice, int firstEdition, int printings) {
+            this.name = name;
+            this.rarity = rarity;
+            this.cardType = cardType;
+            this.color = color;
+            this.manaCost = manaCost;
+            this.subtype = subtype;
+            this.basePrice = basePrice;
+            this.firstEdition = firstEdition;
+            this.printings = printings;
+        }
+    }
+
+    /**
+     * Default Constructor
+     * Uses the default seed and number of designs
+     */
+    public CollectionGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Parameterized Constructor
+     * @param seed Seed; the same seed always generates the same cards
+     */
+    public CollectionGenerator(long seed) {
+        this(seed, DEFAULT_DESIGNS);
+    }
+
+    /**
+     * Parameterized Constructor
+     *
+     * @param seed Seed; the same seed always generates the same cards
+     * @param designCount Number of distinct card designs to draw from
+     * @throws IllegalArgumentException if designCount is not positive
+     */
+    public CollectionGenerator(long seed, int designCount) {
+        if (designCount < 1) {
+            throw new IllegalArgumentException("Design count must be at least 1");
+        }
+        this.random = new SplittableRandom(seed);
+        this.editions = new String[EDITION_PREFIXES.length * PLACES.length];
+        this.editionPremiums = new double[editions.length];
+        for (int i = 0; i < editions.length; i++) {
+            editions[i] = EDITION_PREFIXES[i % EDITION_PREFIXES.length] + " " + PLACES[i / EDITION_PREFIXES.length];
+            // Older editions (lower numbers) carry a premium that fades out
+            editionPremiums[i] = 1.0 + 20.0 * Math.exp(-i / 12.0);
+        }
+        this.designs = new Design[designCount];
+        HashSet<String> names = new HashSet<>();
+        for (int i = 0; i < designCount; i++) {
+            designs[i] = createDesign(names);
+        }
+    }
+
+    /**
+     * Gets the number of editions cards are printed in
+     * @return Edition count
+     */
+    public int getEditionCount() {
+        return editions.length;
+    }
+
+    /**
+     * Generates the next card
+     * @return A new card with quantity 1
+     */
+    public MTGCard next() {
+        draw();
+        return new MTGCard(design.name, design.rarity, condition, value, edition,
+                           design.cardType, design.color, design.manaCost, design.subtype, foil);
+    }
+
+    /**
+     * Adds generated cards to a collection, in batches under one write lock
+     * each, without printing anything
+     *
+     * @param collection The collection to fill
+     * @param count Number of cards to generate
+     * @return Number of cards added
+     */
+    public long fill(CardCollection collection, long count) {
+        ArrayList<MTGCard> batch = new ArrayList<>(BATCH_SIZE);
+        long added = 0;
+        for (long i = 0; i < count; i++) {
+            batch.add(next());
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                added += collection.addCards(batch);
+                batch.clear();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Writes generated cards as CSV in the export format, one card per row
+     * Rows are streamed, so no collection of that size is built. Importing
+     * the file gives the same collection as fill with the same seed.
+     *
+     * @param channel Where to write; closed afterwards
+     * @param count Number of cards to generate
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(WritableByteChannel channel, long count) throws IOException {
+        try (CsvWriter writer = new CsvWriter(channel)) {
+            writer.writeRecord("Name", "Rarity", "Condition", "Value", "Edition",
+                               "CardType", "Color", "ManaCost", "Subtype", "Foil", "Quantity");
+            for (long i = 0; i < count; i++) {
+                draw();
+                writer.writeField(design.name);
+                writer.writeField(design.rarity.getDisplayName());
+                writer.writeField(condition.getDisplayName());
+                writer.writeFixed2(value);
+                writer.writeField(edition);
+                writer.writeField(design.cardType);
+                writer.writeField(design.color.getDisplayName());
+                writer.writeField(design.manaCost);
+                writer.writeField(design.subtype);
+                writer.writeField(foil ? "Yes" : "No");
+                writer.writeField(1);
+                writer.endRecord();
+            }
+        }
+    }
+
+    /**
+     * Main method - writes a generated collection as a CSV file
+     * @param args Number of cards, file name, optional seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java CollectionGenerator COUNT FILE [SEED]");
+            return;
+        }
+        try {
+            long count = Long.parseLong(args[0]);
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+            long start = System.nanoTime();
+            new CollectionGenerator(seed).writeCsv(FileChannel.open(Paths.get(args[1]),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), count);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Wrote %d cards to %s in %.2f s (%.0f cards/second)%n",
+                              count, args[1], seconds, count / seconds);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Invalid number - " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error writing " + args[1] + ": " + e.getMessage());
+        }
+    }
+
+    // Internal helpers
+
+    /**
+     * Draws the next card into the current-card fields
+     */
+    private void draw() {
+        // Squaring a uniform draw favors the low numbers, the popular designs
+        double popularity = random.nextDouble();
+        design = designs[(int) (popularity * popularity * designs.length)];
+        int editionIndex = (design.firstEdition + random.nextInt(design.printings)) % editions.length;
+        edition = editions[editionIndex];
+        condition = CardCondition.table().get(pick(CONDITION_WEIGHTS));
+        foil = random.nextInt(100) < 7;
+        double price = design.basePrice * editionPremiums[editionIndex] * CONDITION_FACTORS[condition.ordinal()];
+        if (foil) {
+            price *= 1.5 + random.nextDouble() * 1.5;
+        }
+        value = Math.min(Math.max(0.01, Math.round(price * 100) / 100.0), MAX_VALUE);
+    }
+
+    private Design createDesign(HashSet<String> names) {
+        Rarity rarity = Rarity.table().get(pick(RARITY_WEIGHTS));
+        int type = pick(CARD_TYPE_WEIGHTS);
+        String cardType = CARD_TYPES[type];
+        CardColor color = cardType.equals("Artifact") || cardType.equals("Land")
+                          ? CardColor.COLORLESS
+                          : CardColor.table().get(pick(COLOR_WEIGHTS));
+        // Most spells cost two to four; lands cost nothing
+        int manaCost = cardType.equals("Land") ? 0
+                       : 1 + random.nextInt(3) + random.nextInt(3) + (random.nextInt(10) == 0 ? random.nextInt(5) : 0);
+        String subtype = SUBTYPES[type][random.nextInt(SUBTYPES[type].length)];
+
+        // Log-normal around the rarity's price, with a rare Pareto-tailed chase card
+        double price = RARITY_PRICES[rarity.ordinal()] * Math.exp(random.nextGaussian());
+        if (random.nextInt(100) < 2) {
+            price *= Math.min(Math.pow(1.0 - random.nextDouble(), -1.0 / 1.1), 5000.0);
+        }
+
+        String name = createName();
+        for (int attempt = 2; !names.add(name); attempt++) {
+            name = attempt > 10 ? createName() + " " + toRoman(attempt) : createName();
+        }
+        return new Design(name, rarity, cardType, color, manaCost, subtype, price,
+                          random.nextInt(editions.length), 1 + random.nextInt(6));
+    }
+
+    private String createName() {
+        int pattern = random.nextInt(100);
+        if (pattern < 20) {
+            return word(ADJECTIVES) + " " + word(NOUNS);
+        }
+        if (pattern < 30) {
+            return word(ADJECTIVES) + " " + word(NOUNS) + " of " + word(PLACES);
+        }
+        if (pattern < 45) {
+            return word(NOUNS) + " of " + word(PLACES);
+        }
+        if (pattern < 70) {
+            // Legendary: "Gisela, Blade of Thraben"
+            return word(FIRST_NAMES) + ", " + word(TITLES) + " of " + word(PLACES);
+        }
+        if (pattern < 82) {
+            return word(FIRST_NAMES) + "'s " + word(NOUNS);
+        }
+        if (pattern < 98) {
+            return word(HYPHEN_FIRST) + "-" + word(HYPHEN_SECOND) + " " + word(NOUNS);
+        }
+        // A few names with quotes, as on some real cards
+        return word(FIRST_NAMES) + ", \"The " + word(ADJECTIVES) + " " + word(NOUNS) + "\"";
+    }
+
+    private String word(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+
+    /**
+     * Picks an index with probability proportional to its weight
+     */
+    private int pick(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static String toRoman(int number) {
+        String[] numerals = {"X", "IX", "V", "IV", "I"};
+        int[] values = {10, 9, 5, 4, 1};
+        StringBuilder roman = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            while (number >= values[i]) {
+                roman.append(numerals[i]);
+                number -= values[i];
+            }
+        }
+        return roman.toString();
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * CollectionIndex - Secondary Index Interface
+ *
+ * A structure that CardCollection keeps in step with its storage engine.
+ * The collection calls these methods after every add, delete, modification
+ * and import, so an index never has to rescan the store. Slots are stable:
+ * a removed slot is left as a tombstone until the collection compacts, and
+ * compaction clears every index and adds the surviving cards again.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public interface CollectionIndex {
+
+    /**
+     * Called after a card is appended to the store
+     *
+     * @param slot The slot the card was stored in
+     * @param card The card that was added
+     */
+    void cardAdded(int slot, MTGCard card);
+
+    /**
+     * Called after a card is removed from the collection
+     * The slot is never reused before the next clear()
+     *
+     * @param slot The slot the card was removed from
+     * @param card The card that was removed
+     */
+    void cardRemoved(int slot, MTGCard card);
+
+    /**
+     * Called after a card in the store has been modified
+     *
+     * @param slot The slot of the modified card
+     * @param before A copy of the card before the change
+     * @param after The card after the change
+     */
+    void cardChanged(int slot, MTGCard before, MTGCard after);
+
+    /**
+     * Called when the store is emptied or compacted
+     */
+    void clear();
+}
@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CollectionLoadGenerator - HTTP API Load Generator
+ *
+ * Drives a running CollectionServer with a fixed number of closed-loop
+ * clients for a set time and reports throughput and latency percentiles.
+ * Each client sends a read-heavy mix: card lookups by ID, name searches,
+ * attribute filters, small edits, and adds paired with deletes so the
+ * collection size stays level.
+ *
+ * Usage: java CollectionLoadGenerator [URL] [CLIENTS] [SECONDS]
+ * (defaults http://localhost:8080, 16 clients, 10 seconds)
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionLoadGenerator {
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final String[] SEARCH_TERMS = {"Bolt", "Dragon", "Angel", "Lotus", "Elf", "Wrath"};
+    private static final String[] RARITIES = {"Common", "Uncommon", "Rare", "Mythic Rare"};
+    private static final String[] COLORS = {"White", "Blue", "Black", "Red", "Green"};
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final AtomicLong errors = new AtomicLong();
+    // Card IDs created during setup, read by every client
+    private long[] seededIds;
+
+    /**
+     * Constructor
+     * @param baseUrl The server address, e.g. http://localhost:8080
+     */
+    public CollectionLoadGenerator(String baseUrl) {
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Main method - runs the load and prints the report
+     * @param args URL, number of clients, duration in seconds
+     * @throws Exception if the server cannot be reached during setup
+     */
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        new CollectionLoadGenerator(url).run(clients, seconds);
+    }
+
+    /**
+     * Seeds the collection, runs a short warm-up, then measures
+     *
+     * @param clients Number of concurrent clients
+     * @param seconds How long to measure
+     * @throws Exception if seeding fails
+     */
+    public void run(int clients, int seconds) throws Exception {
+        seededIds = new long[500];
+        for (int i = 0; i < seededIds.length; i++) {
+            seededIds[i] = addCard("Load Card " + i);
+        }
+        System.out.println("Seeded " + seededIds.length + " cards; warming up...");
+        drive(clients, 2);
+        errors.set(0);
+
+        System.out.println("Running " + clients + " clients for " + seconds + " seconds...");
+        long start = System.nanoTime();
+        long[] latencies = drive(clients, seconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.println("=".repeat(60));
+        System.out.printf("Requests:    %d (%d errors)%n", latencies.length, errors.get());
+        System.out.printf("Throughput:  %.0f requests/second%n", latencies.length / elapsed);
+        System.out.printf("Latency p50: %.3f ms%n", percentile(latencies, 0.50));
+        System.out.printf("Latency p99: %.3f ms%n", percentile(latencies, 0.99));
+        System.out.printf("Latency max: %.3f ms%n", percentile(latencies, 1.0));
+        System.out.println("=".repeat(60));
+    }
+
+    private long[] drive(int clients, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long[][] results = new long[clients][];
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            threads[i] = new Thread(() -> results[client] = clientLoop(deadline), "load-client-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return merge(results);
+    }
+
+    private long[] clientLoop(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                sendOne(random);
+            } catch (IOException | RuntimeException e) {
+                errors.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private void sendOne(ThreadLocalRandom random) throws IOException, InterruptedException {
+        int roll = random.nextInt(100);
+        if (roll < 60) {
+            get("/cards/" + seededIds[random.nextInt(seededIds.length)]);
+        } else if (roll < 75) {
+            get("/search?name=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)] + "&limit=20");
+        } else if (roll < 85) {
+            get("/filter?rarity=" + RARITIES[random.nextInt(RARITIES.length)].replace(" ", "%20")
+                + "&color=" + COLORS[random.nextInt(COLORS.length)] + "&limit=20");
+        } else if (roll < 95) {
+            long id = seededIds[random.nextInt(seededIds.length)];
+            String body = "{\"value\":" + random.nextInt(1, 10000) / 100.0 + "}";
+            send(HttpRequest.newBuilder(URI.create(baseUrl + "/cards/" + id))
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(body)).build());
+        } else {
+            long id = addCard("Temporary Card " + random.nextInt(1000));
+            send(HttpRequest.newBuilder(URI.create(baseUrl + "/cards/" + id)).DELETE().build());
+        }
+    }
+
+    private long addCard(String name) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String body = "{\"name\":\"" + name + "\",\"rarity\":\"" + RARITIES[random.nextInt(RARITIES.length)]
+                      + "\",\"color\":\"" + COLORS[random.nextInt(COLORS.length)]
+                      + "\",\"value\":" + random.nextInt(1, 10000) / 100.0
+                      + ",\"edition\":\"Load Test\",\"cardType\":\"Creature\",\"manaCost\":"
+                      + random.nextInt(8) + ",\"foil\":" + random.nextBoolean() + "}";
+        String response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/cards"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build());
+        Matcher matcher = ID.matcher(response);
+        if (!matcher.find()) {
+            throw new IOException("No ID in response: " + response);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private void get(String path) throws IOException, InterruptedException {
+        send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IOException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static long[] merge(long[][] parts) {
+        int total = 0;
+        for (long[] part : parts) {
+            total += part.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        return all;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
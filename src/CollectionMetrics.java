@@ -0,0 +1,238 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ConstructorParameters;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * CollectionMetrics - Operation Latencies and Counters
+ *
+ * Keeps a latency histogram per kind of collection operation and counts
+ * the CSV rows imported and rejected. CardCollection records into it from
+ * every public add, delete, update, search, filter, query, aggregation,
+ * import and export, whichever front end (menu, batch, HTTP) made the call.
+ *
+ * Recording takes two System.nanoTime calls and a few uncontended atomic
+ * adds, so the metrics are always on. They are shown by the "metrics"
+ * menu entry and batch command, and published over JMX once registered.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionMetrics implements CollectionMetricsMXBean {
+
+    /**
+     * Operation - Kind of Timed Operation
+     */
+    public enum Operation {
+        ADD("add"),
+        DELETE("delete"),
+        UPDATE("update"),
+        SEARCH("search"),
+        FILTER("filter"),
+        QUERY("query"),
+        AGGREGATE("aggregate"),
+        IMPORT("import"),
+        EXPORT("export");
+
+        private final String displayName;
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * Gets the name shown in reports
+         * @return Lower-case operation name
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    // One histogram per Operation, by ordinal
+    private final LatencyHistogram[] latencies;
+    private final LongAdder rowsImported = new LongAdder();
+    private final LongAdder rowsRejected = new LongAdder();
+
+    /**
+     * Default Constructor
+     * Creates empty metrics
+     */
+    public CollectionMetrics() {
+        latencies = new LatencyHistogram[Operation.values().length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records an operation that started at a System.nanoTime reading
+     *
+     * @param operation The kind of operation
+     * @param startNanos System.nanoTime() taken when it started
+     */
+    public void record(Operation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts the rows of one import
+     *
+     * @param imported Rows turned into cards
+     * @param rejected Rows skipped as invalid
+     */
+    public void countRows(long imported, long rejected) {
+        rowsImported.add(imported);
+        rowsRejected.add(rejected);
+    }
+
+    /**
+     * Reads the latency histogram of one operation
+     *
+     * @param operation The kind of operation
+     * @return The histogram's counts as of now
+     */
+    public LatencyHistogram.Reading read(Operation operation) {
+        return latencies[operation.ordinal()].read();
+    }
+
+    @Override
+    public OperationSummary[] getOperations() {
+        Operation[] operations = Operation.values();
+        OperationSummary[] summaries = new OperationSummary[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            summaries[i] = OperationSummary.of(operations[i], latencies[i].read());
+        }
+        return summaries;
+    }
+
+    @Override
+    public long getRowsImported() {
+        return rowsImported.sum();
+    }
+
+    @Override
+    public long getRowsRejected() {
+        return rowsRejected.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        rowsImported.reset();
+        rowsRejected.reset();
+    }
+
+    /**
+     * Publishes the metrics on the platform MBean server as
+     * mtgcardtracker:type=CollectionMetrics,name=NAME
+     *
+     * @param name The collection name
+     * @throws JMException if the name is taken or the bean is rejected
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("mtgcardtracker:type=CollectionMetrics,name=" + ObjectName.quote(name)));
+    }
+
+    /**
+     * Formats the metrics as a table, one row per operation that has run
+     * @return The report, with a trailing line break
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-9s %10s %10s %10s %10s %10s %10s%n",
+                                    "Op", "Count", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (OperationSummary summary : getOperations()) {
+            if (summary.getCount() > 0) {
+                report.append(String.format("%-9s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                                            summary.getOperation(), summary.getCount(), summary.getMeanMicros(),
+                                            summary.getP50Micros(), summary.getP99Micros(),
+                                            summary.getP999Micros(), summary.getMaxMicros()));
+            }
+        }
+        report.append(String.format("Rows imported: %d | Rows rejected: %d%n",
+                                    getRowsImported(), getRowsRejected()));
+        return report.toString();
+    }
+
+    /**
+     * OperationSummary - Latency Summary of One Operation
+     *
+     * Count and latencies in microseconds, as published over JMX (each
+     * summary becomes one CompositeData).
+     */
+    public static class OperationSummary {
+        private final String operation;
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p90Micros;
+        private final double p99Micros;
+        private final double p999Micros;
+        private final double maxMicros;
+
+        /**
+         * Constructor
+         * Parameter names are given for JMX, which rebuilds summaries in clients
+         */
+        @ConstructorParameters({"operation", "count", "meanMicros", "p50Micros", "p90Micros",
+                                "p99Micros", "p999Micros", "maxMicros"})
+        public OperationSummary(String operation, long count, double meanMicros, double p50Micros,
+                                double p90Micros, double p99Micros, double p999Micros, double maxMicros) {
+            this.operation = operation;
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.p999Micros = p999Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        static OperationSummary of(Operation operation, LatencyHistogram.Reading reading) {
+            return new OperationSummary(operation.getDisplayName(), reading.getCount(),
+                                        reading.getMean() / 1000.0,
+                                        reading.getPercentile(50) / 1000.0,
+                                        reading.getPercentile(90) / 1000.0,
+                                        reading.getPercentile(99) / 1000.0,
+                                        reading.getPercentile(99.9) / 1000.0,
+                                        reading.getMax() / 1000.0);
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP90Micros() {
+            return p90Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getP999Micros() {
+            return p999Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
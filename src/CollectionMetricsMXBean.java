@@ -0,0 +1,34 @@
+/**
+ * CollectionMetricsMXBean - JMX View of the Collection Metrics
+ *
+ * The attributes and operations CollectionMetrics publishes over JMX, so
+ * JConsole, VisualVM or any JMX client can watch a running tracker.
+ * Latencies are in microseconds.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public interface CollectionMetricsMXBean {
+    /**
+     * Gets the latency summary of every operation type
+     * @return One summary per operation, in menu order
+     */
+    CollectionMetrics.OperationSummary[] getOperations();
+
+    /**
+     * Gets the number of CSV rows imported since the last reset
+     * @return Row count
+     */
+    long getRowsImported();
+
+    /**
+     * Gets the number of CSV rows rejected since the last reset
+     * @return Row count
+     */
+    long getRowsRejected();
+
+    /**
+     * Clears every histogram and counter
+     */
+    void reset();
+}
@@ -0,0 +1,452 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CollectionServer - Embedded HTTP API
+ *
+ * Serves a card collection over HTTP with JSON bodies, using the JDK's
+ * built-in server. Every request runs on its own virtual thread when the
+ * runtime has them, otherwise on a fixed pool of daemon threads. Handlers
+ * only call the collection's thread-safe methods, so reads proceed in
+ * parallel and writes are serialized by the collection itself.
+ *
+ * Routes:
+ *   POST   /cards           add a card (JSON object of field values); a printing
+ *                           already held adds to that card's quantity
+ *   GET    /cards/{id}      get a card
+ *   PATCH  /cards/{id}      change fields of a card
+ *   DELETE /cards/{id}      delete a card (?copies=N deletes only N of its copies)
+ *   GET    /search?name=    cards whose name contains the text (limit= caps the count)
+ *   GET    /filter?rarity=&color=&condition=&foil=
+ *   GET    /stats           running aggregates (rarity counts copies,
+ *                           rarityEntries counts card entries)
+ *   GET    /export          the collection as CSV
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionServer {
+    // Threads used when virtual threads are not available
+    private static final int FALLBACK_THREADS = 64;
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_LIMIT = 1000;
+
+    static {
+        // Small JSON replies otherwise wait on Nagle's algorithm and delayed ACKs
+        // (about 40 ms each); read once, when the JDK server classes load
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final CardCollection collection;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    /**
+     * Constructor
+     * Binds the port but does not accept requests until start()
+     *
+     * @param collection The collection to serve
+     * @param port The port to listen on (0 picks a free port)
+     * @throws IOException if the port cannot be bound
+     */
+    public CollectionServer(CardCollection collection, int port) throws IOException {
+        this.collection = collection;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        ExecutorService perTask = newVirtualThreadExecutor();
+        this.virtualThreads = perTask != null;
+        this.executor = virtualThreads ? perTask : newPlatformThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/cards", this::handleCards);
+        server.createContext("/search", this::handleSearch);
+        server.createContext("/filter", this::handleFilter);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/export", this::handleExport);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving running requests up to a second to finish
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on
+     * @return The bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Checks whether requests run on virtual threads
+     * @return true for virtual threads, false for the platform thread pool
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        // Looked up by name so the tracker still builds and runs on JDKs without them
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadPool() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(FALLBACK_THREADS, task -> {
+            Thread thread = new Thread(task, "collection-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ---- Handlers ----
+
+    private void handleCards(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/cards") || path.equals("/cards/")) {
+                if (!method.equals("POST")) {
+                    sendError(exchange, 405, "Use POST to add a card");
+                    return;
+                }
+                MTGCard card = new MTGCard();
+                Map<CardField, String> values = readFields(exchange);
+                if (!values.containsKey(CardField.NAME)) {
+                    throw new IllegalArgumentException("Name is required");
+                }
+                for (Map.Entry<CardField, String> value : values.entrySet()) {
+                    value.getKey().set(card, value.getValue());
+                }
+                // The copies may have gone to an existing entry, so reply with that entry
+                // (or the card as sent if another request deleted it in the meantime)
+                MTGCard sent = new MTGCard(card);
+                long id = collection.insertCard(card);
+                MTGCard added = collection.findCard(id);
+                if (added == null) {
+                    added = sent;
+                    added.setId(id);
+                }
+                send(exchange, 201, cardJson(added));
+                return;
+            }
+
+            long id = parseId(path.substring("/cards/".length()));
+            MTGCard card;
+            switch (method) {
+                case "GET":
+                    card = collection.findCard(id);
+                    break;
+                case "PATCH":
+                    card = collection.updateCard(id, readFields(exchange));
+                    break;
+                case "DELETE":
+                    String copies = parseQuery(exchange).get("copies");
+                    card = copies == null ? collection.removeCard(id)
+                                          : collection.removeCopies(id, parseCount(copies));
+                    break;
+                default:
+                    sendError(exchange, 405, "Use GET, PATCH or DELETE on a card");
+                    return;
+            }
+            if (card == null) {
+                sendError(exchange, 404, "No card with ID " + id);
+            } else {
+                send(exchange, 200, cardJson(card));
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        try {
+            if (requireGet(exchange)) {
+                Map<String, String> query = parseQuery(exchange);
+                String name = query.get("name");
+                if (name == null) {
+                    throw new IllegalArgumentException("name is required");
+                }
+                send(exchange, 200, cardsJson(collection.searchByName(name), parseLimit(query)));
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleFilter(HttpExchange exchange) throws IOException {
+        try {
+            if (requireGet(exchange)) {
+                Map<String, String> query = parseQuery(exchange);
+                Rarity rarity = parseAttribute(query, "rarity", Rarity.table());
+                CardColor color = parseAttribute(query, "color", CardColor.table());
+                CardCondition condition = parseAttribute(query, "condition", CardCondition.table());
+                Boolean foil = null;
+                if (query.containsKey("foil")) {
+                    MTGCard probe = new MTGCard();
+                    CardField.FOIL.set(probe, query.get("foil"));
+                    foil = probe.isFoil();
+                }
+                send(exchange, 200, cardsJson(collection.filter(rarity, color, condition, foil), parseLimit(query)));
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            if (!requireGet(exchange)) {
+                return;
+            }
+            CollectionStatistics stats = collection.getStatistics();
+            long copies = stats.getCopyCount();
+            StringBuilder json = new StringBuilder("{\"cards\":").append(stats.getCardCount());
+            json.append(",\"copies\":").append(copies);
+            json.append(",\"totalValue\":").append(stats.getTotalValue());
+            json.append(",\"averageValue\":").append(copies == 0 ? 0.0 : stats.getTotalValue() / copies);
+            json.append(",\"foil\":").append(stats.getFoilCount());
+            json.append(",\"rarity\":{");
+            for (int i = 0; i < Rarity.table().size(); i++) {
+                Rarity rarity = Rarity.table().get(i);
+                appendCount(json, i, rarity.getDisplayName(), stats.getRarityCopies(rarity));
+            }
+            // Copies above, as on the statistics screen; entries here
+            json.append("},\"rarityEntries\":{");
+            for (int i = 0; i < Rarity.table().size(); i++) {
+                Rarity rarity = Rarity.table().get(i);
+                appendCount(json, i, rarity.getDisplayName(), stats.getRarityCount(rarity));
+            }
+            json.append("},\"condition\":{");
+            for (int i = 0; i < CardCondition.table().size(); i++) {
+                CardCondition condition = CardCondition.table().get(i);
+                appendCount(json, i, condition.getDisplayName(), stats.getConditionCount(condition));
+            }
+            json.append("},\"color\":{");
+            for (int i = 0; i < CardColor.table().size(); i++) {
+                CardColor color = CardColor.table().get(i);
+                appendCount(json, i, color.getDisplayName(), stats.getColorCount(color));
+            }
+            json.append("}}");
+            send(exchange, 200, json.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        try {
+            if (!requireGet(exchange)) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+            // Length 0 means chunked; the collection encodes the CSV and releases its
+            // lock before sending, so a slow download does not hold up changes
+            exchange.sendResponseHeaders(200, 0);
+            collection.exportToCSV(Channels.newChannel(exchange.getResponseBody()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ---- Request parsing ----
+
+    private static boolean requireGet(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("GET")) {
+            return true;
+        }
+        sendError(exchange, 405, "Use GET");
+        return false;
+    }
+
+    private static Map<CardField, String> readFields(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Map<CardField, String> fields = new EnumMap<>(CardField.class);
+        for (Map.Entry<String, String> member : Json.parseObject(body).entrySet()) {
+            CardField field = CardField.parse(member.getKey());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field: " + member.getKey());
+            }
+            fields.put(field, member.getValue());
+        }
+        return fields;
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                      URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static <E extends Enum<E> & CardAttribute> E parseAttribute(Map<String, String> query, String key,
+                                                                         AttributeTable<E> table) {
+        String text = query.get(key);
+        if (text == null) {
+            return null;
+        }
+        E value = table.parse(text);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + text);
+        }
+        return value;
+    }
+
+    private static int parseCount(String text) {
+        try {
+            int count = Integer.parseInt(text);
+            if (count >= 1) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid copies: " + text);
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid card ID: " + text);
+        }
+    }
+
+    private static int parseLimit(Map<String, String> query) {
+        String text = query.get("limit");
+        if (text == null) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(text);
+            if (limit >= 0) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid limit: " + text);
+    }
+
+    // ---- Responses ----
+
+    private static String cardJson(MTGCard card) {
+        StringBuilder json = new StringBuilder(256);
+        appendCard(json, card);
+        return json.toString();
+    }
+
+    private static String cardsJson(List<MTGCard> cards, int limit) {
+        int count = Math.min(cards.size(), limit);
+        StringBuilder json = new StringBuilder(64 + count * 256);
+        json.append("{\"total\":").append(cards.size()).append(",\"cards\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendCard(json, cards.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendCard(StringBuilder json, MTGCard card) {
+        json.append("{\"id\":").append(card.getId());
+        json.append(",\"name\":");
+        Json.appendString(json, card.getName());
+        json.append(",\"rarity\":");
+        Json.appendString(json, card.getRarity());
+        json.append(",\"condition\":");
+        Json.appendString(json, card.getCondition());
+        json.append(",\"value\":").append(card.getValue());
+        json.append(",\"edition\":");
+        Json.appendString(json, card.getEdition());
+        json.append(",\"cardType\":");
+        Json.appendString(json, card.getCardType());
+        json.append(",\"color\":");
+        Json.appendString(json, card.getColor());
+        json.append(",\"manaCost\":").append(card.getManaCost());
+        json.append(",\"subtype\":");
+        Json.appendString(json, card.getCardSubtype());
+        json.append(",\"foil\":").append(card.isFoil());
+        json.append(",\"quantity\":").append(card.getQuantity()).append('}');
+    }
+
+    private static void appendCount(StringBuilder json, int index, String key, long count) {
+        if (index > 0) {
+            json.append(',');
+        }
+        Json.appendString(json, key);
+        json.append(':').append(count);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        Json.appendString(json, message == null ? "Bad request" : message);
+        send(exchange, status, json.append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
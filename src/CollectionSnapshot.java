@@ -0,0 +1,364 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * CollectionSnapshot - Binary Collection Snapshot
+ *
+ * Saves and loads a whole collection in a compact binary file. Every
+ * distinct name, edition, card type and subtype is stored once in a string
+ * dictionary at the front of the file; each card is then a fixed 44-byte
+ * record of its ID, dictionary codes, attribute ordinals, value, mana cost
+ * and quantity, so loading involves no text parsing. A CRC-32C of the whole file is stored
+ * at the end and checked before any card is handed out.
+ *
+ * File layout (big-endian):
+ *   int magic "MTGS", int version, int record count, int dictionary size,
+ *   long mutation log sequence (version 2+; the last log entry included)
+ *   long next card ID (version 3+)
+ *   collection name and dictionary strings as (int length, UTF-8 bytes)
+ *   records: long card ID (version 3+),
+ *            int name, int edition, int cardType, int subtype,
+ *            double value, int manaCost, int quantity (version 4),
+ *            byte rarity, byte condition, byte color, byte flags (bit 0 = foil)
+ *   int CRC-32C of everything above
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionSnapshot {
+    private static final int MAGIC = 0x4D544753; // "MTGS"
+    private static final int VERSION = 4;
+    // Version 1 and 2 records have no card ID, version 3 records no quantity
+    private static final int RECORD_SIZE_V2 = 32;
+    private static final int RECORD_SIZE_V3 = 40;
+    private static final int RECORD_SIZE = 44;
+    private static final int HEADER_SIZE_V1 = 16;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int FLAG_FOIL = 1;
+
+    private final String collectionName;
+    private final String[] dictionary;
+    private final ByteBuffer records;
+    private final int recordCount;
+    private final int version;
+    private final long logSequence;
+    private final long nextId;
+
+    /**
+     * Private Constructor
+     * Instances are created by read() after the file has been validated
+     */
+    private CollectionSnapshot(String collectionName, String[] dictionary, ByteBuffer records,
+                               int recordCount, int version, long logSequence, long nextId) {
+        this.collectionName = collectionName;
+        this.dictionary = dictionary;
+        this.records = records;
+        this.recordCount = recordCount;
+        this.version = version;
+        this.logSequence = logSequence;
+        this.nextId = nextId;
+    }
+
+    // Accessors
+
+    /**
+     * Gets the name of the saved collection
+     * @return The collection name
+     */
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    /**
+     * Gets the number of cards in the snapshot
+     * @return Card count
+     */
+    public int getCardCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the sequence number of the last mutation log entry the snapshot includes
+     * @return Log sequence, or 0 if the snapshot was not taken with a log
+     */
+    public long getLogSequence() {
+        return logSequence;
+    }
+
+    /**
+     * Gets the ID the collection was going to give its next card
+     * @return Next card ID, or 0 for snapshots saved without card IDs
+     */
+    public long getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Decodes every card, in saved order
+     * Dictionary strings are shared, so equal names and editions come back
+     * as the same String instance
+     *
+     * @param sink Receives each card and its ID (0 for snapshots saved without IDs)
+     * @throws IOException if a record holds an out-of-range code
+     */
+    public void forEachCard(ObjLongConsumer<MTGCard> sink) throws IOException {
+        ByteBuffer in = records.duplicate();
+        for (int i = 0; i < recordCount; i++) {
+            long id = version >= 3 ? in.getLong() : 0;
+            if (id < 0) {
+                throw new IOException("Corrupt snapshot record " + i);
+            }
+            String name = string(in.getInt());
+            String edition = string(in.getInt());
+            String cardType = string(in.getInt());
+            String subtype = string(in.getInt());
+            double value = in.getDouble();
+            int manaCost = in.getInt();
+            int quantity = version >= 4 ? in.getInt() : 1;
+            int rarity = in.get();
+            int condition = in.get();
+            int color = in.get();
+            int flags = in.get();
+
+            if (rarity < 0 || rarity >= Rarity.table().size()
+                    || condition < 0 || condition >= CardCondition.table().size()
+                    || color < 0 || color >= CardColor.table().size() || quantity < 1) {
+                throw new IOException("Corrupt snapshot record " + i);
+            }
+            MTGCard card = new MTGCard(name, Rarity.table().get(rarity), CardCondition.table().get(condition),
+                                       value, edition, cardType, CardColor.table().get(color), manaCost,
+                                       subtype, (flags & FLAG_FOIL) != 0);
+            card.setQuantity(quantity);
+            sink.accept(card, id);
+        }
+    }
+
+    /**
+     * Reads and validates a snapshot file
+     * The checksum, magic number and version are checked before anything
+     * is decoded, so a damaged file is rejected as a whole
+     *
+     * @param filename The snapshot to read
+     * @return The validated snapshot
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static CollectionSnapshot read(String filename) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + size + " bytes");
+            }
+            if (size < HEADER_SIZE_V1 + 4) {
+                throw new IOException("Not a collection snapshot: " + filename);
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        ByteBuffer in = file.duplicate();
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a collection snapshot: " + filename);
+        }
+        int version = in.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+
+        // Verify the checksum before trusting any length in the file
+        CRC32C crc = new CRC32C();
+        crc.update(file.duplicate().limit(file.capacity() - 4));
+        if ((int) crc.getValue() != file.getInt(file.capacity() - 4)) {
+            throw new IOException("Snapshot checksum mismatch: " + filename);
+        }
+
+        int recordCount = in.getInt();
+        int dictionarySize = in.getInt();
+        long logSequence = version >= 2 ? in.getLong() : 0;
+        long nextId = version >= 3 ? in.getLong() : 0;
+        byte[] scratch = new byte[256];
+        String collectionName = readString(in, scratch);
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = readString(in, scratch);
+        }
+
+        int recordSize = version >= 4 ? RECORD_SIZE : version == 3 ? RECORD_SIZE_V3 : RECORD_SIZE_V2;
+        if ((long) recordCount * recordSize != in.remaining() - 4) {
+            throw new IOException("Snapshot record section has the wrong length: " + filename);
+        }
+        ByteBuffer records = in.slice().limit(recordCount * recordSize);
+        return new CollectionSnapshot(collectionName, dictionary, records, recordCount, version,
+                                      logSequence, nextId);
+    }
+
+    /**
+     * Writes a snapshot of the live cards in a store
+     * The file is written next to the target, fsynced and moved into place
+     * once complete, so an interrupted save never leaves a half-written snapshot
+     *
+     * @param filename The snapshot file to write
+     * @param collectionName The collection name to record
+     * @param store The store holding the cards
+     * @param live Bitmap of the slots to save
+     * @param liveCount Number of bits set in live
+     * @param ids The IDs of the cards in the store
+     * @param logSequence The last mutation log entry reflected in the store
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(String filename, String collectionName, CardStore store,
+                             Bitmap live, int liveCount, CardIdTable ids, long logSequence) throws IOException {
+        // First pass: dictionary-code every string column
+        StringDictionary dictionary = new StringDictionary();
+        int[] codes = new int[liveCount * 4];
+        int[] slotList = new int[liveCount];
+        int count = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            slotList[count] = slot;
+            codes[count * 4] = dictionary.encode(store.getName(slot));
+            codes[count * 4 + 1] = dictionary.encode(store.getEdition(slot));
+            codes[count * 4 + 2] = dictionary.encode(store.getCardType(slot));
+            codes[count * 4 + 3] = dictionary.encode(store.getCardSubtype(slot));
+            count++;
+        }
+
+        // A unique temp file, so a background compaction and a save never collide
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + "." + Thread.currentThread().getId()
+                                          + "." + System.nanoTime() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                                                        StandardOpenOption.WRITE)) {
+                Output out = new Output(channel);
+                out.putInt(MAGIC);
+                out.putInt(VERSION);
+                out.putInt(count);
+                out.putInt(dictionary.size());
+                out.putLong(logSequence);
+                out.putLong(ids.getNextId());
+                out.putString(collectionName);
+                for (int i = 0; i < dictionary.size(); i++) {
+                    out.putString(dictionary.decode(i));
+                }
+
+                // Second pass: fixed-width records
+                for (int i = 0; i < count; i++) {
+                    int slot = slotList[i];
+                    ByteBuffer record = out.reserve(RECORD_SIZE);
+                    record.putLong(ids.idOf(slot));
+                    record.putInt(codes[i * 4]);
+                    record.putInt(codes[i * 4 + 1]);
+                    record.putInt(codes[i * 4 + 2]);
+                    record.putInt(codes[i * 4 + 3]);
+                    record.putDouble(store.getValue(slot));
+                    record.putInt(store.getManaCost(slot));
+                    record.putInt(store.getQuantity(slot));
+                    record.put((byte) store.getRarity(slot).ordinal());
+                    record.put((byte) store.getCondition(slot).ordinal());
+                    record.put((byte) store.getColor(slot).ordinal());
+                    record.put((byte) (store.isFoil(slot) ? FLAG_FOIL : 0));
+                }
+                out.finish();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Internal helpers
+
+    private String string(int code) throws IOException {
+        if (code < 0 || code >= dictionary.length) {
+            throw new IOException("Corrupt snapshot: string code " + code + " out of range");
+        }
+        return dictionary[code];
+    }
+
+    private static String readString(ByteBuffer in, byte[] scratch) throws IOException {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Corrupt snapshot: bad string length " + length);
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Buffered channel output that checksums everything it writes
+     */
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Makes room for a number of bytes and returns the buffer to put them in
+         */
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void putInt(int value) throws IOException {
+            reserve(4).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            reserve(8).putLong(value);
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            for (int offset = 0; offset < bytes.length; ) {
+                int length = Math.min(bytes.length - offset, reserve(1).remaining());
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * Appends the checksum and writes out the rest of the buffer
+         */
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
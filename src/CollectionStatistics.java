@@ -0,0 +1,221 @@
+import java.util.Arrays;
+
+/**
+ * CollectionStatistics - Running Collection Aggregates
+ *
+ * Keeps the totals shown in the menu header and the statistics screen up to
+ * date as cards are added, removed and modified, so reading them is O(1)
+ * instead of a scan over the whole collection.
+ *
+ * The counts per attribute are of entries, which is what the query planner
+ * compares with the number of live slots. The total value, the copy count
+ * and the copies per rarity weigh each entry by its quantity.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionStatistics implements CollectionIndex {
+    private int cardCount;
+    private long copyCount;
+    // Total value as a compensated (Neumaier) sum so repeated add/remove does not drift
+    private double valueSum;
+    private double valueCompensation;
+    private int[] rarityCounts;
+    private long[] rarityCopies;
+    private int[] conditionCounts;
+    private int[] colorCounts;
+    private int foilCount;
+    // Index = converted mana cost
+    private int[] manaCostCounts;
+
+    /**
+     * Default Constructor
+     * Creates statistics for an empty collection
+     */
+    public CollectionStatistics() {
+        clear();
+    }
+
+    /**
+     * Copy Constructor
+     * Takes a snapshot of another set of aggregates
+     *
+     * @param other The statistics to copy
+     */
+    public CollectionStatistics(CollectionStatistics other) {
+        this.cardCount = other.cardCount;
+        this.copyCount = other.copyCount;
+        this.valueSum = other.valueSum;
+        this.valueCompensation = other.valueCompensation;
+        this.rarityCounts = other.rarityCounts.clone();
+        this.rarityCopies = other.rarityCopies.clone();
+        this.conditionCounts = other.conditionCounts.clone();
+        this.colorCounts = other.colorCounts.clone();
+        this.foilCount = other.foilCount;
+        this.manaCostCounts = other.manaCostCounts.clone();
+    }
+
+    // Accessors
+
+    /**
+     * Gets the number of card entries
+     * @return Entry count
+     */
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * Gets the number of cards counting every copy
+     * @return Sum of the entries' quantities
+     */
+    public long getCopyCount() {
+        return copyCount;
+    }
+
+    /**
+     * Gets the total value of all cards, every copy included
+     * @return Total monetary value
+     */
+    public double getTotalValue() {
+        return cardCount == 0 ? 0.0 : valueSum + valueCompensation;
+    }
+
+    /**
+     * Gets the number of entries of a rarity
+     * @param rarity The rarity to count
+     * @return Number of entries with that rarity
+     */
+    public int getRarityCount(Rarity rarity) {
+        return rarityCounts[rarity.ordinal()];
+    }
+
+    /**
+     * Gets the number of copies of a rarity
+     * @param rarity The rarity to count
+     * @return Sum of the quantities of the entries with that rarity
+     */
+    public long getRarityCopies(Rarity rarity) {
+        return rarityCopies[rarity.ordinal()];
+    }
+
+    /**
+     * Gets the number of cards in a condition
+     * @param condition The condition to count
+     * @return Number of cards in that condition
+     */
+    public int getConditionCount(CardCondition condition) {
+        return conditionCounts[condition.ordinal()];
+    }
+
+    /**
+     * Gets the number of cards of a color
+     * @param color The color to count
+     * @return Number of cards with that color
+     */
+    public int getColorCount(CardColor color) {
+        return colorCounts[color.ordinal()];
+    }
+
+    /**
+     * Gets the number of foil cards
+     * @return Foil card count
+     */
+    public int getFoilCount() {
+        return foilCount;
+    }
+
+    /**
+     * Gets the number of cards with a converted mana cost
+     * @param manaCost The mana cost to count
+     * @return Number of cards with that mana cost
+     */
+    public int getManaCostCount(int manaCost) {
+        return manaCost >= 0 && manaCost < manaCostCounts.length ? manaCostCounts[manaCost] : 0;
+    }
+
+    /**
+     * Gets the highest mana cost the histogram has room for
+     * @return Largest mana cost bucket
+     */
+    public int getMaxManaCost() {
+        return manaCostCounts.length - 1;
+    }
+
+    // CollectionIndex maintenance
+
+    @Override
+    public void cardAdded(int slot, MTGCard card) {
+        apply(card, 1);
+    }
+
+    @Override
+    public void cardRemoved(int slot, MTGCard card) {
+        apply(card, -1);
+    }
+
+    @Override
+    public void cardChanged(int slot, MTGCard before, MTGCard after) {
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    @Override
+    public void clear() {
+        cardCount = 0;
+        copyCount = 0;
+        valueSum = 0.0;
+        valueCompensation = 0.0;
+        rarityCounts = new int[Rarity.table().size()];
+        rarityCopies = new long[Rarity.table().size()];
+        conditionCounts = new int[CardCondition.table().size()];
+        colorCounts = new int[CardColor.table().size()];
+        foilCount = 0;
+        manaCostCounts = new int[21];
+    }
+
+    // Internal helpers
+
+    /**
+     * Adds (sign 1) or subtracts (sign -1) one entry from every aggregate
+     */
+    private void apply(MTGCard card, int sign) {
+        long copies = (long) sign * card.getQuantity();
+        cardCount += sign;
+        copyCount += copies;
+        addValue(copies * card.getValue());
+        int rarity = card.getRarityCode().ordinal();
+        rarityCounts[rarity] += sign;
+        rarityCopies[rarity] += copies;
+        conditionCounts[card.getConditionCode().ordinal()] += sign;
+        colorCounts[card.getColorCode().ordinal()] += sign;
+        if (card.isFoil()) {
+            foilCount += sign;
+        }
+
+        int manaCost = card.getManaCost();
+        if (manaCost >= manaCostCounts.length) {
+            manaCostCounts = Arrays.copyOf(manaCostCounts, manaCost + 1);
+        }
+        manaCostCounts[manaCost] += sign;
+
+        if (cardCount == 0) {
+            // Start from an exact zero again once the collection is empty
+            valueSum = 0.0;
+            valueCompensation = 0.0;
+        }
+    }
+
+    /**
+     * Neumaier compensated addition
+     */
+    private void addValue(double value) {
+        double sum = valueSum + value;
+        if (Math.abs(valueSum) >= Math.abs(value)) {
+            valueCompensation += (valueSum - sum) + value;
+        } else {
+            valueCompensation += (value - sum) + valueSum;
+        }
+        valueSum = sum;
+    }
+}
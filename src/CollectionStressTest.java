@@ -0,0 +1,326 @@
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CollectionStressTest - Concurrent Reader/Writer Stress Test
+ *
+ * Runs reader threads against writer threads on one collection for a set
+ * time. It checks that no reader ever sees a half-applied change, whether
+ * the read was served from an optimistic stamp or repeated under the read
+ * lock.
+ *
+ * Every card is built from one number, its cents: the name ends in the
+ * cents, and the value, mana cost, foil flag and rarity are all derived
+ * from them. These fields live in different columns of the store. Writers
+ * rewrite all of a card's fields in one update and replace cards with a
+ * delete followed by an add. The tombstones the deletes leave make the
+ * collection compact now and then. Readers look cards up by ID and run
+ * searches, filters, top-N lists and queries, and check every card they
+ * get back:
+ *   - its fields agree with each other (a torn read would mix two updates)
+ *   - it matches the filter or query that returned it
+ *   - the collection size is never off by more than one card per writer
+ *
+ * Query iterators that outlive a compaction throw
+ * ConcurrentModificationException by design; those are counted, not
+ * treated as failures.
+ *
+ * Usage: java CollectionStressTest [list|columnar|offheap] [READERS] [WRITERS] [SECONDS]
+ * (defaults columnar, 8 readers, 2 writers, 10 seconds; exits with
+ * status 1 if any check fails)
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CollectionStressTest {
+    // Cards each writer owns and keeps rewriting
+    private static final int CARDS_PER_WRITER = 2000;
+    // Largest cents value a card is given ($500.00)
+    private static final int MAX_CENTS = 50_000;
+    private static final int MAX_REPORTED = 20;
+
+    private final CardCollection collection;
+    private final int writers;
+    // IDs of the cards, writer w owning the range [w * CARDS_PER_WRITER, (w + 1) * CARDS_PER_WRITER)
+    private final AtomicLongArray ids;
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder cardsChecked = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder interruptedQueries = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     *
+     * @param store The storage engine to test
+     * @param writers Number of writer threads
+     */
+    public CollectionStressTest(CardStore store, int writers) {
+        this.collection = new CardCollection("Stress Test", store);
+        this.writers = writers;
+        this.ids = new AtomicLongArray(writers * CARDS_PER_WRITER);
+    }
+
+    /**
+     * Main method - runs the test and prints the result
+     * @param args Store kind, number of readers, number of writers, duration in seconds
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String storeKind = args.length > 0 ? args[0] : "columnar";
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int writers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        CardStore store;
+        switch (storeKind.toLowerCase()) {
+            case "list": store = new ListCardStore(); break;
+            case "columnar": store = new ColumnarCardStore(); break;
+            case "offheap": store = new OffHeapCardStore(); break;
+            default:
+                System.out.println("Unknown store: " + storeKind + " (use list, columnar or offheap)");
+                System.exit(2);
+                return;
+        }
+
+        CollectionStressTest test = new CollectionStressTest(store, writers);
+        boolean passed = test.run(readers, seconds);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Fills the collection, runs the threads and prints the counts
+     *
+     * @param readers Number of reader threads
+     * @param seconds How long to run
+     * @return true if every check passed
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public boolean run(int readers, int seconds) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < ids.length(); i++) {
+            ids.set(i, collection.insertCard(cardFor(i, random.nextInt(MAX_CENTS))));
+        }
+        System.out.printf("Running %d readers and %d writers on %,d cards for %d seconds...%n",
+                          readers, writers, ids.length(), seconds);
+
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(readers + writers);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> guard(done, () -> write(writer)), "stress-writer-" + w));
+        }
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> guard(done, this::read), "stress-reader-" + r));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        running = false;
+        done.await();
+
+        long lockedReads = collection.getLockedReadCount();
+        System.out.printf("Reads: %,d (%,d cards checked) | Writes: %,d%n",
+                          reads.sum(), cardsChecked.sum(), writes.sum());
+        System.out.printf("Reads repeated under the read lock: %,d | Queries cut short by compaction: %,d%n",
+                          lockedReads, interruptedQueries.sum());
+        if (lockedReads == 0) {
+            System.out.println("Warning: no optimistic read was invalidated; run longer or with more threads");
+        }
+        for (String failure : failures) {
+            System.out.println("FAILED: " + failure);
+        }
+        System.out.println(failureCount.sum() == 0 ? "PASSED" : "FAILED: " + failureCount.sum() + " check(s)");
+        return failureCount.sum() == 0;
+    }
+
+    /**
+     * Runs one thread's loop, recording anything it throws as a failure
+     */
+    private void guard(CountDownLatch done, Runnable loop) {
+        try {
+            loop.run();
+        } catch (RuntimeException | Error e) {
+            fail(Thread.currentThread().getName() + " threw " + e);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    // ---- Writers ----
+
+    /**
+     * Rewrites the cards of one writer until the test ends: mostly whole-card
+     * updates, with one in ten replaced by a delete and an add
+     */
+    private void write(int writer) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = writer * CARDS_PER_WRITER;
+        Map<CardField, String> changes = new EnumMap<>(CardField.class);
+        while (running) {
+            int index = first + random.nextInt(CARDS_PER_WRITER);
+            int cents = random.nextInt(MAX_CENTS);
+            if (random.nextInt(10) == 0) {
+                collection.removeCard(ids.get(index));
+                ids.set(index, collection.insertCard(cardFor(index, cents)));
+            } else {
+                MTGCard card = cardFor(index, cents);
+                changes.put(CardField.NAME, card.getName());
+                changes.put(CardField.VALUE, String.valueOf(card.getValue()));
+                changes.put(CardField.MANA_COST, String.valueOf(card.getManaCost()));
+                changes.put(CardField.FOIL, card.isFoil() ? "Yes" : "No");
+                changes.put(CardField.RARITY, card.getRarityCode().getDisplayName());
+                if (collection.updateCard(ids.get(index), changes) == null) {
+                    fail("card " + index + " vanished from its writer");
+                }
+            }
+            writes.increment();
+        }
+    }
+
+    /**
+     * Builds the card for an index with every field derived from its cents
+     */
+    private static MTGCard cardFor(int index, int cents) {
+        return new MTGCard("Stress " + index + " @" + cents, rarityFor(cents), CardCondition.NEAR_MINT,
+                           cents / 100.0, "Stress Edition", "Creature", CardColor.RED,
+                           cents % 16, "Goblin", cents % 2 == 1);
+    }
+
+    private static Rarity rarityFor(int cents) {
+        return Rarity.table().get(cents % Rarity.table().size());
+    }
+
+    // ---- Readers ----
+
+    /**
+     * Runs a random mix of reads until the test ends
+     */
+    private void read() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int expected = ids.length();
+        while (running) {
+            switch (random.nextInt(8)) {
+                case 0: {
+                    MTGCard card = collection.findCard(ids.get(random.nextInt(ids.length())));
+                    if (card != null) {
+                        check(card, "lookup");
+                    }
+                    break;
+                }
+                case 1: {
+                    // A writer is at most one card short while it replaces one
+                    int size = collection.getSize();
+                    if (size < expected - writers || size > expected) {
+                        fail("size " + size + " outside " + (expected - writers) + ".." + expected);
+                    }
+                    break;
+                }
+                case 2: {
+                    String term = "Stress " + random.nextInt(ids.length()) + " @";
+                    for (MTGCard card : collection.searchByName(term)) {
+                        check(card, "search");
+                    }
+                    break;
+                }
+                case 3: {
+                    Rarity rarity = rarityFor(random.nextInt(Rarity.table().size()));
+                    for (MTGCard card : collection.filterByRarity(rarity)) {
+                        check(card, "rarity filter");
+                        if (card.getRarityCode() != rarity) {
+                            fail("rarity filter for " + rarity.getDisplayName() + " returned " + card.getName());
+                        }
+                    }
+                    break;
+                }
+                case 4: {
+                    double min = random.nextInt(MAX_CENTS) / 100.0;
+                    double max = min + 5.0;
+                    for (MTGCard card : collection.filterByValue(min, max)) {
+                        check(card, "value filter");
+                        if (card.getValue() < min || card.getValue() > max) {
+                            fail("value filter " + min + ".." + max + " returned " + card.getName());
+                        }
+                    }
+                    break;
+                }
+                case 5: {
+                    double previous = Double.MAX_VALUE;
+                    for (MTGCard card : collection.getMostValuable(20)) {
+                        check(card, "top list");
+                        if (card.getValue() > previous) {
+                            fail("top list out of order at " + card.getName());
+                        }
+                        previous = card.getValue();
+                    }
+                    break;
+                }
+                case 6: {
+                    int mana = random.nextInt(16);
+                    CardQuery query = CardQuery.allOf(CardQuery.foil(true), CardQuery.manaCostBetween(mana, mana));
+                    try {
+                        Iterator<MTGCard> matches = collection.query(query);
+                        while (matches.hasNext()) {
+                            MTGCard card = matches.next();
+                            check(card, "query");
+                            if (!card.isFoil() || card.getManaCost() != mana) {
+                                fail("query for foil mana " + mana + " returned " + card.getName());
+                            }
+                        }
+                    } catch (ConcurrentModificationException e) {
+                        interruptedQueries.increment();
+                    }
+                    break;
+                }
+                default: {
+                    int count = collection.count(CardQuery.foil(true));
+                    if (count < 0 || count > expected) {
+                        fail("foil count " + count + " outside 0.." + expected);
+                    }
+                    break;
+                }
+            }
+            reads.increment();
+        }
+    }
+
+    /**
+     * Checks that a card's fields all come from the same cents
+     */
+    private void check(MTGCard card, String source) {
+        cardsChecked.increment();
+        String name = card.getName();
+        int at = name.lastIndexOf('@');
+        int cents;
+        try {
+            cents = Integer.parseInt(name.substring(at + 1));
+        } catch (RuntimeException e) {
+            fail(source + " returned a card with a garbled name: " + name);
+            return;
+        }
+        if (Math.round(card.getValue() * 100) != cents || card.getManaCost() != cents % 16
+            || card.isFoil() != (cents % 2 == 1) || card.getRarityCode() != rarityFor(cents)) {
+            fail(source + " returned a torn card: " + name + " value " + card.getValue() + ", mana "
+                 + card.getManaCost() + ", foil " + card.isFoil() + ", " + card.getRarityCode().getDisplayName());
+        }
+    }
+
+    private void fail(String message) {
+        failureCount.increment();
+        if (failures.size() < MAX_REPORTED) {
+            failures.add(message);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * ColumnarCardStore - Columnar Storage Engine
+ *
+ * Stores the collection as parallel arrays (struct-of-arrays) instead of one
+ * object per card. Value, mana cost, foil and quantity live in primitive
+ * arrays, rarity, condition and color are byte ordinals, and the free-text
+ * string fields are dictionary-coded into int arrays, so scans such as total
+ * value or filter by rarity are linear passes over memory.
+ * MTGCard objects are only created when get() is called.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class ColumnarCardStore implements CardStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+
+    // Primitive columns
+    private double[] values;
+    private int[] manaCosts;
+    private boolean[] foils;
+    private int[] quantities;
+
+    // Attribute ordinal columns
+    private byte[] rarities;
+    private byte[] conditions;
+    private byte[] colors;
+
+    // Dictionary-coded columns
+    private int[] names;
+    private int[] editions;
+    private int[] cardTypes;
+    private int[] subtypes;
+
+    // One dictionary per string column
+    private StringDictionary nameDictionary;
+    private StringDictionary editionDictionary;
+    private StringDictionary cardTypeDictionary;
+    private StringDictionary subtypeDictionary;
+
+    /**
+     * Default Constructor
+     * Creates an empty store
+     */
+    public ColumnarCardStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Parameterized Constructor
+     * Creates an empty store with room for the given number of cards
+     *
+     * @param capacity Initial number of rows to allocate
+     */
+    public ColumnarCardStore(int capacity) {
+        allocate(Math.max(capacity, INITIAL_CAPACITY));
+        this.nameDictionary = new StringDictionary();
+        this.editionDictionary = new StringDictionary();
+        this.cardTypeDictionary = new StringDictionary();
+        this.subtypeDictionary = new StringDictionary();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MTGCard get(int slot) {
+        checkSlot(slot);
+        MTGCard card = new MTGCard(
+            nameDictionary.decode(names[slot]),
+            Rarity.table().get(rarities[slot]),
+            CardCondition.table().get(conditions[slot]),
+            values[slot],
+            editionDictionary.decode(editions[slot]),
+            cardTypeDictionary.decode(cardTypes[slot]),
+            CardColor.table().get(colors[slot]),
+            manaCosts[slot],
+            subtypeDictionary.decode(subtypes[slot]),
+            foils[slot]
+        );
+        card.setQuantity(quantities[slot]);
+        return card;
+    }
+
+    @Override
+    public void add(MTGCard card) {
+        if (size == values.length) {
+            grow();
+        }
+        write(size, card);
+        size++;
+    }
+
+    @Override
+    public void set(int slot, MTGCard card) {
+        checkSlot(slot);
+        write(slot, card);
+    }
+
+    @Override
+    public void compact(Bitmap live) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!live.get(i)) {
+                continue;
+            }
+            if (kept != i) {
+                values[kept] = values[i];
+                manaCosts[kept] = manaCosts[i];
+                foils[kept] = foils[i];
+                quantities[kept] = quantities[i];
+                rarities[kept] = rarities[i];
+                conditions[kept] = conditions[i];
+                colors[kept] = colors[i];
+                names[kept] = names[i];
+                editions[kept] = editions[i];
+                cardTypes[kept] = cardTypes[i];
+                subtypes[kept] = subtypes[i];
+            }
+            kept++;
+        }
+        size = kept;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        allocate(INITIAL_CAPACITY);
+        nameDictionary.clear();
+        editionDictionary.clear();
+        cardTypeDictionary.clear();
+        subtypeDictionary.clear();
+    }
+
+    @Override
+    public String getName(int slot) {
+        checkSlot(slot);
+        return nameDictionary.decode(names[slot]);
+    }
+
+    @Override
+    public Rarity getRarity(int slot) {
+        checkSlot(slot);
+        return Rarity.table().get(rarities[slot]);
+    }
+
+    @Override
+    public CardCondition getCondition(int slot) {
+        checkSlot(slot);
+        return CardCondition.table().get(conditions[slot]);
+    }
+
+    @Override
+    public double getValue(int slot) {
+        checkSlot(slot);
+        return values[slot];
+    }
+
+    @Override
+    public String getEdition(int slot) {
+        checkSlot(slot);
+        return editionDictionary.decode(editions[slot]);
+    }
+
+    @Override
+    public String getCardType(int slot) {
+        checkSlot(slot);
+        return cardTypeDictionary.decode(cardTypes[slot]);
+    }
+
+    @Override
+    public CardColor getColor(int slot) {
+        checkSlot(slot);
+        return CardColor.table().get(colors[slot]);
+    }
+
+    @Override
+    public int getManaCost(int slot) {
+        checkSlot(slot);
+        return manaCosts[slot];
+    }
+
+    @Override
+    public String getCardSubtype(int slot) {
+        checkSlot(slot);
+        return subtypeDictionary.decode(subtypes[slot]);
+    }
+
+    @Override
+    public boolean isFoil(int slot) {
+        checkSlot(slot);
+        return foils[slot];
+    }
+
+    @Override
+    public int getQuantity(int slot) {
+        checkSlot(slot);
+        return quantities[slot];
+    }
+
+    // Internal helpers
+
+    /**
+     * Writes a card into a row of every column
+     */
+    private void write(int slot, MTGCard card) {
+        values[slot] = card.getValue();
+        manaCosts[slot] = card.getManaCost();
+        foils[slot] = card.isFoil();
+        quantities[slot] = card.getQuantity();
+        names[slot] = nameDictionary.encode(card.getName());
+        rarities[slot] = (byte) card.getRarityCode().ordinal();
+        conditions[slot] = (byte) card.getConditionCode().ordinal();
+        editions[slot] = editionDictionary.encode(card.getEdition());
+        cardTypes[slot] = cardTypeDictionary.encode(card.getCardType());
+        colors[slot] = (byte) card.getColorCode().ordinal();
+        subtypes[slot] = subtypeDictionary.encode(card.getCardSubtype());
+    }
+
+    private void allocate(int capacity) {
+        values = new double[capacity];
+        manaCosts = new int[capacity];
+        foils = new boolean[capacity];
+        quantities = new int[capacity];
+        names = new int[capacity];
+        rarities = new byte[capacity];
+        conditions = new byte[capacity];
+        editions = new int[capacity];
+        cardTypes = new int[capacity];
+        colors = new byte[capacity];
+        subtypes = new int[capacity];
+    }
+
+    private void grow() {
+        int capacity = values.length + (values.length >> 1);
+        values = Arrays.copyOf(values, capacity);
+        manaCosts = Arrays.copyOf(manaCosts, capacity);
+        foils = Arrays.copyOf(foils, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        names = Arrays.copyOf(names, capacity);
+        rarities = Arrays.copyOf(rarities, capacity);
+        conditions = Arrays.copyOf(conditions, capacity);
+        editions = Arrays.copyOf(editions, capacity);
+        cardTypes = Arrays.copyOf(cardTypes, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        subtypes = Arrays.copyOf(subtypes, capacity);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range for size " + size);
+        }
+    }
+}
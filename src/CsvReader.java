@@ -0,0 +1,288 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CsvReader - RFC 4180 Record Parser
+ *
+ * Parses CSV records straight out of a byte array. Each field is kept as a
+ * slice (start and end offsets) of the array, so no line String or String[]
+ * is created; a field only becomes a String, int or double when asked for.
+ * Supports quoted fields, escaped quotes ("") and line breaks inside quotes,
+ * and accepts both CRLF and LF record endings.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CsvReader {
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    // Field slices of the current record
+    private int fieldCount;
+    private int[] starts;
+    private int[] ends;
+    private boolean[] escaped;
+
+    /**
+     * Parameterized Constructor
+     * Reads records from part of a byte array
+     *
+     * @param data The UTF-8 encoded CSV bytes
+     * @param offset Where the first record starts
+     * @param length Number of bytes to read
+     */
+    public CsvReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+        this.starts = new int[16];
+        this.ends = new int[16];
+        this.escaped = new boolean[16];
+    }
+
+    /**
+     * Parses the next record
+     * @return true if a record was read, false at the end of the data
+     */
+    public boolean nextRecord() {
+        fieldCount = 0;
+        if (position >= limit) {
+            return false;
+        }
+
+        while (true) {
+            if (position < limit && data[position] == '"') {
+                readQuotedField();
+            } else {
+                readPlainField();
+            }
+
+            if (position >= limit) {
+                return true;
+            }
+            byte delimiter = data[position];
+            if (delimiter == ',') {
+                position++;
+                continue;
+            }
+
+            // End of record: CRLF or LF
+            if (delimiter == '\r') {
+                position++;
+            }
+            if (position < limit && data[position] == '\n') {
+                position++;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Gets the number of fields in the current record
+     * @return Field count
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets a field as a String (quotes removed, "" unescaped)
+     * @param field The field number (0-based)
+     * @return The field text
+     */
+    public String getString(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        if (!escaped[field]) {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] unescaped = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            unescaped[length++] = data[i];
+            if (data[i] == '"') {
+                i++; // Skip the second quote of the pair
+            }
+        }
+        return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a field as an int without creating a String
+     *
+     * @param field The field number (0-based)
+     * @return The parsed value
+     * @throws NumberFormatException if the field is not a whole number
+     */
+    public int getInt(int field) {
+        int start = trimStart(field);
+        int end = trimEnd(field);
+        boolean negative = start < end && data[start] == '-';
+        int i = negative || (start < end && data[start] == '+') ? start + 1 : start;
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(getString(field).trim());
+        }
+
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field as a double
+     * Plain decimals such as 35.99 are converted straight from the bytes;
+     * anything else (exponents, long mantissas) goes through Double.parseDouble
+     *
+     * @param field The field number (0-based)
+     * @return The parsed value
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int field) {
+        int start = trimStart(field);
+        int end = trimEnd(field);
+        boolean negative = start < end && data[start] == '-';
+        int i = negative || (start < end && data[start] == '+') ? start + 1 : start;
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = data[i];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b >= '0' && b <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else {
+                break;
+            }
+        }
+
+        if (i != end || digits == 0) {
+            return Double.parseDouble(getString(field));
+        }
+        // Both operands are exact, so the division is correctly rounded
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Checks a field against ASCII text, ignoring case
+     *
+     * @param field The field number (0-based)
+     * @param text The ASCII text to compare with
+     * @return true if the field equals the text
+     */
+    public boolean equalsIgnoreCase(int field, String text) {
+        if (escaped[field]) {
+            return getString(field).equalsIgnoreCase(text);
+        }
+        int start = starts[field];
+        if (ends[field] - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            int a = data[start + i];
+            int b = text.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Internal helpers
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    /**
+     * Reads a field that starts with a quote, up to its closing quote
+     */
+    private void readQuotedField() {
+        position++; // Opening quote
+        int start = position;
+        int end;
+        boolean hasEscapes = false;
+        while (true) {
+            if (position >= limit) {
+                end = limit; // Unterminated quote: take the rest of the data
+                break;
+            }
+            if (data[position] == '"') {
+                if (position + 1 < limit && data[position + 1] == '"') {
+                    hasEscapes = true;
+                    position += 2;
+                    continue;
+                }
+                end = position;
+                position++; // Closing quote
+                break;
+            }
+            position++;
+        }
+
+        // Ignore anything between the closing quote and the next delimiter
+        while (position < limit && data[position] != ',' && data[position] != '\n' && data[position] != '\r') {
+            position++;
+        }
+        addField(start, end, hasEscapes);
+    }
+
+    /**
+     * Reads an unquoted field up to the next comma or line break
+     */
+    private void readPlainField() {
+        int start = position;
+        while (position < limit && data[position] != ',' && data[position] != '\n') {
+            position++;
+        }
+        int end = position;
+        if (end > start && data[end - 1] == '\r') {
+            end--;
+            position--; // Let nextRecord() consume the CRLF
+        }
+        addField(start, end, false);
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            escaped = Arrays.copyOf(escaped, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    private int trimStart(int field) {
+        int start = starts[field];
+        while (start < ends[field] && data[start] == ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int field) {
+        int end = ends[field];
+        while (end > starts[field] && data[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+}
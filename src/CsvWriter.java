@@ -0,0 +1,279 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+
+/**
+ * CsvWriter - RFC 4180 Record Writer
+ *
+ * Writes records field by field. A field is wrapped in quotes only when it
+ * contains a comma, a quote or a line break, with embedded quotes doubled,
+ * so plain values come out exactly as before and values such as
+ * "Nicol Bolas, Dragon-God" read back unchanged. Records end with CRLF.
+ *
+ * Output is encoded as UTF-8 into one reusable byte buffer and written to
+ * the channel in large blocks. Numbers are formatted digit by digit, so
+ * writing a record allocates nothing.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CsvWriter implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final WritableByteChannel channel;
+    private final byte[] bytes;
+    private final ByteBuffer view;
+    private int count;
+    private boolean firstField;
+    // Bytes handed to the channel so far
+    private long written;
+
+    /**
+     * Parameterized Constructor
+     * Uses a 1 MB buffer
+     *
+     * @param channel Where the records are written (closed with the writer)
+     */
+    public CsvWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Parameterized Constructor
+     *
+     * @param channel Where the records are written (closed with the writer)
+     * @param bufferSize Buffer size in bytes
+     */
+    public CsvWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.bytes = new byte[Math.max(bufferSize, 64)];
+        this.view = ByteBuffer.wrap(bytes);
+        this.firstField = true;
+    }
+
+    /**
+     * Writes one text field of the current record
+     * @param value The field text
+     * @throws IOException if the output cannot be written
+     */
+    public void writeField(String value) throws IOException {
+        startField();
+        if (!needsQuotes(value)) {
+            writeText(value, false);
+            return;
+        }
+        writeByte('"');
+        writeText(value, true);
+        writeByte('"');
+    }
+
+    /**
+     * Writes one whole-number field of the current record
+     * @param value The field value
+     * @throws IOException if the output cannot be written
+     */
+    public void writeField(int value) throws IOException {
+        startField();
+        writeLong(value);
+    }
+
+    /**
+     * Writes a number with exactly two decimal places, as %.2f does
+     * The value's shortest decimal form is rounded half up, so 1.005 is
+     * written as 1.01 even though the nearest double is a little below it.
+     * Cents are computed from the binary value, and only a value that lands
+     * within a few ulps of a half cent is rounded through BigDecimal.
+     *
+     * @param value The field value
+     * @throws IOException if the output cannot be written
+     */
+    public void writeFixed2(double value) throws IOException {
+        double scaled = Math.abs(value) * 100.0;
+        if (Double.isNaN(value) || scaled >= 1e17) {
+            // Out of long range (or not a number): rare enough to format the slow way
+            writeField(String.format(Locale.ROOT, "%.2f", value));
+            return;
+        }
+        double remainder = scaled - Math.floor(scaled);
+        if (Math.abs(remainder - 0.5) <= Math.ulp(scaled) * 8) {
+            // Near a half cent the binary value can round the other way
+            String text = BigDecimal.valueOf(Math.abs(value)).setScale(2, RoundingMode.HALF_UP).toPlainString();
+            writeField(isNegative(value) ? "-" + text : text);
+            return;
+        }
+
+        startField();
+        long cents = Math.round(scaled);
+        if (isNegative(value)) {
+            writeByte('-');
+        }
+        writeLong(cents / 100);
+        ensure(3);
+        int fraction = (int) (cents % 100);
+        bytes[count++] = '.';
+        bytes[count++] = (byte) ('0' + fraction / 10);
+        bytes[count++] = (byte) ('0' + fraction % 10);
+    }
+
+    /**
+     * Checks the sign bit, which %.2f prints even for -0.0 and for
+     * values that round to zero
+     */
+    private static boolean isNegative(double value) {
+        return Double.doubleToRawLongBits(value) < 0;
+    }
+
+    /**
+     * Writes a whole record of text fields
+     * @param fields The field values in order
+     * @throws IOException if the output cannot be written
+     */
+    public void writeRecord(String... fields) throws IOException {
+        for (String field : fields) {
+            writeField(field);
+        }
+        endRecord();
+    }
+
+    /**
+     * Ends the current record
+     * @throws IOException if the output cannot be written
+     */
+    public void endRecord() throws IOException {
+        ensure(2);
+        bytes[count++] = '\r';
+        bytes[count++] = '\n';
+        firstField = true;
+    }
+
+    /**
+     * Writes everything buffered so far to the channel
+     * @throws IOException if the output cannot be written
+     */
+    public void flush() throws IOException {
+        view.clear().limit(count);
+        while (view.hasRemaining()) {
+            channel.write(view);
+        }
+        written += count;
+        count = 0;
+    }
+
+    /**
+     * Gets the number of bytes written, including those still buffered
+     * @return Byte count
+     */
+    public long getBytesWritten() {
+        return written + count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Internal helpers
+
+    private void startField() throws IOException {
+        if (!firstField) {
+            writeByte(',');
+        }
+        firstField = false;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (count == bytes.length) {
+            flush();
+        }
+        bytes[count++] = (byte) b;
+    }
+
+    /**
+     * Makes room for a number of bytes in the buffer
+     */
+    private void ensure(int needed) throws IOException {
+        if (bytes.length - count < needed) {
+            flush();
+        }
+    }
+
+    /**
+     * Encodes text as UTF-8, doubling quotes when the field is quoted
+     */
+    private void writeText(String value, boolean quoted) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                if (c == '"' && quoted) {
+                    bytes[count++] = '"';
+                }
+                bytes[count++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xC0 | (c >> 6));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                       && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[count++] = '?'; // Unpaired surrogate, as String.getBytes does
+            } else {
+                bytes[count++] = (byte) (0xE0 | (c >> 12));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes the decimal digits of a number
+     */
+    private void writeLong(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            bytes[count++] = '-';
+            value = -value;
+        }
+        if (value < 10) {
+            bytes[count++] = (byte) ('0' + value);
+            return;
+        }
+
+        int digits = 0;
+        for (long rest = value; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = count + digits;
+        for (int i = end - 1; i >= count; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+    }
+
+    /**
+     * Checks whether a field has to be quoted
+     */
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
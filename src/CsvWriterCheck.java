@@ -0,0 +1,92 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * CsvWriterCheck - Number Formatting Check
+ *
+ * Writes values with CsvWriter.writeFixed2 and compares each one with
+ * String.format("%.2f"), which the export used before the writer existed.
+ * The values cover every amount with three decimal places up to 10,000,
+ * the half-cent cases that a binary double rounds the wrong way (1.005,
+ * 0.285, 2.675), signs and zeros, and a run of random doubles.
+ *
+ * Usage: java CsvWriterCheck [RANDOM_VALUES]
+ * (default 1,000,000; exits with status 1 if any value differs)
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class CsvWriterCheck {
+    private static final int MAX_REPORTED = 20;
+
+    private int checked;
+    private int mismatches;
+
+    /**
+     * Main method - runs the check and prints the result
+     * @param args Number of random values to check
+     * @throws IOException never in practice; the output is kept in memory
+     */
+    public static void main(String[] args) throws IOException {
+        int randomValues = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        CsvWriterCheck check = new CsvWriterCheck();
+
+        check.compare(new double[] {
+            0.0, -0.0, 0.001, -0.001, 0.005, -0.005, 0.004999, 0.01, 0.125, 0.285, 0.375,
+            1.005, -1.005, 1.015, 1.115, 2.675, 8.345, 10.005, 99.995, 999999.995,
+            123456789.125, 1e15 + 0.5, 9.99999999999999e14, 1e16, 9.999999999999998e16,
+            Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+        });
+
+        double[] block = new double[1000];
+        for (int start = 0; start < 10_000_000; start += block.length) {
+            for (int i = 0; i < block.length; i++) {
+                block[i] = (start + i) / 1000.0;
+            }
+            check.compare(block);
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int done = 0; done < randomValues; done += block.length) {
+            for (int i = 0; i < block.length; i++) {
+                double magnitude = Math.pow(10, random.nextInt(-3, 12));
+                block[i] = (random.nextDouble() - 0.25) * magnitude;
+            }
+            check.compare(block);
+        }
+
+        System.out.printf("Checked %,d values, %,d differ from %%.2f%n", check.checked, check.mismatches);
+        if (check.mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes one block of values as a record each and compares the output
+     * @param values The values to check
+     */
+    private void compare(double[] values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(values.length * 16);
+        try (CsvWriter writer = new CsvWriter(Channels.newChannel(out), 4096)) {
+            for (double value : values) {
+                writer.writeFixed2(value);
+                writer.endRecord();
+            }
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        for (int i = 0; i < values.length; i++) {
+            String expected = String.format(Locale.ROOT, "%.2f", values[i]);
+            String actual = i < lines.length ? lines[i] : "";
+            checked++;
+            if (!expected.equals(actual) && mismatches++ < MAX_REPORTED) {
+                System.out.printf("%s: expected %s, wrote %s%n", Double.toString(values[i]), expected, actual);
+            }
+        }
+    }
+}
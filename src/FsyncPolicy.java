@@ -0,0 +1,35 @@
+import java.util.Locale;
+
+/**
+ * FsyncPolicy - Mutation Log Durability Setting
+ *
+ * Decides when appended log entries are forced to disk. Whatever the
+ * policy, entries are written by one background thread in batches, so
+ * changes made while a write or fsync is in progress share the next one.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public enum FsyncPolicy {
+    // A commit returns only after its entries are on disk
+    ALWAYS,
+    // A commit returns once its entries are written; fsync runs every 100 ms
+    INTERVAL,
+    // A commit returns once its entries are written; the OS decides when to flush
+    NEVER;
+
+    /**
+     * Parses a policy name (case-insensitive)
+     *
+     * @param text The text to parse
+     * @return The matching policy, or null if invalid
+     */
+    public static FsyncPolicy parse(String text) {
+        for (FsyncPolicy policy : values()) {
+            if (policy.name().equals(text.trim().toUpperCase(Locale.ROOT))) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * GroupAggregator - Parallel Group-By Engine
+ *
+ * Runs a GroupBy over the slots of a store. The slot range is split in
+ * half on a fork-join pool until the pieces are small. Each task builds
+ * its own map of partial groups from the store's column accessors without
+ * sharing anything. When two halves join, the smaller map is merged into
+ * the larger one. Collections below one piece are aggregated on the
+ * calling thread.
+ *
+ * Keys are read straight from the store, so edition, card type and
+ * subtype are the pooled String instances and no key is allocated per
+ * card; a task only allocates when it meets a group it has not seen.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class GroupAggregator {
+    // Slots per task below which the work is not split further
+    private static final int DEFAULT_SPLIT_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int splitSize;
+
+    /**
+     * Default Constructor
+     * Aggregates on the common fork-join pool, in pieces of 64K slots
+     */
+    public GroupAggregator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_SIZE);
+    }
+
+    /**
+     * Parameterized Constructor
+     *
+     * @param pool The pool to aggregate on
+     * @param splitSize Slots per task below which the work is not split
+     */
+    public GroupAggregator(ForkJoinPool pool, int splitSize) {
+        this.pool = pool;
+        this.splitSize = Math.max(1, splitSize);
+    }
+
+    /**
+     * Aggregates the cards in a set of slots
+     * The caller keeps the store from changing until this returns
+     *
+     * @param store The store holding the cards
+     * @param matches The slots to include
+     * @param groupBy The keys and options
+     * @return The groups in key order
+     */
+    public List<GroupBy.Group> aggregate(CardStore store, Bitmap matches, GroupBy groupBy) {
+        Aggregation task = new Aggregation(store, matches, groupBy.getKeys(), groupBy.hasPercentiles(),
+                                           0, store.size());
+        Map<GroupKey, GroupBy.Group> groups = store.size() <= splitSize ? task.compute() : pool.invoke(task);
+        ArrayList<GroupBy.Group> sorted = new ArrayList<>(groups.values());
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Reads one key field of the card in a slot
+     */
+    private static Object keyOf(CardStore store, int slot, CardField field) {
+        switch (field) {
+            case NAME: return store.getName(slot);
+            case RARITY: return store.getRarity(slot);
+            case CONDITION: return store.getCondition(slot);
+            case EDITION: return store.getEdition(slot);
+            case CARD_TYPE: return store.getCardType(slot);
+            case COLOR: return store.getColor(slot);
+            case MANA_COST: return store.getManaCost(slot);
+            case SUBTYPE: return store.getCardSubtype(slot);
+            case FOIL: return store.isFoil(slot);
+            default: throw new IllegalArgumentException("Cannot group by " + field.getDisplayName());
+        }
+    }
+
+    /**
+     * Map key over the key values of a group
+     * One instance per task is refilled for every card and only used for
+     * lookups; a copy is stored the first time a group is seen
+     */
+    private static final class GroupKey {
+        private final Object[] values;
+        private int hash;
+
+        GroupKey(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        void rehash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof GroupKey && hash == ((GroupKey) other).hash
+                   && Arrays.equals(values, ((GroupKey) other).values);
+        }
+    }
+
+    /**
+     * Fork-join task that aggregates a range of slots
+     */
+    private class Aggregation extends RecursiveTask<Map<GroupKey, GroupBy.Group>> {
+        private static final long serialVersionUID = 1L;
+
+        private final CardStore store;
+        private final Bitmap matches;
+        private final CardField[] keys;
+        private final boolean percentiles;
+        private final int from;
+        private final int to;
+
+        Aggregation(CardStore store, Bitmap matches, CardField[] keys, boolean percentiles, int from, int to) {
+            this.store = store;
+            this.matches = matches;
+            this.keys = keys;
+            this.percentiles = percentiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<GroupKey, GroupBy.Group> compute() {
+            if (to - from > splitSize) {
+                int middle = (from + to) >>> 1;
+                Aggregation left = new Aggregation(store, matches, keys, percentiles, from, middle);
+                Aggregation right = new Aggregation(store, matches, keys, percentiles, middle, to);
+                right.fork();
+                return merge(left.compute(), right.join());
+            }
+
+            HashMap<GroupKey, GroupBy.Group> groups = new HashMap<>();
+            GroupKey probe = new GroupKey(new Object[keys.length]);
+            for (int slot = matches.nextSetBit(from); slot >= 0 && slot < to; slot = matches.nextSetBit(slot + 1)) {
+                for (int i = 0; i < keys.length; i++) {
+                    probe.values[i] = keyOf(store, slot, keys[i]);
+                }
+                probe.rehash();
+                GroupBy.Group group = groups.get(probe);
+                if (group == null) {
+                    Object[] key = probe.values.clone();
+                    group = new GroupBy.Group(key, percentiles);
+                    groups.put(new GroupKey(key), group);
+                }
+                group.add(store.getValue(slot), store.getQuantity(slot));
+            }
+            return groups;
+        }
+
+        /**
+         * Merges two partial results, the smaller into the larger
+         */
+        private Map<GroupKey, GroupBy.Group> merge(Map<GroupKey, GroupBy.Group> a, Map<GroupKey, GroupBy.Group> b) {
+            Map<GroupKey, GroupBy.Group> into = a.size() >= b.size() ? a : b;
+            Map<GroupKey, GroupBy.Group> smaller = into == a ? b : a;
+            for (Map.Entry<GroupKey, GroupBy.Group> entry : smaller.entrySet()) {
+                GroupBy.Group group = into.putIfAbsent(entry.getKey(), entry.getValue());
+                if (group != null) {
+                    group.merge(entry.getValue());
+                }
+            }
+            return into;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GroupBy - Group-By Aggregation Request
+ *
+ * Names the fields a collection is broken down by, such as edition, or
+ * edition then rarity, plus an optional query that selects the cards to
+ * include. CardCollection.aggregate() runs it with a GroupAggregator and
+ * returns one Group per combination of key values that occurs.
+ *
+ * Each group reports card value statistics. Every copy counts, so an entry
+ * with quantity 4 counts as four cards at its value. That matches the
+ * totals on the statistics screen. Percentiles need every value kept, so
+ * they are only computed when asked for with withPercentiles().
+ *
+ * Example: GroupBy.of(CardField.EDITION, CardField.RARITY).where(CardQuery.foil(true))
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class GroupBy {
+    private final CardField[] keys;
+    private final CardQuery filter;
+    private final boolean percentiles;
+
+    private GroupBy(CardField[] keys, CardQuery filter, boolean percentiles) {
+        this.keys = keys;
+        this.filter = filter;
+        this.percentiles = percentiles;
+    }
+
+    /**
+     * Groups by one or more fields, outermost first
+     *
+     * @param keys The fields to group by; any field except value and quantity
+     * @return The request, over every card and without percentiles
+     * @throws IllegalArgumentException if no field is given or a field cannot be grouped by
+     */
+    public static GroupBy of(CardField... keys) {
+        if (keys == null || keys.length == 0) {
+            throw new IllegalArgumentException("Group by needs at least one field");
+        }
+        for (CardField key : keys) {
+            if (key == null || key == CardField.VALUE || key == CardField.QUANTITY) {
+                throw new IllegalArgumentException("Cannot group by " + (key == null ? "nothing" : key.getDisplayName()));
+            }
+        }
+        return new GroupBy(keys.clone(), null, false);
+    }
+
+    /**
+     * Only aggregates the cards matching a query
+     * @param query The cards to include
+     * @return A new request with the filter
+     */
+    public GroupBy where(CardQuery query) {
+        return new GroupBy(keys, query, percentiles);
+    }
+
+    /**
+     * Also computes value percentiles per group
+     * @return A new request that keeps every value for percentiles
+     */
+    public GroupBy withPercentiles() {
+        return new GroupBy(keys, filter, true);
+    }
+
+    /**
+     * Gets the fields grouped by, outermost first
+     * @return A copy of the key fields
+     */
+    public CardField[] getKeys() {
+        return keys.clone();
+    }
+
+    /**
+     * Gets the query selecting the cards to include
+     * @return The filter, or null for every card
+     */
+    public CardQuery getFilter() {
+        return filter;
+    }
+
+    /**
+     * Checks whether percentiles are computed
+     * @return true if every value is kept for percentiles
+     */
+    public boolean hasPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * Formats groups as a table, one row per group
+     *
+     * @param groups Groups produced by this request
+     * @return The table, with a trailing line break
+     */
+    public String report(List<Group> groups) {
+        StringBuilder report = new StringBuilder();
+        for (CardField key : keys) {
+            report.append(String.format("%-20s ", key.getDisplayName()));
+        }
+        report.append(String.format("%8s %8s %14s %10s %10s %10s", "Entries", "Copies", "Total", "Min", "Avg", "Max"));
+        if (percentiles) {
+            report.append(String.format(" %10s %10s %10s", "p50", "p90", "p99"));
+        }
+        report.append(String.format("%n"));
+        for (Group group : groups) {
+            for (int i = 0; i < keys.length; i++) {
+                report.append(String.format("%-20s ", group.getKeyText(i)));
+            }
+            report.append(String.format("%8d %8d %14.2f %10.2f %10.2f %10.2f", group.getEntries(), group.getCopies(),
+                                        group.getTotalValue(), group.getMinValue(), group.getAverageValue(),
+                                        group.getMaxValue()));
+            if (percentiles) {
+                report.append(String.format(" %10.2f %10.2f %10.2f", group.getPercentile(50),
+                                            group.getPercentile(90), group.getPercentile(99)));
+            }
+            report.append(String.format("%n"));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Group - One Group's Aggregates
+     *
+     * The key values of a group and the value statistics of its cards. A
+     * GroupAggregator fills one Group per task and merges them when the
+     * tasks join. The total is a compensated (Neumaier) sum, so millions
+     * of adds and merges do not make it drift.
+     */
+    public static class Group implements Comparable<Group> {
+        private final Object[] key;
+        private long entries;
+        private long copies;
+        private double valueSum;
+        private double valueCompensation;
+        private double minValue = Double.POSITIVE_INFINITY;
+        private double maxValue = Double.NEGATIVE_INFINITY;
+        // Value and quantity of every entry, kept only for percentiles
+        private double[] values;
+        private int[] weights;
+        private int size;
+        private boolean sorted;
+
+        Group(Object[] key, boolean percentiles) {
+            this.key = key;
+            if (percentiles) {
+                values = new double[8];
+                weights = new int[8];
+            }
+        }
+
+        /**
+         * Adds one entry
+         *
+         * @param value The card's value
+         * @param quantity Copies of the card
+         */
+        void add(double value, int quantity) {
+            entries++;
+            copies += quantity;
+            addToSum(value * quantity);
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+            if (values != null) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                    weights = Arrays.copyOf(weights, size * 2);
+                }
+                values[size] = value;
+                weights[size] = quantity;
+                size++;
+                sorted = false;
+            }
+        }
+
+        /**
+         * Adds another group with the same key into this one
+         * @param other The partial aggregates of another task
+         */
+        void merge(Group other) {
+            entries += other.entries;
+            copies += other.copies;
+            addToSum(other.valueSum);
+            addToSum(other.valueCompensation);
+            minValue = Math.min(minValue, other.minValue);
+            maxValue = Math.max(maxValue, other.maxValue);
+            if (values != null && other.size > 0) {
+                if (size + other.size > values.length) {
+                    values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+                    weights = Arrays.copyOf(weights, values.length);
+                }
+                System.arraycopy(other.values, 0, values, size, other.size);
+                System.arraycopy(other.weights, 0, weights, size, other.size);
+                size += other.size;
+                sorted = false;
+            }
+        }
+
+        private void addToSum(double amount) {
+            double total = valueSum + amount;
+            if (Math.abs(valueSum) >= Math.abs(amount)) {
+                valueCompensation += (valueSum - total) + amount;
+            } else {
+                valueCompensation += (amount - total) + valueSum;
+            }
+            valueSum = total;
+        }
+
+        /**
+         * Gets the group's key values, outermost first
+         * Rarity, condition and color are their enum codes, mana cost an
+         * Integer, foil a Boolean, and the other fields Strings
+         *
+         * @return An unmodifiable list of the key values
+         */
+        public List<Object> getKey() {
+            return Collections.unmodifiableList(Arrays.asList(key));
+        }
+
+        /**
+         * Gets one key value as text, as shown in reports and CSV files
+         * @param level The key's position, 0 for the outermost
+         * @return The value's display text
+         */
+        public String getKeyText(int level) {
+            Object value = key[level];
+            if (value instanceof CardAttribute) {
+                return ((CardAttribute) value).getDisplayName();
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value ? "Yes" : "No";
+            }
+            return String.valueOf(value);
+        }
+
+        /**
+         * Gets the number of card entries in the group
+         * @return Entry count
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Gets the number of cards in the group counting every copy
+         * @return Copy count
+         */
+        public long getCopies() {
+            return copies;
+        }
+
+        /**
+         * Gets the total value of the group, every copy included
+         * @return Total value
+         */
+        public double getTotalValue() {
+            return valueSum + valueCompensation;
+        }
+
+        /**
+         * Gets the lowest card value in the group
+         * @return Minimum value
+         */
+        public double getMinValue() {
+            return minValue;
+        }
+
+        /**
+         * Gets the highest card value in the group
+         * @return Maximum value
+         */
+        public double getMaxValue() {
+            return maxValue;
+        }
+
+        /**
+         * Gets the average value per copy
+         * @return Total value divided by copies
+         */
+        public double getAverageValue() {
+            return copies == 0 ? 0 : getTotalValue() / copies;
+        }
+
+        /**
+         * Gets the value at a percentile, every copy counting once
+         * (nearest rank: the lowest value with at least that share of the copies)
+         *
+         * @param percentile The percentile, 0 to 100
+         * @return The value
+         * @throws IllegalStateException if the request did not ask for percentiles
+         */
+        public double getPercentile(double percentile) {
+            if (values == null) {
+                throw new IllegalStateException("Percentiles were not requested (see GroupBy.withPercentiles)");
+            }
+            if (!sorted) {
+                sortByValue(values, weights, 0, size - 1);
+                sorted = true;
+            }
+            double clamped = Math.min(100.0, Math.max(0.0, percentile));
+            long rank = Math.max(1, (long) Math.ceil(clamped / 100.0 * copies));
+            long seen = 0;
+            for (int i = 0; i < size; i++) {
+                seen += weights[i];
+                if (seen >= rank) {
+                    return values[i];
+                }
+            }
+            return maxValue;
+        }
+
+        /**
+         * Orders groups by their key values, field by field
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(Group other) {
+            for (int i = 0; i < key.length; i++) {
+                int order = ((Comparable<Object>) key[i]).compareTo(other.key[i]);
+                if (order != 0) {
+                    return order;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Sorts values ascending, moving each weight with its value
+         * (quicksort on the two arrays; insertion sort for short runs)
+         */
+        private static void sortByValue(double[] values, int[] weights, int low, int high) {
+            while (high - low > 16) {
+                double pivot = values[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(values, weights, i++, j--);
+                    }
+                }
+                // Recurse into the smaller side so the stack stays shallow
+                if (j - low < high - i) {
+                    sortByValue(values, weights, low, j);
+                    low = i;
+                } else {
+                    sortByValue(values, weights, i, high);
+                    high = j;
+                }
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && values[j - 1] > values[j]; j--) {
+                    swap(values, weights, j - 1, j);
+                }
+            }
+        }
+
+        private static void swap(double[] values, int[] weights, int a, int b) {
+            double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+            int weight = weights[a];
+            weights[a] = weights[b];
+            weights[b] = weight;
+        }
+    }
+}
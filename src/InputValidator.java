@@ -52,6 +52,31 @@ public class InputValidator {
         return value;
     }
     
+    /**
+     * Gets a valid long integer from user input within a specified range
+     * Used for card IDs, which can exceed the int range
+     * 
+     * @param scanner Scanner object for input
+     * @param min Minimum valid value (inclusive)
+     * @param max Maximum valid value (inclusive)
+     * @return Valid long within range
+     */
+    public static long getValidLong(Scanner scanner, long min, long max) {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            try {
+                long value = Long.parseLong(input);
+                if (value >= min && value <= max) {
+                    return value;
+                }
+                System.out.print("Error: Number must be between " + min + " and " + max + ". Try again: ");
+            } catch (NumberFormatException e) {
+                System.out.print("Error: Invalid input. Please enter a whole number between " + 
+                               min + " and " + max + ": ");
+            }
+        }
+    }
+    
     /**
      * Gets a valid double (decimal number) from user input
      * Handles invalid input types and negative values
@@ -151,6 +176,137 @@ public class InputValidator {
         return input;
     }
     
+    /**
+     * Gets a valid attribute (rarity, condition, color) from user input
+     * Uses the attribute's shared case-insensitive parse table
+     * 
+     * @param <E> The attribute enum type
+     * @param scanner Scanner object for input
+     * @param table Parse table of the attribute
+     * @param fieldName Name of the field being requested
+     * @return The parsed attribute
+     */
+    public static <E extends Enum<E> & CardAttribute> E getValidChoice(Scanner scanner, AttributeTable<E> table, 
+                                                                       String fieldName) {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            
+            if (input.isEmpty()) {
+                System.out.print("Error: " + fieldName + " cannot be empty. Valid options: " + 
+                               String.join(", ", table.getDisplayNames()) + "\nTry again: ");
+                continue;
+            }
+            
+            E choice = table.parse(input);
+            if (choice != null) {
+                return choice;
+            }
+            
+            System.out.print("Error: Invalid " + fieldName + ". Valid options: " + 
+                           String.join(", ", table.getDisplayNames()) + "\nTry again: ");
+        }
+    }
+    
+    /**
+     * Gets an optional attribute (rarity, condition, color) from user input
+     * Blank input means the attribute was skipped
+     * 
+     * @param <E> The attribute enum type
+     * @param scanner Scanner object for input
+     * @param table Parse table of the attribute
+     * @param fieldName Name of the field being requested
+     * @return The parsed attribute, or null if left blank
+     */
+    public static <E extends Enum<E> & CardAttribute> E getOptionalChoice(Scanner scanner, AttributeTable<E> table, 
+                                                                          String fieldName) {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            
+            E choice = table.parse(input);
+            if (choice != null) {
+                return choice;
+            }
+            
+            System.out.print("Error: Invalid " + fieldName + ". Valid options: " + 
+                           String.join(", ", table.getDisplayNames()) + " (or blank for any)\nTry again: ");
+        }
+    }
+    
+    /**
+     * Gets an optional non-negative decimal number from user input
+     * 
+     * @param scanner Scanner object for input
+     * @return The number, or null if left blank
+     */
+    public static Double getOptionalDouble(Scanner scanner) {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                double value = Double.parseDouble(input);
+                if (value >= 0 && !Double.isNaN(value)) {
+                    return value;
+                }
+                System.out.print("Error: Value cannot be negative. Try again (or blank for any): ");
+            } catch (NumberFormatException e) {
+                System.out.print("Error: Invalid input. Please enter a decimal number (or blank for any): ");
+            }
+        }
+    }
+    
+    /**
+     * Gets an optional integer within a range from user input
+     * 
+     * @param scanner Scanner object for input
+     * @param min Minimum valid value (inclusive)
+     * @param max Maximum valid value (inclusive)
+     * @return The number, or null if left blank
+     */
+    public static Integer getOptionalInteger(Scanner scanner, int min, int max) {
+        while (true) {
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+            try {
+                int value = Integer.parseInt(input);
+                if (value >= min && value <= max) {
+                    return value;
+                }
+                System.out.print("Error: Number must be between " + min + " and " + max + ". Try again: ");
+            } catch (NumberFormatException e) {
+                System.out.print("Error: Invalid input. Please enter a whole number (or blank for any): ");
+            }
+        }
+    }
+    
+    /**
+     * Gets an optional yes/no answer from user input
+     * 
+     * @param scanner Scanner object for input
+     * @return true for yes, false for no, or null if left blank
+     */
+    public static Boolean getOptionalYesNo(Scanner scanner) {
+        while (true) {
+            String input = scanner.nextLine().trim().toLowerCase();
+            if (input.isEmpty()) {
+                return null;
+            }
+            if (input.equals("y") || input.equals("yes")) {
+                return true;
+            }
+            if (input.equals("n") || input.equals("no")) {
+                return false;
+            }
+            System.out.print("Error: Please enter 'y', 'n' or leave blank for either: ");
+        }
+    }
+    
     /**
      * Gets a yes/no confirmation from user
      * Accepts: y, yes, n, no (case-insensitive)
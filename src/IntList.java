@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * IntList - Growable int Array
+ *
+ * A minimal ArrayList for primitive ints, used for index posting lists so
+ * slot numbers are not boxed into Integer objects.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    /**
+     * Default Constructor
+     * Creates an empty list
+     */
+    public IntList() {
+        this.values = new int[4];
+    }
+
+    /**
+     * Gets the number of values in the list
+     * @return The list size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a value by position
+     * @param i The position to read
+     * @return The value at that position
+     */
+    public int get(int i) {
+        return values[i];
+    }
+
+    /**
+     * Appends a value to the end of the list
+     * @param value The value to append
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Inserts a value into a list kept in ascending order
+     * @param value The value to insert
+     */
+    public void addSorted(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        values[pos] = value;
+        size++;
+    }
+
+    /**
+     * Removes a value from a list kept in ascending order
+     * @param value The value to remove
+     * @return true if the value was found and removed
+     */
+    public boolean removeSorted(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes every value from the list
+     */
+    public void clear() {
+        size = 0;
+    }
+}
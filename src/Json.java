@@ -0,0 +1,198 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Json - Minimal JSON Support
+ *
+ * Just enough JSON for the HTTP API: string escaping for responses, and a
+ * parser for the flat request objects it accepts, whose members are all
+ * strings, numbers, booleans or null. Parsed values are returned in text
+ * form and converted by CardField, the same way typed and CSV input is.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public final class Json {
+
+    /**
+     * Private Constructor
+     * Static helpers only
+     */
+    private Json() {
+    }
+
+    /**
+     * Appends a string as a quoted JSON string
+     *
+     * @param out Where to append
+     * @param value The string to write
+     */
+    public static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parses a flat JSON object
+     * Numbers and booleans come back as their literal text, null as null
+     *
+     * @param text The JSON text
+     * @return The members in document order
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    public static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> members = new LinkedHashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                members.put(key, parser.value());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return members;
+    }
+
+    /**
+     * Cursor over the JSON text
+     */
+    private static class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        boolean consume(char c) {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void end() {
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw error("unexpected text after the object");
+            }
+        }
+
+        String value() {
+            skipWhitespace();
+            if (pos == text.length()) {
+                throw error("missing value");
+            }
+            char c = text.charAt(pos);
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{' || c == '[') {
+                throw error("nested values are not supported");
+            }
+            if (text.startsWith("true", pos) || text.startsWith("false", pos)) {
+                String literal = text.startsWith("true", pos) ? "true" : "false";
+                pos += literal.length();
+                return literal;
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-.0123456789eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            String number = text.substring(start, pos);
+            if (!number.matches("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?")) {
+                throw error("invalid value");
+            }
+            return number;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder out = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return out.toString();
+                }
+                if (c < 0x20) {
+                    throw error("control character in string");
+                }
+                if (c != '\\') {
+                    out.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char escape = text.charAt(pos++);
+                switch (escape) {
+                    case '"': out.append('"'); break;
+                    case '\\': out.append('\\'); break;
+                    case '/': out.append('/'); break;
+                    case 'b': out.append('\b'); break;
+                    case 'f': out.append('\f'); break;
+                    case 'n': out.append('\n'); break;
+                    case 'r': out.append('\r'); break;
+                    case 't': out.append('\t'); break;
+                    case 'u':
+                        int code = 0;
+                        for (int end = pos + 4; pos < end; pos++) {
+                            int digit = pos < text.length() ? Character.digit(text.charAt(pos), 16) : -1;
+                            if (digit < 0) {
+                                throw error("bad \\u escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        out.append((char) code);
+                        break;
+                    default:
+                        throw error("bad escape \\" + escape);
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && " \t\r\n".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at position " + pos + ": " + message);
+        }
+    }
+}
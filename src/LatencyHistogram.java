@@ -0,0 +1,171 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Lock-Free Latency Histogram
+ *
+ * Counts recorded durations in log-linear buckets, in the style of an HDR
+ * histogram: each power of two is split into 32 equal buckets, so any
+ * reported value is within about 3% of the true one, from nanoseconds up
+ * to the longest duration a long can hold, in a fixed 15 KB table.
+ *
+ * Recording is one atomic increment plus two striped adders, with no lock
+ * and no allocation, so many threads can record at once and the histogram
+ * can stay on permanently. Readings are taken from a copy of the counts
+ * and are not an atomic snapshot; a reading taken while threads record can
+ * miss their last few values.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class LatencyHistogram {
+    // Buckets per power of two = 2^SUB_BUCKET_BITS
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Enough buckets for every non-negative long
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one duration
+     * @param nanos The duration in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Takes a reading of the histogram
+     * @return The counts and summary values as of now
+     */
+    public Reading read() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Reading(copy, count, total.sum(), max.get());
+    }
+
+    /**
+     * Clears every recorded value
+     * Values recorded while the reset runs may survive it
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Maps a value to its bucket
+     * Below 32 every value has its own bucket; above, the bucket is the
+     * power of two and the 5 bits after the leading one
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS));
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the highest value that falls in a bucket
+     */
+    private static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Reading - Histogram Reading
+     *
+     * The counts of a histogram at one moment, with the summary values and
+     * percentiles computed from them. All durations are in nanoseconds.
+     */
+    public static class Reading {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Reading(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Gets the number of recorded values
+         * @return Value count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of the recorded values
+         * @return Total in nanoseconds
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the largest recorded value (exact, not bucketed)
+         * @return Maximum in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the mean of the recorded values (exact, not bucketed)
+         * @return Mean in nanoseconds, or 0 if nothing was recorded
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * Gets the value at a percentile
+         * The result is the top of the bucket the percentile falls in,
+         * but never more than the recorded maximum
+         *
+         * @param percentile The percentile, 0 to 100
+         * @return The value in nanoseconds, or 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            double clamped = Math.min(100.0, Math.max(0.0, percentile));
+            long rank = Math.max(1, (long) Math.ceil(clamped / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+
+/**
+ * ListCardStore - Object Storage Engine
+ *
+ * Stores each card as its own MTGCard object in an ArrayList.
+ * get() returns the stored object itself, so this is the cheapest engine
+ * for small collections that are mostly displayed and edited. add() and
+ * set() store a copy, so a card passed in is never shared with the caller.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class ListCardStore implements CardStore {
+    // ArrayList holding the card objects
+    private ArrayList<MTGCard> cards;
+
+    /**
+     * Default Constructor
+     * Creates an empty store
+     */
+    public ListCardStore() {
+        this.cards = new ArrayList<>();
+    }
+
+    @Override
+    public int size() {
+        return cards.size();
+    }
+
+    @Override
+    public MTGCard get(int slot) {
+        return cards.get(slot);
+    }
+
+    @Override
+    public void add(MTGCard card) {
+        cards.add(new MTGCard(card));
+    }
+
+    @Override
+    public void set(int slot, MTGCard card) {
+        cards.set(slot, card == cards.get(slot) ? card : new MTGCard(card));
+    }
+
+    @Override
+    public void compact(Bitmap live) {
+        ArrayList<MTGCard> kept = new ArrayList<>(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            if (live.get(i)) {
+                kept.add(cards.get(i));
+            }
+        }
+        cards = kept;
+    }
+
+    @Override
+    public void clear() {
+        cards.clear();
+    }
+
+    @Override
+    public String getName(int slot) {
+        return cards.get(slot).getName();
+    }
+
+    @Override
+    public Rarity getRarity(int slot) {
+        return cards.get(slot).getRarityCode();
+    }
+
+    @Override
+    public CardCondition getCondition(int slot) {
+        return cards.get(slot).getConditionCode();
+    }
+
+    @Override
+    public double getValue(int slot) {
+        return cards.get(slot).getValue();
+    }
+
+    @Override
+    public String getEdition(int slot) {
+        return cards.get(slot).getEdition();
+    }
+
+    @Override
+    public String getCardType(int slot) {
+        return cards.get(slot).getCardType();
+    }
+
+    @Override
+    public CardColor getColor(int slot) {
+        return cards.get(slot).getColorCode();
+    }
+
+    @Override
+    public int getManaCost(int slot) {
+        return cards.get(slot).getManaCost();
+    }
+
+    @Override
+    public String getCardSubtype(int slot) {
+        return cards.get(slot).getCardSubtype();
+    }
+
+    @Override
+    public boolean isFoil(int slot) {
+        return cards.get(slot).isFoil();
+    }
+
+    @Override
+    public int getQuantity(int slot) {
+        return cards.get(slot).getQuantity();
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * LogEntry - Mutation Log Record
+ *
+ * One change to a collection, as written to the mutation log. Cards are
+ * addressed by their position in the collection at the time of the change,
+ * so replaying the entries in order on top of the same starting state
+ * reproduces every delete and modification exactly.
+ *
+ * Encoding: byte type, then
+ *   ADD       the whole card (strings as int length + UTF-8, attributes as ordinals),
+ *             then int quantity (missing in older logs, read as 1)
+ *   DELETE    int position
+ *   SET_FIELD int position, byte field, new value (string, double, int or byte)
+ *   RENAME    string collection name
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class LogEntry {
+    // Entry types
+    public static final byte ADD = 1;
+    public static final byte DELETE = 2;
+    public static final byte SET_FIELD = 3;
+    public static final byte RENAME = 4;
+
+    private final byte type;
+    private final int position;
+    private final CardField field;
+    // The added card, or the card holding the new field value
+    private final MTGCard card;
+    private final String text;
+
+    /**
+     * Private Constructor
+     * Use the static factory methods
+     */
+    private LogEntry(byte type, int position, CardField field, MTGCard card, String text) {
+        this.type = type;
+        this.position = position;
+        this.field = field;
+        this.card = card;
+        this.text = text;
+    }
+
+    /**
+     * Creates an entry for an added card
+     * @param card The card that was added
+     * @return The log entry
+     */
+    public static LogEntry add(MTGCard card) {
+        return new LogEntry(ADD, -1, null, card, null);
+    }
+
+    /**
+     * Creates an entry for a deleted card
+     * @param position The position the card was deleted from
+     * @return The log entry
+     */
+    public static LogEntry delete(int position) {
+        return new LogEntry(DELETE, position, null, null, null);
+    }
+
+    /**
+     * Creates an entry for one changed field
+     *
+     * @param position The position of the modified card
+     * @param field The field that changed
+     * @param card The card after the change (only that field is recorded)
+     * @return The log entry
+     */
+    public static LogEntry fieldChange(int position, CardField field, MTGCard card) {
+        return new LogEntry(SET_FIELD, position, field, card, null);
+    }
+
+    /**
+     * Creates an entry for a renamed collection
+     * @param collectionName The new collection name
+     * @return The log entry
+     */
+    public static LogEntry rename(String collectionName) {
+        return new LogEntry(RENAME, -1, null, null, collectionName);
+    }
+
+    // Accessors
+
+    /**
+     * Gets the entry type (ADD, DELETE, SET_FIELD or RENAME)
+     * @return The entry type
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * Gets the position of the deleted or modified card
+     * @return The card position (0-based)
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the changed field of a SET_FIELD entry
+     * @return The field
+     */
+    public CardField getField() {
+        return field;
+    }
+
+    /**
+     * Gets the card of an ADD entry
+     * @return The added card
+     */
+    public MTGCard getCard() {
+        return card;
+    }
+
+    /**
+     * Gets the new name of a RENAME entry
+     * @return The collection name
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Copies the recorded field value onto a card (SET_FIELD entries)
+     *
+     * @param target The card to update
+     * @throws IllegalArgumentException if the value is not valid for the card
+     */
+    public void applyTo(MTGCard target) {
+        switch (field) {
+            case NAME: target.setName(card.getName()); break;
+            case RARITY: target.setRarity(card.getRarityCode()); break;
+            case CONDITION: target.setCondition(card.getConditionCode()); break;
+            case VALUE: target.setValue(card.getValue()); break;
+            case EDITION: target.setEdition(card.getEdition()); break;
+            case CARD_TYPE: target.setCardType(card.getCardType()); break;
+            case COLOR: target.setColor(card.getColorCode()); break;
+            case MANA_COST: target.setManaCost(card.getManaCost()); break;
+            case SUBTYPE: target.setCardSubtype(card.getCardSubtype()); break;
+            case FOIL: target.setIsFoil(card.isFoil()); break;
+            case QUANTITY: target.setQuantity(card.getQuantity()); break;
+        }
+    }
+
+    /**
+     * Writes the entry in its binary form
+     *
+     * @param out Where to write
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void writeTo(ByteBuffer out) {
+        out.put(type);
+        switch (type) {
+            case ADD:
+                writeString(out, card.getName());
+                out.put((byte) card.getRarityCode().ordinal());
+                out.put((byte) card.getConditionCode().ordinal());
+                out.putDouble(card.getValue());
+                writeString(out, card.getEdition());
+                writeString(out, card.getCardType());
+                out.put((byte) card.getColorCode().ordinal());
+                out.putInt(card.getManaCost());
+                writeString(out, card.getCardSubtype());
+                out.put((byte) (card.isFoil() ? 1 : 0));
+                out.putInt(card.getQuantity());
+                break;
+            case DELETE:
+                out.putInt(position);
+                break;
+            case SET_FIELD:
+                out.putInt(position);
+                out.put((byte) field.ordinal());
+                writeFieldValue(out);
+                break;
+            case RENAME:
+                writeString(out, text);
+                break;
+        }
+    }
+
+    /**
+     * Reads an entry written by writeTo
+     *
+     * @param in The encoded entry
+     * @return The decoded entry
+     * @throws IOException if the bytes are not a valid entry
+     */
+    public static LogEntry readFrom(ByteBuffer in) throws IOException {
+        try {
+            byte type = in.get();
+            switch (type) {
+                case ADD:
+                    return add(readCard(in));
+                case DELETE:
+                    return delete(in.getInt());
+                case SET_FIELD: {
+                    int position = in.getInt();
+                    CardField field = ordinal(CardField.table(), in.get());
+                    return fieldChange(position, field, readFieldValue(in, field));
+                }
+                case RENAME:
+                    return rename(readString(in));
+                default:
+                    throw new IOException("Unknown log entry type " + type);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated log entry");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid log entry: " + e.getMessage());
+        }
+    }
+
+    // Internal helpers
+
+    private void writeFieldValue(ByteBuffer out) {
+        switch (field) {
+            case NAME: writeString(out, card.getName()); break;
+            case RARITY: out.put((byte) card.getRarityCode().ordinal()); break;
+            case CONDITION: out.put((byte) card.getConditionCode().ordinal()); break;
+            case VALUE: out.putDouble(card.getValue()); break;
+            case EDITION: writeString(out, card.getEdition()); break;
+            case CARD_TYPE: writeString(out, card.getCardType()); break;
+            case COLOR: out.put((byte) card.getColorCode().ordinal()); break;
+            case MANA_COST: out.putInt(card.getManaCost()); break;
+            case SUBTYPE: writeString(out, card.getCardSubtype()); break;
+            case FOIL: out.put((byte) (card.isFoil() ? 1 : 0)); break;
+            case QUANTITY: out.putInt(card.getQuantity()); break;
+        }
+    }
+
+    /**
+     * Reads a field value into an otherwise placeholder card
+     */
+    private static MTGCard readFieldValue(ByteBuffer in, CardField field) throws IOException {
+        MTGCard value = new MTGCard(field.getDisplayName(), Rarity.COMMON, CardCondition.MINT, 0.0,
+                                    "-", "-", CardColor.COLORLESS, 0, "-", false);
+        switch (field) {
+            case NAME: value.setName(readString(in)); break;
+            case RARITY: value.setRarity(ordinal(Rarity.table(), in.get())); break;
+            case CONDITION: value.setCondition(ordinal(CardCondition.table(), in.get())); break;
+            case VALUE: value.setValue(in.getDouble()); break;
+            case EDITION: value.setEdition(readString(in)); break;
+            case CARD_TYPE: value.setCardType(readString(in)); break;
+            case COLOR: value.setColor(ordinal(CardColor.table(), in.get())); break;
+            case MANA_COST: value.setManaCost(in.getInt()); break;
+            case SUBTYPE: value.setCardSubtype(readString(in)); break;
+            case FOIL: value.setIsFoil(in.get() != 0); break;
+            case QUANTITY: value.setQuantity(in.getInt()); break;
+        }
+        return value;
+    }
+
+    private static MTGCard readCard(ByteBuffer in) throws IOException {
+        String name = readString(in);
+        Rarity rarity = ordinal(Rarity.table(), in.get());
+        CardCondition condition = ordinal(CardCondition.table(), in.get());
+        double value = in.getDouble();
+        String edition = readString(in);
+        String cardType = readString(in);
+        CardColor color = ordinal(CardColor.table(), in.get());
+        int manaCost = in.getInt();
+        String subtype = readString(in);
+        boolean foil = in.get() != 0;
+        MTGCard card = new MTGCard(name, rarity, condition, value, edition, cardType, color, manaCost, subtype, foil);
+        if (in.hasRemaining()) {
+            card.setQuantity(in.getInt());
+        }
+        return card;
+    }
+
+    private static <E extends Enum<E> & CardAttribute> E ordinal(AttributeTable<E> table, byte ordinal)
+            throws IOException {
+        if (ordinal < 0 || ordinal >= table.size()) {
+            throw new IOException("Bad attribute code " + ordinal + " in log entry");
+        }
+        return table.get(ordinal);
+    }
+
+    private static void writeString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IOException("Bad string length " + length + " in log entry");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
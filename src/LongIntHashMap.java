@@ -0,0 +1,149 @@
+/**
+ * LongIntHashMap - Primitive long to int Map
+ *
+ * Open-addressing hash map with linear probing, so lookups touch one or two
+ * adjacent array entries and nothing is boxed. Removal shifts the following
+ * entries of the probe run back instead of leaving tombstones. Key 0 is
+ * reserved as the empty marker.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class LongIntHashMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    // Resize once size reaches this (load factor 0.5)
+    private int threshold;
+
+    /**
+     * Default Constructor
+     * Creates an empty map
+     */
+    public LongIntHashMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Gets the number of entries
+     * @return The map size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the value for a key
+     *
+     * @param key The key to look up (not 0)
+     * @return The value, or -1 if the key is absent
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds or replaces an entry
+     *
+     * @param key The key (not 0)
+     * @param value The value to store
+     * @throws IllegalArgumentException if key is 0
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= threshold) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes an entry
+     *
+     * @param key The key to remove
+     * @return The removed value, or -1 if the key was absent
+     */
+    public int remove(long key) {
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+
+        // Pull back any later entry whose home position the gap now breaks
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = index(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private static int index(long key, int mask) {
+        // Fibonacci hashing spreads sequential keys across the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        size = 0;
+        threshold = capacity / 2;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        threshold = capacity / 2;
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != 0) {
+                int i = index(oldKeys[k], mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+}
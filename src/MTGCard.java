@@ -9,28 +9,22 @@
  */
 public class MTGCard extends Card {
     // MTG-specific attributes
-    private String color;           // Card color (White, Blue, Black, Red, Green, Colorless, Multicolor)
+    private Rarity rarity;          // Rarity code (Common, Uncommon, Rare, Mythic Rare, Special)
+    private CardCondition condition; // Condition code (Mint, Near Mint, ... Damaged)
+    private CardColor color;        // Card color (White, Blue, Black, Red, Green, Colorless, Multicolor)
     private int manaCost;           // Converted mana cost
     private String cardSubtype;     // Creature type, spell type, etc.
     private boolean isFoil;         // Whether the card is foil
     
-    // Valid MTG rarities
-    private static final String[] VALID_RARITIES = {"Common", "Uncommon", "Rare", "Mythic Rare", "Special"};
-    
-    // Valid card conditions
-    private static final String[] VALID_CONDITIONS = {"Mint", "Near Mint", "Excellent", "Good", "Light Played", 
-                                                      "Played", "Poor", "Damaged"};
-    
-    // Valid MTG colors
-    private static final String[] VALID_COLORS = {"White", "Blue", "Black", "Red", "Green", "Colorless", "Multicolor"};
-    
     /**
      * Default Constructor
      * Creates an MTG card with default values
      */
     public MTGCard() {
         super();
-        this.color = "Colorless";
+        this.rarity = Rarity.COMMON;
+        this.condition = CardCondition.NEAR_MINT;
+        this.color = CardColor.COLORLESS;
         this.manaCost = 0;
         this.cardSubtype = "None";
         this.isFoil = false;
@@ -50,10 +44,34 @@ public class MTGCard extends Card {
      * @param manaCost Converted mana cost
      * @param cardSubtype Card subtype
      * @param isFoil Whether card is foil
+     * @throws IllegalArgumentException if rarity, condition or color is invalid
      */
     public MTGCard(String name, String rarity, String condition, double value, String edition, 
                    String cardType, String color, int manaCost, String cardSubtype, boolean isFoil) {
-        super(name, rarity, condition, value, edition, cardType);
+        this(name, requireRarity(rarity), requireCondition(condition), value, edition, 
+             cardType, requireColor(color), manaCost, cardSubtype, isFoil);
+    }
+    
+    /**
+     * Parameterized Constructor
+     * Creates an MTG card from already-parsed attribute codes
+     * 
+     * @param name Card name
+     * @param rarity Card rarity
+     * @param condition Physical condition
+     * @param value Monetary value
+     * @param edition Set/Edition name
+     * @param cardType Main card type
+     * @param color Card color
+     * @param manaCost Converted mana cost
+     * @param cardSubtype Card subtype
+     * @param isFoil Whether card is foil
+     */
+    public MTGCard(String name, Rarity rarity, CardCondition condition, double value, String edition, 
+                   String cardType, CardColor color, int manaCost, String cardSubtype, boolean isFoil) {
+        super(name, value, edition, cardType);
+        this.rarity = rarity;
+        this.condition = condition;
         this.color = color;
         this.manaCost = manaCost;
         this.cardSubtype = cardSubtype;
@@ -68,10 +86,12 @@ public class MTGCard extends Card {
      */
     public MTGCard(MTGCard other) {
         super(other);
-        this.color = other.color;
-        this.manaCost = other.manaCost;
-        this.cardSubtype = other.cardSubtype;
-        this.isFoil = other.isFoil;
+        this.rarity = other.getRarityCode();
+        this.condition = other.getConditionCode();
+        this.color = other.getColorCode();
+        this.manaCost = other.getManaCost();
+        this.cardSubtype = other.getCardSubtype();
+        this.isFoil = other.isFoil();
     }
     
     // Accessors for MTG-specific attributes
@@ -81,6 +101,48 @@ public class MTGCard extends Card {
      * @return The color
      */
     public String getColor() {
+        return color.getDisplayName();
+    }
+    
+    /**
+     * Gets the card's rarity
+     * @return The rarity's display name
+     */
+    @Override
+    public String getRarity() {
+        return getRarityCode().getDisplayName();
+    }
+    
+    /**
+     * Gets the card's condition
+     * @return The condition's display name
+     */
+    @Override
+    public String getCondition() {
+        return getConditionCode().getDisplayName();
+    }
+    
+    /**
+     * Gets the card's rarity code
+     * @return The rarity
+     */
+    public Rarity getRarityCode() {
+        return rarity;
+    }
+    
+    /**
+     * Gets the card's condition code
+     * @return The condition
+     */
+    public CardCondition getConditionCode() {
+        return condition;
+    }
+    
+    /**
+     * Gets the card's color code
+     * @return The color
+     */
+    public CardColor getColorCode() {
         return color;
     }
     
@@ -108,6 +170,18 @@ public class MTGCard extends Card {
         return isFoil;
     }
     
+    /**
+     * Checks if another card is the same printing: the same card (see
+     * equals) in the same condition and finish, so the two can be held as
+     * one entry with a quantity
+     * 
+     * @param other The card to compare with
+     * @return true if both are the same printing
+     */
+    public boolean isSamePrinting(MTGCard other) {
+        return equals(other) && getConditionCode() == other.getConditionCode() && isFoil() == other.isFoil();
+    }
+    
     // Mutators for MTG-specific attributes with validation
     
     /**
@@ -116,9 +190,14 @@ public class MTGCard extends Card {
      * @throws IllegalArgumentException if color is invalid
      */
     public void setColor(String color) {
-        if (!isValidColor(color)) {
-            throw new IllegalArgumentException("Invalid color. Must be: White, Blue, Black, Red, Green, Colorless, or Multicolor");
-        }
+        setColor(requireColor(color));
+    }
+    
+    /**
+     * Sets the card's color
+     * @param color The new color
+     */
+    public void setColor(CardColor color) {
         this.color = color;
     }
     
@@ -154,7 +233,18 @@ public class MTGCard extends Card {
         this.isFoil = isFoil;
     }
     
-    // Override setters from base class to add MTG-specific validation
+    /**
+     * Replaces the repeating string fields, including the subtype, with their pooled instances
+     * 
+     * @param pool The string pool of the owning collection
+     */
+    @Override
+    public void internStrings(StringPool pool) {
+        super.internStrings(pool);
+        this.cardSubtype = pool.intern(cardSubtype);
+    }
+    
+    // Rarity and condition setters declared by the base class
     
     /**
      * Sets the card's rarity with MTG-specific validation
@@ -163,10 +253,15 @@ public class MTGCard extends Card {
      */
     @Override
     public void setRarity(String rarity) {
-        if (!isValidRarity(rarity)) {
-            throw new IllegalArgumentException("Invalid rarity. Must be: Common, Uncommon, Rare, Mythic Rare, or Special");
-        }
-        super.setRarity(rarity);
+        setRarity(requireRarity(rarity));
+    }
+    
+    /**
+     * Sets the card's rarity
+     * @param rarity The new rarity
+     */
+    public void setRarity(Rarity rarity) {
+        this.rarity = rarity;
     }
     
     /**
@@ -176,54 +271,59 @@ public class MTGCard extends Card {
      */
     @Override
     public void setCondition(String condition) {
-        if (!isValidCondition(condition)) {
-            throw new IllegalArgumentException("Invalid condition. Must be: Mint, Near Mint, Excellent, Good, Light Played, Played, Poor, or Damaged");
-        }
-        super.setCondition(condition);
+        setCondition(requireCondition(condition));
+    }
+    
+    /**
+     * Sets the card's condition
+     * @param condition The new condition
+     */
+    public void setCondition(CardCondition condition) {
+        this.condition = condition;
     }
     
     // Validation helper methods
     
     /**
-     * Validates if a rarity string is valid for MTG
-     * @param rarity The rarity to validate
-     * @return true if valid, false otherwise
+     * Parses a rarity string for MTG
+     * @param rarity The rarity to parse
+     * @return The matching rarity
+     * @throws IllegalArgumentException if rarity is invalid
      */
-    private boolean isValidRarity(String rarity) {
-        for (String valid : VALID_RARITIES) {
-            if (valid.equalsIgnoreCase(rarity)) {
-                return true;
-            }
+    private static Rarity requireRarity(String rarity) {
+        Rarity parsed = Rarity.parse(rarity);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid rarity. Must be: Common, Uncommon, Rare, Mythic Rare, or Special");
         }
-        return false;
+        return parsed;
     }
     
     /**
-     * Validates if a condition string is valid
-     * @param condition The condition to validate
-     * @return true if valid, false otherwise
+     * Parses a condition string
+     * @param condition The condition to parse
+     * @return The matching condition
+     * @throws IllegalArgumentException if condition is invalid
      */
-    private boolean isValidCondition(String condition) {
-        for (String valid : VALID_CONDITIONS) {
-            if (valid.equalsIgnoreCase(condition)) {
-                return true;
-            }
+    private static CardCondition requireCondition(String condition) {
+        CardCondition parsed = CardCondition.parse(condition);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid condition. Must be: Mint, Near Mint, Excellent, Good, Light Played, Played, Poor, or Damaged");
         }
-        return false;
+        return parsed;
     }
     
     /**
-     * Validates if a color string is valid for MTG
-     * @param color The color to validate
-     * @return true if valid, false otherwise
+     * Parses a color string for MTG
+     * @param color The color to parse
+     * @return The matching color
+     * @throws IllegalArgumentException if color is invalid
      */
-    private boolean isValidColor(String color) {
-        for (String valid : VALID_COLORS) {
-            if (valid.equalsIgnoreCase(color)) {
-                return true;
-            }
+    private static CardColor requireColor(String color) {
+        CardColor parsed = CardColor.parse(color);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Invalid color. Must be: White, Blue, Black, Red, Green, Colorless, or Multicolor");
         }
-        return false;
+        return parsed;
     }
     
     /**
@@ -235,15 +335,16 @@ public class MTGCard extends Card {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("MTG CARD DETAILS");
         System.out.println("=".repeat(80));
-        System.out.printf("Name:           %s%s%n", getName(), isFoil ? " (FOIL)" : "");
+        System.out.printf("Name:           %s%s%n", getName(), isFoil() ? " (FOIL)" : "");
         System.out.printf("Edition:        %s%n", getEdition());
         System.out.printf("Card Type:      %s%n", getCardType());
-        System.out.printf("Subtype:        %s%n", cardSubtype);
-        System.out.printf("Color:          %s%n", color);
-        System.out.printf("Mana Cost:      %d%n", manaCost);
+        System.out.printf("Subtype:        %s%n", getCardSubtype());
+        System.out.printf("Color:          %s%n", getColorCode());
+        System.out.printf("Mana Cost:      %d%n", getManaCost());
         System.out.printf("Rarity:         %s%n", getRarity());
         System.out.printf("Condition:      %s%n", getCondition());
         System.out.printf("Value:          $%.2f%n", getValue());
+        System.out.printf("Quantity:       %d%n", getQuantity());
         System.out.println("=".repeat(80));
     }
     
@@ -253,8 +354,9 @@ public class MTGCard extends Card {
      */
     @Override
     public String toString() {
-        return String.format("%s | Color: %s | Mana: %d | Subtype: %s | Foil: %s",
-                           super.toString(), color, manaCost, cardSubtype, isFoil ? "Yes" : "No");
+        return String.format("%s | Color: %s | Mana: %d | Subtype: %s | Foil: %s | Qty: %d",
+                           super.toString(), getColorCode(), getManaCost(), getCardSubtype(), isFoil() ? "Yes" : "No",
+                           getQuantity());
     }
     
     /**
@@ -262,7 +364,7 @@ public class MTGCard extends Card {
      * @return Array of valid rarity strings
      */
     public static String[] getValidRarities() {
-        return VALID_RARITIES.clone();
+        return Rarity.table().getDisplayNames();
     }
     
     /**
@@ -270,7 +372,7 @@ public class MTGCard extends Card {
      * @return Array of valid condition strings
      */
     public static String[] getValidConditions() {
-        return VALID_CONDITIONS.clone();
+        return CardCondition.table().getDisplayNames();
     }
     
     /**
@@ -278,6 +380,6 @@ public class MTGCard extends Card {
      * @return Array of valid color strings
      */
     public static String[] getValidColors() {
-        return VALID_COLORS.clone();
+        return CardColor.table().getDisplayNames();
     }
 }
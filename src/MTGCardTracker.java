@@ -1,5 +1,17 @@
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import javax.management.JMException;
 
 /**
  * MTGCardTracker - Main Application Class
@@ -16,27 +28,75 @@ import java.util.ArrayList;
  * - Search and filter cards
  * - View collection statistics
  * - Import/Export CSV files (prepared for future GUI)
+ * - Every change written to a mutation log and replayed on startup
+ * - Operation latencies and import counts, in the menu and over JMX
  * 
  * @author Card Collection Tracker
  * @version 1.0
  */
 public class MTGCardTracker {
     
+    // Snapshot used when no --snapshot argument is given
+    private static final String DEFAULT_SNAPSHOT_FILE = "collection.snapshot";
+    
     // Static collection instance
     private static CardCollection collection;
     private static Scanner scanner;
+    private static String snapshotFile;
     
     /**
      * Main method - Entry point of the application
      * 
-     * @param args Command line arguments (not used)
+     * @param args Command line arguments (--columnar selects the columnar storage engine,
+     *             --offheap the off-heap storage engine,
+     *             --snapshot FILE sets the snapshot file,
+     *             --fsync always|interval|never sets the log durability,
+     *             --serve PORT serves the collection over HTTP instead of the menu,
+     *             --batch FILE runs the commands in FILE (- for stdin) instead of the menu)
      */
     public static void main(String[] args) {
         scanner = new Scanner(System.in);
-        collection = new CardCollection("My MTG Collection");
+        collection = new CardCollection("My MTG Collection", createStore(args));
+        snapshotFile = getSnapshotFile(args);
+        
+        // Start from the saved snapshot plus the changes logged since it was taken.
+        // A snapshot that fails to load is left alone and nothing is logged.
+        boolean hasSnapshot = new File(snapshotFile).exists();
+        MutationLog log = MutationLog.open(snapshotFile, getFsyncPolicy(args));
+        boolean persistent = (!hasSnapshot || collection.loadSnapshot(snapshotFile))
+                             && collection.attachLog(log);
+        
+        // Publish the operation metrics to JMX clients (JConsole, VisualVM)
+        try {
+            collection.getMetrics().register(collection.getCollectionName());
+        } catch (JMException e) {
+            System.out.println("Warning: Metrics are not available over JMX: " + e.getMessage());
+        }
         
-        // Add some sample cards for testing (optional - can be removed)
-        addSampleCards();
+        // Collections saved before cards had quantities can hold a printing many times
+        int merged = collection.mergeDuplicates();
+        if (merged > 0) {
+            System.out.println("Merged " + merged + " duplicate card entries");
+        }
+        
+        // Run a command file instead of the menu; sample cards are not added
+        String batchFile = getBatchFile(args);
+        if (batchFile != null) {
+            runBatch(batchFile);
+            return;
+        }
+        
+        // Sample cards are only added on the very first run
+        if (!hasSnapshot && persistent && log.getLastSequence() == 0) {
+            addSampleCards();
+        }
+        
+        // Serve the collection over HTTP instead of running the menu
+        int port = getServePort(args);
+        if (port >= 0) {
+            serve(port);
+            return;
+        }
         
         // Display welcome message
         displayWelcome();
@@ -45,7 +105,7 @@ public class MTGCardTracker {
         boolean running = true;
         while (running) {
             displayMainMenu();
-            int choice = InputValidator.getValidInteger(scanner, 0, 10);
+            int choice = InputValidator.getValidInteger(scanner, 0, 11);
             
             switch (choice) {
                 case 1:
@@ -78,9 +138,13 @@ public class MTGCardTracker {
                 case 10:
                     manageCollection();
                     break;
+                case 11:
+                    viewMetrics();
+                    break;
                 case 0:
                     running = false;
-                    displayGoodbye();
+                    boolean saved = collection.closeLog();
+                    displayGoodbye(saved);
                     break;
             }
         }
@@ -88,6 +152,145 @@ public class MTGCardTracker {
         scanner.close();
     }
     
+    /**
+     * Creates the storage engine selected on the command line
+     * 
+     * @param args Command line arguments
+     * @return Columnar store for --columnar, off-heap store for --offheap,
+     *         otherwise the object list store
+     */
+    private static CardStore createStore(String[] args) {
+        for (String arg : args) {
+            if (arg.equalsIgnoreCase("--columnar")) {
+                return new ColumnarCardStore();
+            }
+            if (arg.equalsIgnoreCase("--offheap")) {
+                return new OffHeapCardStore();
+            }
+        }
+        return new ListCardStore();
+    }
+    
+    /**
+     * Gets the snapshot file named on the command line
+     * 
+     * @param args Command line arguments
+     * @return The file after --snapshot, or the default snapshot file
+     */
+    private static String getSnapshotFile(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equalsIgnoreCase("--snapshot")) {
+                return args[i + 1];
+            }
+        }
+        return DEFAULT_SNAPSHOT_FILE;
+    }
+    
+    /**
+     * Gets the fsync policy named on the command line
+     * 
+     * @param args Command line arguments
+     * @return The policy after --fsync, or ALWAYS
+     */
+    private static FsyncPolicy getFsyncPolicy(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equalsIgnoreCase("--fsync")) {
+                FsyncPolicy policy = FsyncPolicy.parse(args[i + 1]);
+                if (policy != null) {
+                    return policy;
+                }
+                System.out.println("Error: Unknown fsync policy '" + args[i + 1] + "', using always.");
+            }
+        }
+        return FsyncPolicy.ALWAYS;
+    }
+    
+    /**
+     * Gets the HTTP port named on the command line
+     * 
+     * @param args Command line arguments
+     * @return The port after --serve, or -1 to run the menu
+     */
+    private static int getServePort(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equalsIgnoreCase("--serve")) {
+                try {
+                    int port = Integer.parseInt(args[i + 1]);
+                    if (port >= 0 && port <= 65535) {
+                        return port;
+                    }
+                } catch (NumberFormatException e) {
+                    // Reported below
+                }
+                System.out.println("Error: Invalid port '" + args[i + 1] + "', running the menu instead.");
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Gets the batch command file named on the command line
+     * 
+     * @param args Command line arguments
+     * @return The file after --batch ("-" for standard input), or null to run the menu
+     */
+    private static String getBatchFile(String[] args) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equalsIgnoreCase("--batch")) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Runs a batch command file and closes the log
+     * Results go through one buffered writer instead of a println per line
+     * 
+     * @param batchFile The command file, or "-" for standard input
+     */
+    private static void runBatch(String batchFile) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        try (BufferedReader in = batchFile.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(batchFile), StandardCharsets.UTF_8)) {
+            new BatchRunner(collection, out).run(in);
+        } catch (IOException e) {
+            out.println("Error: Could not read " + batchFile + ": " + e.getMessage());
+        }
+        if (!collection.closeLog()) {
+            out.println("Error: The mutation log could not be closed; recent changes may not be saved.");
+        }
+        out.flush();
+    }
+    
+    /**
+     * Starts the HTTP API and leaves it running until the process is stopped
+     * The log is closed and the snapshot saved on shutdown (Ctrl+C)
+     * 
+     * @param port The port to listen on
+     */
+    private static void serve(int port) {
+        CollectionServer server;
+        try {
+            server = new CollectionServer(collection, port);
+        } catch (IOException e) {
+            System.out.println("Error: Could not start the HTTP server: " + e.getMessage());
+            displayGoodbye(collection.closeLog());
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            displayGoodbye(collection.closeLog());
+        }));
+        server.start();
+        System.out.println("Serving '" + collection.getCollectionName() + "' at http://localhost:"
+                           + server.getPort() + "/ ("
+                           + (server.usesVirtualThreads() ? "virtual threads" : "thread pool")
+                           + "). Press Ctrl+C to stop.");
+    }
+    
     /**
      * Displays the welcome message
      */
@@ -104,7 +307,7 @@ public class MTGCardTracker {
     private static void displayMainMenu() {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("MAIN MENU - " + collection.getCollectionName());
-        System.out.println("Total Cards: " + collection.getSize() + " | Total Value: $" + 
+        System.out.println("Total Cards: " + collection.getCopyCount() + " | Total Value: $" + 
                          String.format("%.2f", collection.getTotalValue()));
         System.out.println("=".repeat(80));
         System.out.println("1.  Add New Card");
@@ -117,6 +320,7 @@ public class MTGCardTracker {
         System.out.println("8.  Export to CSV");
         System.out.println("9.  Import from CSV");
         System.out.println("10. Manage Collection Settings");
+        System.out.println("11. View Metrics");
         System.out.println("0.  Exit");
         System.out.println("=".repeat(80));
         System.out.print("Enter your choice: ");
@@ -139,12 +343,12 @@ public class MTGCardTracker {
             // Get rarity
             System.out.println("\nValid rarities: " + String.join(", ", MTGCard.getValidRarities()));
             System.out.print("Enter rarity: ");
-            String rarity = InputValidator.getValidChoice(scanner, MTGCard.getValidRarities(), "rarity");
+            Rarity rarity = InputValidator.getValidChoice(scanner, Rarity.table(), "rarity");
             
             // Get condition
             System.out.println("\nValid conditions: " + String.join(", ", MTGCard.getValidConditions()));
             System.out.print("Enter condition: ");
-            String condition = InputValidator.getValidChoice(scanner, MTGCard.getValidConditions(), "condition");
+            CardCondition condition = InputValidator.getValidChoice(scanner, CardCondition.table(), "condition");
             
             // Get value
             System.out.print("\nEnter card value (in dollars): $");
@@ -161,7 +365,7 @@ public class MTGCardTracker {
             // Get color
             System.out.println("\nValid colors: " + String.join(", ", MTGCard.getValidColors()));
             System.out.print("Enter color: ");
-            String color = InputValidator.getValidChoice(scanner, MTGCard.getValidColors(), "color");
+            CardColor color = InputValidator.getValidChoice(scanner, CardColor.table(), "color");
             
             // Get mana cost
             System.out.print("Enter converted mana cost (0-20): ");
@@ -174,9 +378,14 @@ public class MTGCardTracker {
             // Get foil status
             boolean isFoil = InputValidator.getYesNo(scanner, "\nIs this card foil?");
             
+            // Get quantity
+            System.out.print("Enter quantity (number of copies): ");
+            int quantity = InputValidator.getValidInteger(scanner, 1, Integer.MAX_VALUE);
+            
             // Create and add the card
             MTGCard card = new MTGCard(name, rarity, condition, value, edition, cardType, 
                                       color, manaCost, subtype, isFoil);
+            card.setQuantity(quantity);
             
             collection.addCard(card);
             
@@ -209,10 +418,11 @@ public class MTGCardTracker {
         
         System.out.println("\n1. Delete by index");
         System.out.println("2. Delete by name");
+        System.out.println("3. Delete by ID");
         System.out.println("0. Cancel");
         System.out.print("Enter choice: ");
         
-        int choice = InputValidator.getValidInteger(scanner, 0, 2);
+        int choice = InputValidator.getValidInteger(scanner, 0, 3);
         
         switch (choice) {
             case 1:
@@ -225,7 +435,7 @@ public class MTGCardTracker {
                     cardToDelete.displayCard();
                     
                     if (InputValidator.getYesNo(scanner, "\nAre you sure you want to delete this card?")) {
-                        collection.deleteCard(index);
+                        deleteCopies(cardToDelete);
                     } else {
                         System.out.println("Deletion cancelled.");
                     }
@@ -234,7 +444,20 @@ public class MTGCardTracker {
             case 2:
                 System.out.print("Enter card name to delete: ");
                 String name = scanner.nextLine();
-                collection.deleteCardByName(name);
+                MTGCard named = collection.findCard(collection.findCardId(name));
+                if (named == null) {
+                    System.out.println("Error: Card '" + name + "' not found in collection.");
+                } else {
+                    deleteCopies(named);
+                }
+                break;
+            case 3:
+                System.out.print("Enter card ID to delete: ");
+                long id = InputValidator.getValidLong(scanner, 1, Long.MAX_VALUE);
+                MTGCard card = collection.getCardById(id);
+                if (card != null) {
+                    deleteCopies(card);
+                }
                 break;
             case 0:
                 System.out.println("Delete operation cancelled.");
@@ -244,6 +467,20 @@ public class MTGCardTracker {
         InputValidator.pressEnterToContinue(scanner);
     }
     
+    /**
+     * Deletes a card, asking how many copies to delete when it has more than one
+     * 
+     * @param card A copy of the card to delete
+     */
+    private static void deleteCopies(MTGCard card) {
+        int count = 1;
+        if (card.getQuantity() > 1) {
+            System.out.print("This card has " + card.getQuantity() + " copies. How many do you want to delete? ");
+            count = InputValidator.getValidInteger(scanner, 1, card.getQuantity());
+        }
+        collection.deleteCopies(card.getId(), count);
+    }
+    
     /**
      * Modifies an existing card in the collection
      */
@@ -351,29 +588,55 @@ public class MTGCardTracker {
         System.out.println("=".repeat(80));
         System.out.println("1. Filter by rarity");
         System.out.println("2. Filter by color");
+        System.out.println("3. Filter by several criteria");
+        System.out.println("4. Filter by value range");
+        System.out.println("5. Most valuable cards");
+        System.out.println("6. Least valuable cards");
         System.out.println("0. Cancel");
         System.out.print("Enter choice: ");
         
-        int choice = InputValidator.getValidInteger(scanner, 0, 2);
+        int choice = InputValidator.getValidInteger(scanner, 0, 6);
         ArrayList<MTGCard> results = new ArrayList<>();
         String filterType = "";
-        String filterValue = "";
         
         switch (choice) {
             case 1:
                 System.out.println("\nValid rarities: " + String.join(", ", MTGCard.getValidRarities()));
                 System.out.print("Enter rarity to filter by: ");
-                filterValue = InputValidator.getValidChoice(scanner, MTGCard.getValidRarities(), "rarity");
-                results = collection.filterByRarity(filterValue);
-                filterType = "rarity '" + filterValue + "'";
+                Rarity rarity = InputValidator.getValidChoice(scanner, Rarity.table(), "rarity");
+                results = collection.filterByRarity(rarity);
+                filterType = "rarity '" + rarity + "'";
                 break;
             case 2:
                 System.out.println("\nValid colors: " + String.join(", ", MTGCard.getValidColors()));
                 System.out.print("Enter color to filter by: ");
-                filterValue = InputValidator.getValidChoice(scanner, MTGCard.getValidColors(), "color");
-                results = collection.filterByColor(filterValue);
-                filterType = "color '" + filterValue + "'";
+                CardColor color = InputValidator.getValidChoice(scanner, CardColor.table(), "color");
+                results = collection.filterByColor(color);
+                filterType = "color '" + color + "'";
                 break;
+            case 3:
+                filterByCriteria();
+                return;
+            case 4:
+                System.out.print("Minimum value: $");
+                double min = InputValidator.getValidDouble(scanner);
+                System.out.print("Maximum value: $");
+                double max = InputValidator.getValidDouble(scanner);
+                displayValueTable(collection.filterByValue(min, max),
+                                  String.format("CARDS VALUED $%.2f TO $%.2f", min, max));
+                InputValidator.pressEnterToContinue(scanner);
+                return;
+            case 5:
+            case 6:
+                System.out.print("How many cards (1-1000): ");
+                int count = InputValidator.getValidInteger(scanner, 1, 1000);
+                if (choice == 5) {
+                    displayValueTable(collection.getMostValuable(count), "TOP " + count + " MOST VALUABLE CARDS");
+                } else {
+                    displayValueTable(collection.getLeastValuable(count), count + " LEAST VALUABLE CARDS");
+                }
+                InputValidator.pressEnterToContinue(scanner);
+                return;
             case 0:
                 return;
         }
@@ -390,6 +653,128 @@ public class MTGCardTracker {
         InputValidator.pressEnterToContinue(scanner);
     }
     
+    /**
+     * Displays cards from a value query as a ranked table
+     * 
+     * @param cards The cards in the order the index returned them
+     * @param title The table heading
+     */
+    private static void displayValueTable(ArrayList<MTGCard> cards, String title) {
+        if (cards.isEmpty()) {
+            System.out.println("\nNo cards found.");
+            return;
+        }
+        
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println(title);
+        System.out.println("=".repeat(80));
+        System.out.printf("%-5s %-8s %-30s %-20s %-10s %-5s%n", "#", "ID", "Name", "Edition", "Value", "Qty");
+        System.out.println("-".repeat(80));
+        int rank = 1;
+        long copies = 0;
+        double total = 0;
+        for (MTGCard card : cards) {
+            System.out.printf("%-5d %-8d %-30s %-20s $%-9.2f %-5d%n",
+                            rank++, card.getId(), card.getName(), card.getEdition(), card.getValue(),
+                            card.getQuantity());
+            copies += card.getQuantity();
+            total += card.getValue() * card.getQuantity();
+        }
+        System.out.println("-".repeat(80));
+        System.out.printf("%d card(s), total value $%.2f%n", copies, total);
+        System.out.println("=".repeat(80));
+    }
+    
+    /**
+     * Builds a composite query from optional criteria and lists the matches
+     * Every criterion left blank is skipped; the rest must all match
+     */
+    private static void filterByCriteria() {
+        System.out.println("\nLeave any criterion blank to skip it.");
+        ArrayList<CardQuery> criteria = new ArrayList<>();
+        
+        System.out.print("Name contains: ");
+        String term = scanner.nextLine().trim();
+        if (!term.isEmpty()) {
+            criteria.add(CardQuery.nameContains(term));
+        }
+        System.out.print("Rarity (" + String.join(", ", MTGCard.getValidRarities()) + "): ");
+        Rarity rarity = InputValidator.getOptionalChoice(scanner, Rarity.table(), "rarity");
+        if (rarity != null) {
+            criteria.add(CardQuery.rarity(rarity));
+        }
+        System.out.print("Color (" + String.join(", ", MTGCard.getValidColors()) + "): ");
+        CardColor color = InputValidator.getOptionalChoice(scanner, CardColor.table(), "color");
+        if (color != null) {
+            criteria.add(CardQuery.color(color));
+        }
+        System.out.print("Condition (" + String.join(", ", MTGCard.getValidConditions()) + "): ");
+        CardCondition condition = InputValidator.getOptionalChoice(scanner, CardCondition.table(), "condition");
+        if (condition != null) {
+            criteria.add(CardQuery.condition(condition));
+        }
+        System.out.print("Edition: ");
+        String edition = scanner.nextLine().trim();
+        if (!edition.isEmpty()) {
+            criteria.add(CardQuery.edition(edition));
+        }
+        
+        System.out.print("Minimum value: $");
+        Double minValue = InputValidator.getOptionalDouble(scanner);
+        System.out.print("Maximum value: $");
+        Double maxValue = InputValidator.getOptionalDouble(scanner);
+        if (minValue != null || maxValue != null) {
+            double min = minValue != null ? minValue : 0;
+            double max = maxValue != null ? maxValue : Double.POSITIVE_INFINITY;
+            if (min > max) {
+                System.out.println("Error: Minimum value is above the maximum.");
+                InputValidator.pressEnterToContinue(scanner);
+                return;
+            }
+            criteria.add(CardQuery.valueBetween(min, max));
+        }
+        System.out.print("Minimum mana cost: ");
+        Integer minMana = InputValidator.getOptionalInteger(scanner, 0, 20);
+        System.out.print("Maximum mana cost: ");
+        Integer maxMana = InputValidator.getOptionalInteger(scanner, 0, 20);
+        if (minMana != null || maxMana != null) {
+            int min = minMana != null ? minMana : 0;
+            int max = maxMana != null ? maxMana : Integer.MAX_VALUE;
+            if (min > max) {
+                System.out.println("Error: Minimum mana cost is above the maximum.");
+                InputValidator.pressEnterToContinue(scanner);
+                return;
+            }
+            criteria.add(CardQuery.manaCostBetween(min, max));
+        }
+        System.out.print("Foil (y/n): ");
+        Boolean foil = InputValidator.getOptionalYesNo(scanner);
+        if (foil != null) {
+            criteria.add(CardQuery.foil(foil));
+        }
+        
+        CardQuery query = CardQuery.allOf(criteria.toArray(new CardQuery[0]));
+        String description = criteria.isEmpty() ? "no criteria" : query.toString();
+        
+        // Cards are copied one at a time as they are printed
+        int found = 0;
+        Iterator<MTGCard> matches = collection.query(query);
+        while (matches.hasNext()) {
+            if (found == 0) {
+                System.out.println("\nCards matching " + description + ":");
+            }
+            matches.next().displayCard();
+            found++;
+        }
+        if (found == 0) {
+            System.out.println("\nNo cards found matching " + description);
+        } else {
+            System.out.println("\nFound " + found + " card(s).");
+        }
+        
+        InputValidator.pressEnterToContinue(scanner);
+    }
+    
     /**
      * Displays collection statistics
      */
@@ -398,6 +783,18 @@ public class MTGCardTracker {
         InputValidator.pressEnterToContinue(scanner);
     }
     
+    /**
+     * Displays the operation latencies and import counts
+     */
+    private static void viewMetrics() {
+        System.out.println("\n" + "=".repeat(80));
+        System.out.println("OPERATION METRICS - " + collection.getCollectionName());
+        System.out.println("=".repeat(80));
+        System.out.print(collection.getMetrics().report());
+        System.out.println("=".repeat(80));
+        InputValidator.pressEnterToContinue(scanner);
+    }
+    
     /**
      * Exports collection to CSV file
      */
@@ -465,11 +862,17 @@ public class MTGCardTracker {
     
     /**
      * Displays goodbye message
+     * 
+     * @param saved Whether the collection snapshot was written
      */
-    private static void displayGoodbye() {
+    private static void displayGoodbye(boolean saved) {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("  Thank you for using MTG Card Collection Tracker!");
-        System.out.println("  Your collection has been saved. See you next time!");
+        if (saved) {
+            System.out.println("  Your collection has been saved. See you next time!");
+        } else {
+            System.out.println("  Your collection was NOT saved. See you next time!");
+        }
         System.out.println("=".repeat(80));
     }
     
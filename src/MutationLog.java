@@ -0,0 +1,595 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * MutationLog - Write-Ahead Log of Collection Changes
+ *
+ * Records every change to a collection as a small binary entry appended to
+ * a log segment next to the collection snapshot (collection.snapshot.wal.1,
+ * .wal.2, ...). Each entry carries a sequence number and a CRC-32C, so a
+ * write torn by a crash is detected and cut off on the next start.
+ *
+ * Appends only encode the entry into memory; one writer thread writes
+ * whatever has accumulated in a single batch and fsyncs it according to
+ * the FsyncPolicy (group commit). When a segment grows past its size limit
+ * it is sealed. Once the sealed segments outgrow the snapshot on disk, a
+ * background job replays them on top of it, writes a new snapshot and
+ * deletes them; tying compaction to the snapshot size keeps the total
+ * rewrite work linear even during a large import. Segments found on disk
+ * at startup (left by a crash) count as sealed, and a clean close() folds
+ * the whole log into the snapshot, so the next start only has to load it.
+ *
+ * Usage: open(), then replay() onto the collection loaded from the
+ * snapshot, then append() and commit() for every change, then close().
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class MutationLog implements Closeable {
+    private static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final long SYNC_INTERVAL_MILLIS = 100;
+    // Appenders wait for the writer once this much is queued
+    private static final int MAX_PENDING_BYTES = 8 * 1024 * 1024;
+    // Entry frame: int body length, int CRC-32C of the body, body = long sequence + entry
+    private static final int FRAME_HEADER = 8;
+
+    private final String snapshotFile;
+    private final Path directory;
+    private final String segmentPrefix;
+    private final FsyncPolicy policy;
+    private final long segmentSize;
+    private final ExecutorService compactor;
+
+    // Guards everything below; the writer thread and appenders wait on it
+    private final Object lock = new Object();
+    private Batch pending = new Batch();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private final CRC32C crc = new CRC32C();
+    private long appendedSequence;
+    private long writtenSequence;
+    private long syncedSequence;
+    private boolean replayed;
+    private boolean closing;
+    private IOException failure;
+
+    // Owned by the writer thread once it has started
+    private Thread writer;
+    private FileChannel segment;
+    private int segmentNumber;
+    private long segmentBytes;
+    private long lastSync;
+    // Bytes sealed since the last compaction was scheduled, including segments found at startup
+    private long sealedBytes;
+    // Newest segment a compaction has been scheduled for
+    private volatile int compactThrough;
+    // Size of the snapshot on disk, updated after each compaction
+    private volatile long snapshotBytes;
+
+    /**
+     * Private Constructor
+     * Use open()
+     */
+    private MutationLog(String snapshotFile, FsyncPolicy policy, long segmentSize) {
+        Path snapshot = Paths.get(snapshotFile).toAbsolutePath();
+        this.snapshotFile = snapshotFile;
+        this.directory = snapshot.getParent();
+        this.segmentPrefix = snapshot.getFileName() + ".wal.";
+        this.policy = policy;
+        this.segmentSize = segmentSize;
+        this.compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "mutation-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the log that belongs to a snapshot file, with 16 MB segments
+     *
+     * @param snapshotFile The snapshot the log is folded into
+     * @param policy When appended entries are forced to disk
+     * @return The log, ready for replay()
+     */
+    public static MutationLog open(String snapshotFile, FsyncPolicy policy) {
+        return new MutationLog(snapshotFile, policy, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the log that belongs to a snapshot file
+     *
+     * @param snapshotFile The snapshot the log is folded into
+     * @param policy When appended entries are forced to disk
+     * @param segmentSize Segment size in bytes that triggers a compaction
+     * @return The log, ready for replay()
+     */
+    public static MutationLog open(String snapshotFile, FsyncPolicy policy, long segmentSize) {
+        return new MutationLog(snapshotFile, policy, segmentSize);
+    }
+
+    /**
+     * Replays the logged changes made after a snapshot, then starts logging
+     * A torn entry at the end of the newest segment (from a crash) is cut off
+     *
+     * @param afterSequence The log sequence of the loaded snapshot
+     * @param target Receives each entry newer than the snapshot, in order
+     * @return Number of entries replayed
+     * @throws IOException if a segment cannot be read or is damaged
+     */
+    public int replay(long afterSequence, Consumer<LogEntry> target) throws IOException {
+        synchronized (lock) {
+            if (replayed) {
+                throw new IllegalStateException("Mutation log already replayed");
+            }
+        }
+
+        deleteStaleSnapshotFiles();
+        Path snapshot = Paths.get(snapshotFile);
+        snapshotBytes = Files.exists(snapshot) ? Files.size(snapshot) : 0;
+        ArrayList<Integer> segments = listSegments();
+        long last = afterSequence;
+        int[] applied = {0};
+        for (int i = 0; i < segments.size(); i++) {
+            boolean newest = i == segments.size() - 1;
+            last = Math.max(last, readSegment(segments.get(i), afterSequence, Long.MAX_VALUE, newest, entry -> {
+                target.accept(entry);
+                applied[0]++;
+            }));
+        }
+        // Logging continues in a new segment, so the replayed ones are sealed
+        segments = listSegments();
+        for (int number : segments) {
+            sealedBytes += Files.size(segmentPath(number));
+        }
+
+        synchronized (lock) {
+            appendedSequence = last;
+            writtenSequence = last;
+            syncedSequence = last;
+            replayed = true;
+        }
+        segmentNumber = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        segment = openSegment(segmentNumber);
+        lastSync = System.currentTimeMillis();
+        if (!segments.isEmpty()) {
+            scheduleCompactionIfDue(segments.get(segments.size() - 1), last);
+        }
+        writer = new Thread(this::runWriter, "mutation-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return applied[0];
+    }
+
+    /**
+     * Queues an entry for writing
+     * Returns as soon as the entry is encoded; call commit() to wait for it
+     *
+     * @param entry The change to record
+     * @return The entry's sequence number
+     * @throws IOException if the log has failed or is closed
+     */
+    public long append(LogEntry entry) throws IOException {
+        synchronized (lock) {
+            checkWritable();
+            while (pending.size() >= MAX_PENDING_BYTES) {
+                awaitWriter();
+                checkWritable();
+            }
+
+            long sequence = appendedSequence + 1;
+            encode(sequence, entry);
+            int bodyLength = scratch.position() - FRAME_HEADER;
+            crc.reset();
+            crc.update(scratch.array(), FRAME_HEADER, bodyLength);
+            scratch.putInt(0, bodyLength);
+            scratch.putInt(4, (int) crc.getValue());
+
+            // Only the first entry of a batch needs to wake the writer
+            if (pending.size() == 0) {
+                lock.notifyAll();
+            }
+            pending.write(scratch.array(), 0, scratch.position());
+            appendedSequence = sequence;
+            return sequence;
+        }
+    }
+
+    /**
+     * Encodes a framed entry into the scratch buffer, growing it as needed
+     * The frame header is left for the caller to fill in
+     */
+    private void encode(long sequence, LogEntry entry) {
+        while (true) {
+            try {
+                scratch.clear();
+                scratch.position(FRAME_HEADER);
+                scratch.putLong(sequence);
+                entry.writeTo(scratch);
+                return;
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Waits until an entry is as durable as the fsync policy promises
+     * ALWAYS waits for the fsync; INTERVAL and NEVER wait for the write
+     *
+     * @param sequence The sequence number returned by append()
+     * @throws IOException if the log failed before the entry was written
+     */
+    public void commit(long sequence) throws IOException {
+        synchronized (lock) {
+            while ((policy == FsyncPolicy.ALWAYS ? syncedSequence : writtenSequence) < sequence) {
+                if (failure != null) {
+                    throw new IOException("Mutation log write failed: " + failure.getMessage(), failure);
+                }
+                awaitWriter();
+            }
+        }
+    }
+
+    /**
+     * Gets the sequence number of the last appended entry
+     * @return Last sequence, or the replayed snapshot sequence if nothing was appended
+     */
+    public long getLastSequence() {
+        synchronized (lock) {
+            return appendedSequence;
+        }
+    }
+
+    /**
+     * Writes and fsyncs everything appended, waits for a running compaction
+     * and closes the log, then folds every segment into the snapshot and
+     * deletes them (if folding fails, the segments are kept and replayed
+     * at the next start)
+     *
+     * @throws IOException if the log failed to write an entry
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            lock.notifyAll();
+        }
+
+        try {
+            if (writer != null) {
+                writer.join();
+            }
+            compactor.shutdown();
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the mutation log");
+        } finally {
+            if (segment != null) {
+                segment.close();
+                if (segmentBytes == 0) {
+                    Files.deleteIfExists(segmentPath(segmentNumber));
+                }
+            }
+        }
+
+        long upTo;
+        synchronized (lock) {
+            if (failure != null) {
+                throw failure;
+            }
+            upTo = writtenSequence;
+        }
+        if (replayed && !listSegments().isEmpty()) {
+            compactThrough = segmentNumber;
+            compact(segmentNumber, upTo);
+        }
+    }
+
+    // Writer thread
+
+    /**
+     * Drains queued entries in batches until the log is closed
+     */
+    private void runWriter() {
+        Batch batch = new Batch();
+        try {
+            while (true) {
+                long batchSequence;
+                boolean last;
+                synchronized (lock) {
+                    while (pending.size() == 0 && !closing && !syncDue()) {
+                        lock.wait(policy == FsyncPolicy.INTERVAL && writtenSequence > syncedSequence
+                                  ? SYNC_INTERVAL_MILLIS : 0);
+                    }
+                    // Take everything queued so far as one batch
+                    Batch full = pending;
+                    pending = batch;
+                    batch = full;
+                    batchSequence = appendedSequence;
+                    last = closing;
+                    lock.notifyAll();
+                }
+
+                if (batch.size() > 0) {
+                    ByteBuffer buffer = ByteBuffer.wrap(batch.bytes(), 0, batch.size());
+                    while (buffer.hasRemaining()) {
+                        segment.write(buffer);
+                    }
+                    segmentBytes += batch.size();
+                    batch.reset();
+                }
+
+                boolean sync = policy == FsyncPolicy.ALWAYS || last || syncDue();
+                if (sync) {
+                    segment.force(false);
+                    lastSync = System.currentTimeMillis();
+                }
+                if (segmentBytes >= segmentSize && !last) {
+                    rotate(batchSequence);
+                }
+
+                synchronized (lock) {
+                    writtenSequence = batchSequence;
+                    if (sync) {
+                        syncedSequence = batchSequence;
+                    }
+                    lock.notifyAll();
+                    if (last && pending.size() == 0) {
+                        return;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            synchronized (lock) {
+                failure = new InterruptedIOException("Mutation log writer interrupted");
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Checks whether an INTERVAL fsync is due (called by the writer)
+     */
+    private boolean syncDue() {
+        return policy == FsyncPolicy.INTERVAL && writtenSequence > syncedSequence
+               && System.currentTimeMillis() - lastSync >= SYNC_INTERVAL_MILLIS;
+    }
+
+    /**
+     * Seals the current segment and starts the next one, scheduling a
+     * compaction once the sealed segments are larger than the snapshot
+     *
+     * @param sealedThrough The last sequence in the sealed segment
+     */
+    private void rotate(long sealedThrough) throws IOException {
+        segment.force(false);
+        segment.close();
+        int sealed = segmentNumber;
+        sealedBytes += segmentBytes;
+        segmentNumber++;
+        segment = openSegment(segmentNumber);
+        segmentBytes = 0;
+
+        scheduleCompactionIfDue(sealed, sealedThrough);
+    }
+
+    /**
+     * Schedules a compaction once the sealed segments are larger than the
+     * snapshot (called by replay, then by the writer)
+     *
+     * @param lastSealed The newest sealed segment number
+     * @param sealedThrough The last sequence in that segment
+     */
+    private void scheduleCompactionIfDue(int lastSealed, long sealedThrough) {
+        if (sealedBytes >= Math.max(segmentSize, snapshotBytes)) {
+            sealedBytes = 0;
+            compactThrough = lastSealed;
+            compactor.execute(() -> compact(lastSealed, sealedThrough));
+        }
+    }
+
+    // Compaction (background thread)
+
+    /**
+     * Folds sealed segments into a new snapshot and deletes them
+     * Runs on a private copy of the collection built from the files, so the
+     * live collection is never touched
+     *
+     * @param lastSealed The newest sealed segment number
+     * @param upTo The last sequence in that segment
+     */
+    private void compact(int lastSealed, long upTo) {
+        if (lastSealed < compactThrough) {
+            return; // A later job folds these segments too
+        }
+        try {
+            CardCollection folded = CardCollection.forReplay();
+            long base = 0;
+            if (Files.exists(Paths.get(snapshotFile))) {
+                CollectionSnapshot snapshot = CollectionSnapshot.read(snapshotFile);
+                base = snapshot.getLogSequence();
+                if (base < upTo) {
+                    folded.restoreSnapshot(snapshot);
+                }
+            }
+
+            // A newer snapshot may already cover the sealed segments
+            if (base < upTo) {
+                for (int number : listSegments()) {
+                    if (number <= lastSealed) {
+                        readSegment(number, base, upTo, false, folded::applyLogEntry);
+                    }
+                }
+                folded.writeSnapshot(snapshotFile, upTo);
+            }
+            snapshotBytes = Files.size(Paths.get(snapshotFile));
+
+            for (int number : listSegments()) {
+                if (number <= lastSealed) {
+                    Files.deleteIfExists(segmentPath(number));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The sealed segments are kept, so nothing is lost; retried at the next rotation
+            System.out.println("Error compacting mutation log: " + e.getMessage());
+        }
+    }
+
+    // Internal helpers
+
+    /**
+     * Reads one segment, passing on entries in (after, upTo]
+     *
+     * @param truncateTail Cut off a damaged tail instead of failing
+     * @return The highest sequence number in the segment
+     */
+    private long readSegment(int number, long after, long upTo, boolean truncateTail,
+                             Consumer<LogEntry> target) throws IOException {
+        Path path = segmentPath(number);
+        byte[] data = Files.readAllBytes(path);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        CRC32C check = new CRC32C();
+        long last = 0;
+        int good = 0;
+
+        while (in.remaining() >= FRAME_HEADER) {
+            int bodyLength = in.getInt();
+            int checksum = in.getInt();
+            if (bodyLength < 9 || bodyLength > in.remaining()) {
+                break;
+            }
+            check.reset();
+            check.update(data, in.position(), bodyLength);
+            if ((int) check.getValue() != checksum) {
+                break;
+            }
+
+            long sequence = in.getLong();
+            ByteBuffer body = ByteBuffer.wrap(data, in.position(), bodyLength - 8).slice();
+            LogEntry entry = LogEntry.readFrom(body);
+            in.position(in.position() + bodyLength - 8);
+            good = in.position();
+            last = sequence;
+            if (sequence > after && sequence <= upTo) {
+                target.accept(entry);
+            }
+        }
+
+        if (good < data.length) {
+            if (!truncateTail) {
+                throw new IOException("Mutation log segment " + path + " is damaged at byte " + good);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(good);
+            }
+        }
+        if (good == 0 && truncateTail) {
+            Files.deleteIfExists(path); // Nothing left in it
+        }
+        return last;
+    }
+
+    /**
+     * Lists the segment numbers on disk in ascending order
+     */
+    private ArrayList<Integer> listSegments() throws IOException {
+        ArrayList<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(segmentPrefix)) {
+                    try {
+                        numbers.add(Integer.parseInt(name.substring(segmentPrefix.length())));
+                    } catch (NumberFormatException e) {
+                        // Not a segment
+                    }
+                }
+            });
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * Deletes snapshot temp files left behind by a save or compaction that
+     * was cut short by a crash
+     */
+    private void deleteStaleSnapshotFiles() throws IOException {
+        String snapshotName = Paths.get(snapshotFile).getFileName().toString();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(snapshotName + ".") && name.endsWith(".tmp")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(segmentPrefix + number);
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void checkWritable() throws IOException {
+        if (!replayed) {
+            throw new IllegalStateException("Mutation log must be replayed before appending");
+        }
+        if (failure != null) {
+            throw new IOException("Mutation log write failed: " + failure.getMessage(), failure);
+        }
+        if (closing) {
+            throw new IOException("Mutation log is closed");
+        }
+    }
+
+    /**
+     * Waits on the lock for the writer thread (caller holds the lock)
+     */
+    private void awaitWriter() throws IOException {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the mutation log");
+        }
+    }
+
+    /**
+     * Growable byte buffer with access to its array
+     */
+    private static class Batch extends ByteArrayOutputStream {
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.HashMap;
+
+/**
+ * NameHashIndex - Exact Name Lookup Index
+ *
+ * Hash index from a case-folded card name to the sorted slots holding cards
+ * with that name, so deleteCardByName finds its card without scanning.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class NameHashIndex implements CollectionIndex {
+    private HashMap<String, IntList> slotsByName;
+
+    /**
+     * Default Constructor
+     * Creates an empty index
+     */
+    public NameHashIndex() {
+        this.slotsByName = new HashMap<>();
+    }
+
+    /**
+     * Gets the first (lowest) slot holding a card with a name
+     *
+     * @param name The card name (case-insensitive)
+     * @return The slot, or -1 if no card has that name
+     */
+    public int firstSlot(String name) {
+        IntList slots = slotsByName.get(name.toLowerCase());
+        return slots == null ? -1 : slots.get(0);
+    }
+
+    /**
+     * Gets every slot holding a card with a name
+     *
+     * @param name The card name (case-insensitive)
+     * @return Sorted slots, empty if no card has that name
+     */
+    public IntList slots(String name) {
+        IntList slots = slotsByName.get(name.toLowerCase());
+        return slots == null ? new IntList() : slots;
+    }
+
+    /**
+     * Gets every slot whose card shares its name with at least one other slot
+     * These are the only slots that can hold duplicate printings
+     *
+     * @return Bitmap of those slots
+     */
+    public Bitmap sharedNameSlots() {
+        Bitmap shared = new Bitmap();
+        for (IntList slots : slotsByName.values()) {
+            if (slots.size() > 1) {
+                for (int i = 0; i < slots.size(); i++) {
+                    shared.set(slots.get(i));
+                }
+            }
+        }
+        return shared;
+    }
+
+    // CollectionIndex maintenance
+
+    @Override
+    public void cardAdded(int slot, MTGCard card) {
+        slotsByName.computeIfAbsent(card.getName().toLowerCase(), k -> new IntList()).addSorted(slot);
+    }
+
+    @Override
+    public void cardRemoved(int slot, MTGCard card) {
+        String key = card.getName().toLowerCase();
+        IntList slots = slotsByName.get(key);
+        if (slots != null) {
+            slots.removeSorted(slot);
+            if (slots.size() == 0) {
+                slotsByName.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void cardChanged(int slot, MTGCard before, MTGCard after) {
+        if (!before.getName().toLowerCase().equals(after.getName().toLowerCase())) {
+            cardRemoved(slot, before);
+            cardAdded(slot, after);
+        }
+    }
+
+    @Override
+    public void clear() {
+        slotsByName.clear();
+    }
+}
@@ -0,0 +1,418 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * OffHeapCardStore - Off-Heap Storage Engine
+ *
+ * Keeps every card as a fixed 40-byte record in direct (off-heap) buffers,
+ * so a multi-million-card collection adds almost nothing to the Java heap
+ * and nothing for the garbage collector to trace. Records live in pages of
+ * 65536; names are stored in a StringArena and referenced by offset, while
+ * the low-cardinality edition, card type and subtype columns are dictionary
+ * coded as in ColumnarCardStore.
+ *
+ * get() returns a flyweight view over the record rather than a copy. Its
+ * getters read the record and its setters write straight back to it. A view
+ * addresses a slot, so it only stays meaningful until the store is compacted.
+ *
+ * Record layout (native byte order):
+ *   long name reference, double value, int edition, int cardType,
+ *   int subtype, int manaCost, byte rarity, byte condition, byte color,
+ *   byte foil, int quantity
+ *
+ * Direct memory is capped by -XX:MaxDirectMemorySize, which defaults to the
+ * maximum heap size; raise it when running a small heap with a large collection.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class OffHeapCardStore implements CardStore {
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_RECORDS = 1 << PAGE_SHIFT;
+
+    // Field offsets within a record
+    private static final int NAME = 0;
+    private static final int VALUE = 8;
+    private static final int EDITION = 16;
+    private static final int CARD_TYPE = 20;
+    private static final int SUBTYPE = 24;
+    private static final int MANA_COST = 28;
+    private static final int RARITY = 32;
+    private static final int CONDITION = 33;
+    private static final int COLOR = 34;
+    private static final int FOIL = 35;
+    private static final int QUANTITY = 36;
+    // A multiple of 8, so the long and double fields of every record stay aligned
+    private static final int RECORD_SIZE = 40;
+
+    private ByteBuffer[] pages;
+    private int pageCount;
+    private int size;
+
+    private StringArena names;
+    private StringDictionary editionDictionary;
+    private StringDictionary cardTypeDictionary;
+    private StringDictionary subtypeDictionary;
+
+    /**
+     * Default Constructor
+     * Creates an empty store; direct memory is allocated a page at a time
+     */
+    public OffHeapCardStore() {
+        this.pages = new ByteBuffer[16];
+        this.names = new StringArena();
+        this.editionDictionary = new StringDictionary();
+        this.cardTypeDictionary = new StringDictionary();
+        this.subtypeDictionary = new StringDictionary();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MTGCard get(int slot) {
+        checkSlot(slot);
+        return new CardView(slot);
+    }
+
+    @Override
+    public void add(MTGCard card) {
+        if (size == pageCount << PAGE_SHIFT) {
+            addPage();
+        }
+        int slot = size;
+        ByteBuffer page = page(slot);
+        page.putLong(offset(slot) + NAME, names.append(card.getName()));
+        write(slot, card);
+        size++;
+    }
+
+    @Override
+    public void set(int slot, MTGCard card) {
+        checkSlot(slot);
+        // A view of this very record has already written its changes through
+        if (card instanceof CardView && ((CardView) card).isViewOf(this, slot)) {
+            return;
+        }
+        putName(slot, card.getName());
+        write(slot, card);
+    }
+
+    @Override
+    public void compact(Bitmap live) {
+        // Records only move towards the front, so they can be copied in place.
+        // Names are copied into a fresh arena, which also drops replaced names.
+        StringArena liveNames = new StringArena();
+        byte[] record = new byte[RECORD_SIZE];
+        int kept = 0;
+        for (int i = live.nextSetBit(0); i >= 0 && i < size; i = live.nextSetBit(i + 1)) {
+            if (kept != i) {
+                page(i).get(offset(i), record);
+                page(kept).put(offset(kept), record);
+            }
+            ByteBuffer page = page(kept);
+            int nameField = offset(kept) + NAME;
+            page.putLong(nameField, liveNames.append(names.get(page.getLong(nameField))));
+            kept++;
+        }
+        names = liveNames;
+        size = kept;
+
+        // Hand back pages that no longer hold any record
+        int needed = (size + PAGE_RECORDS - 1) >>> PAGE_SHIFT;
+        Arrays.fill(pages, needed, pageCount, null);
+        pageCount = needed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pages, 0, pageCount, null);
+        pageCount = 0;
+        size = 0;
+        names.clear();
+        editionDictionary.clear();
+        cardTypeDictionary.clear();
+        subtypeDictionary.clear();
+    }
+
+    @Override
+    public String getName(int slot) {
+        checkSlot(slot);
+        return names.get(page(slot).getLong(offset(slot) + NAME));
+    }
+
+    @Override
+    public Rarity getRarity(int slot) {
+        checkSlot(slot);
+        return Rarity.table().get(page(slot).get(offset(slot) + RARITY));
+    }
+
+    @Override
+    public CardCondition getCondition(int slot) {
+        checkSlot(slot);
+        return CardCondition.table().get(page(slot).get(offset(slot) + CONDITION));
+    }
+
+    @Override
+    public double getValue(int slot) {
+        checkSlot(slot);
+        return page(slot).getDouble(offset(slot) + VALUE);
+    }
+
+    @Override
+    public String getEdition(int slot) {
+        checkSlot(slot);
+        return editionDictionary.decode(page(slot).getInt(offset(slot) + EDITION));
+    }
+
+    @Override
+    public String getCardType(int slot) {
+        checkSlot(slot);
+        return cardTypeDictionary.decode(page(slot).getInt(offset(slot) + CARD_TYPE));
+    }
+
+    @Override
+    public CardColor getColor(int slot) {
+        checkSlot(slot);
+        return CardColor.table().get(page(slot).get(offset(slot) + COLOR));
+    }
+
+    @Override
+    public int getManaCost(int slot) {
+        checkSlot(slot);
+        return page(slot).getInt(offset(slot) + MANA_COST);
+    }
+
+    @Override
+    public String getCardSubtype(int slot) {
+        checkSlot(slot);
+        return subtypeDictionary.decode(page(slot).getInt(offset(slot) + SUBTYPE));
+    }
+
+    @Override
+    public boolean isFoil(int slot) {
+        checkSlot(slot);
+        return page(slot).get(offset(slot) + FOIL) != 0;
+    }
+
+    @Override
+    public int getQuantity(int slot) {
+        checkSlot(slot);
+        return page(slot).getInt(offset(slot) + QUANTITY);
+    }
+
+    // Internal helpers
+
+    /**
+     * Writes every field except the name into a record
+     */
+    private void write(int slot, MTGCard card) {
+        ByteBuffer page = page(slot);
+        int offset = offset(slot);
+        page.putDouble(offset + VALUE, card.getValue());
+        page.putInt(offset + EDITION, editionDictionary.encode(card.getEdition()));
+        page.putInt(offset + CARD_TYPE, cardTypeDictionary.encode(card.getCardType()));
+        page.putInt(offset + SUBTYPE, subtypeDictionary.encode(card.getCardSubtype()));
+        page.putInt(offset + MANA_COST, card.getManaCost());
+        page.put(offset + RARITY, (byte) card.getRarityCode().ordinal());
+        page.put(offset + CONDITION, (byte) card.getConditionCode().ordinal());
+        page.put(offset + COLOR, (byte) card.getColorCode().ordinal());
+        page.put(offset + FOIL, (byte) (card.isFoil() ? 1 : 0));
+        page.putInt(offset + QUANTITY, card.getQuantity());
+    }
+
+    /**
+     * Points a record at a new name, reusing the stored bytes if it has not changed
+     */
+    private void putName(int slot, String name) {
+        if (!name.equals(getName(slot))) {
+            page(slot).putLong(offset(slot) + NAME, names.append(name));
+        }
+    }
+
+    private ByteBuffer page(int slot) {
+        return pages[slot >>> PAGE_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & (PAGE_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    private void addPage() {
+        if (pageCount == pages.length) {
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        pages[pageCount++] = ByteBuffer.allocateDirect(PAGE_RECORDS * RECORD_SIZE)
+                                       .order(ByteOrder.nativeOrder());
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range for size " + size);
+        }
+    }
+
+    /**
+     * Flyweight card over one record
+     * The inherited fields are only used to run the base class validation;
+     * every read and write goes to the record
+     */
+    private final class CardView extends MTGCard {
+        private final int slot;
+
+        CardView(int slot) {
+            this.slot = slot;
+        }
+
+        boolean isViewOf(OffHeapCardStore store, int slot) {
+            return store == OffHeapCardStore.this && slot == this.slot;
+        }
+
+        @Override
+        public String getName() {
+            return OffHeapCardStore.this.getName(slot);
+        }
+
+        @Override
+        public double getValue() {
+            return OffHeapCardStore.this.getValue(slot);
+        }
+
+        @Override
+        public String getEdition() {
+            return OffHeapCardStore.this.getEdition(slot);
+        }
+
+        @Override
+        public String getCardType() {
+            return OffHeapCardStore.this.getCardType(slot);
+        }
+
+        @Override
+        public String getColor() {
+            return getColorCode().getDisplayName();
+        }
+
+        @Override
+        public Rarity getRarityCode() {
+            return OffHeapCardStore.this.getRarity(slot);
+        }
+
+        @Override
+        public CardCondition getConditionCode() {
+            return OffHeapCardStore.this.getCondition(slot);
+        }
+
+        @Override
+        public CardColor getColorCode() {
+            return OffHeapCardStore.this.getColor(slot);
+        }
+
+        @Override
+        public int getManaCost() {
+            return OffHeapCardStore.this.getManaCost(slot);
+        }
+
+        @Override
+        public String getCardSubtype() {
+            return OffHeapCardStore.this.getCardSubtype(slot);
+        }
+
+        @Override
+        public boolean isFoil() {
+            return OffHeapCardStore.this.isFoil(slot);
+        }
+
+        @Override
+        public int getQuantity() {
+            return OffHeapCardStore.this.getQuantity(slot);
+        }
+
+        @Override
+        public void setName(String name) {
+            super.setName(name);
+            checkSlot(slot);
+            putName(slot, super.getName());
+        }
+
+        @Override
+        public void setRarity(Rarity rarity) {
+            super.setRarity(rarity);
+            checkSlot(slot);
+            page(slot).put(offset(slot) + RARITY, (byte) rarity.ordinal());
+        }
+
+        @Override
+        public void setCondition(CardCondition condition) {
+            super.setCondition(condition);
+            checkSlot(slot);
+            page(slot).put(offset(slot) + CONDITION, (byte) condition.ordinal());
+        }
+
+        @Override
+        public void setValue(double value) {
+            super.setValue(value);
+            checkSlot(slot);
+            page(slot).putDouble(offset(slot) + VALUE, value);
+        }
+
+        @Override
+        public void setEdition(String edition) {
+            super.setEdition(edition);
+            checkSlot(slot);
+            page(slot).putInt(offset(slot) + EDITION, editionDictionary.encode(super.getEdition()));
+        }
+
+        @Override
+        public void setCardType(String cardType) {
+            super.setCardType(cardType);
+            checkSlot(slot);
+            page(slot).putInt(offset(slot) + CARD_TYPE, cardTypeDictionary.encode(super.getCardType()));
+        }
+
+        @Override
+        public void setColor(CardColor color) {
+            super.setColor(color);
+            checkSlot(slot);
+            page(slot).put(offset(slot) + COLOR, (byte) color.ordinal());
+        }
+
+        @Override
+        public void setManaCost(int manaCost) {
+            super.setManaCost(manaCost);
+            checkSlot(slot);
+            page(slot).putInt(offset(slot) + MANA_COST, manaCost);
+        }
+
+        @Override
+        public void setCardSubtype(String cardSubtype) {
+            super.setCardSubtype(cardSubtype);
+            checkSlot(slot);
+            page(slot).putInt(offset(slot) + SUBTYPE, subtypeDictionary.encode(super.getCardSubtype()));
+        }
+
+        @Override
+        public void setIsFoil(boolean isFoil) {
+            super.setIsFoil(isFoil);
+            checkSlot(slot);
+            page(slot).put(offset(slot) + FOIL, (byte) (isFoil ? 1 : 0));
+        }
+
+        @Override
+        public void setQuantity(int quantity) {
+            super.setQuantity(quantity);
+            checkSlot(slot);
+            page(slot).putInt(offset(slot) + QUANTITY, quantity);
+        }
+
+        /**
+         * Nothing to intern: the store dictionary-codes these strings itself
+         */
+        @Override
+        public void internStrings(StringPool pool) {
+        }
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * ParallelCsvImporter - Parallel CSV Import Engine
+ *
+ * Splits a CSV file into record-aligned chunks and parses and validates
+ * the rows on a fork-join pool. Each worker reads its chunk with
+ * positional channel reads into a byte array it keeps between chunks and
+ * parses the records in place in that array, so nothing is mapped or
+ * allocated per chunk. Chunk boundaries are
+ * only placed on line breaks outside quoted fields, so a quoted name with a
+ * comma or newline in it never straddles two chunks. Parsed chunks are
+ * handed to the caller strictly in file order, so the collection ends up in
+ * the same order as a line-by-line import. Only a bounded window of chunks
+ * is in flight at a time, so memory use does not grow with the file size.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class ParallelCsvImporter {
+    // Target number of bytes per chunk
+    private static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    // Rows skipped by, and size of the file read by, the last importFile
+    private int rejected;
+    private long fileSize;
+
+    /**
+     * Default Constructor
+     * Parses on the common fork-join pool with 4 MB chunks
+     */
+    public ParallelCsvImporter() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Parameterized Constructor
+     *
+     * @param pool The pool to parse chunks on
+     * @param chunkSize Target chunk size in bytes
+     */
+    public ParallelCsvImporter(ForkJoinPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports every valid row of a CSV file (the first line is a header)
+     * Invalid rows are reported and skipped, as in the line-by-line importer
+     *
+     * @param filename The file to read
+     * @param sink Receives each parsed card, in file order, on the calling thread
+     * @return Number of cards passed to the sink
+     * @throws IOException if the file cannot be read
+     */
+    public int importFile(String filename, Consumer<MTGCard> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            fileSize = size;
+            RecordBoundaryScanner boundaries = new RecordBoundaryScanner(channel, size);
+            long position = boundaries.nextRecordStart(1); // Skip header
+            int window = Math.max(2, pool.getParallelism() * 2);
+            ArrayDeque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            int count = 0;
+            rejected = 0;
+
+            while (position < size || !inFlight.isEmpty()) {
+                // Keep the window of parsing chunks full
+                while (position < size && inFlight.size() < window) {
+                    long end = boundaries.nextRecordStart(Math.min(position + chunkSize, size));
+                    inFlight.add(pool.submit(new ChunkParser(channel, position, end - position)));
+                    position = end;
+                }
+
+                // Merge the oldest chunk; later chunks keep parsing meanwhile
+                ChunkResult result = join(inFlight.poll());
+                for (String error : result.errors) {
+                    System.out.println(error);
+                }
+                rejected += result.rejected;
+                for (MTGCard card : result.cards) {
+                    sink.accept(card);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Gets the number of rows the last import skipped, either invalid or
+     * with the wrong number of fields (blank lines are not counted)
+     * @return Rejected row count
+     */
+    public int getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Gets the size of the file the last import read
+     * @return File size in bytes
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Waits for a chunk, rethrowing an I/O failure from the worker
+     */
+    private static ChunkResult join(ForkJoinTask<ChunkResult> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Builds a card from the current record of a reader
+     * Records need the 10 card fields and may add a quantity (files
+     * exported before quantities existed have none, meaning 1); any other
+     * field count is skipped
+     *
+     * @return The card, or null if the record was skipped
+     */
+    static MTGCard parseRecord(CsvReader record) {
+        int fields = record.fieldCount();
+        if (fields != 10 && fields != 11) {
+            return null;
+        }
+        MTGCard card = new MTGCard(
+            record.getString(0),  // name
+            record.getString(1),  // rarity
+            record.getString(2),  // condition
+            record.getDouble(3),  // value
+            record.getString(4),  // edition
+            record.getString(5),  // cardType
+            record.getString(6),  // color
+            record.getInt(7),  // manaCost
+            record.getString(8),  // subtype
+            record.equalsIgnoreCase(9, "Yes")  // isFoil
+        );
+        if (fields == 11) {
+            card.setQuantity(record.getInt(10));
+        }
+        return card;
+    }
+
+    /**
+     * Finds record boundaries for chunking
+     * Scans the file once from front to back, tracking whether each byte is
+     * inside a quoted field. Every quote toggles the state (an escaped "" pair
+     * toggles it twice), so a line break is a record boundary exactly when
+     * the state is "outside".
+     */
+    private static class RecordBoundaryScanner {
+        private final FileChannel channel;
+        private final long size;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private long position;
+        private boolean inQuotes;
+
+        RecordBoundaryScanner(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        /**
+         * Finds the first record start at or after a target position
+         *
+         * @return The byte after the record-ending newline, or size at end of file
+         */
+        long nextRecordStart(long target) throws IOException {
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n' && !inQuotes && position + i + 1 >= target) {
+                        position += i + 1;
+                        return position;
+                    }
+                }
+                position += read;
+            }
+            position = size;
+            return size;
+        }
+    }
+
+    /**
+     * Cards and error messages parsed from one chunk
+     */
+    private static class ChunkResult {
+        private final ArrayList<MTGCard> cards = new ArrayList<>();
+        private final ArrayList<String> errors = new ArrayList<>();
+        private int rejected;
+    }
+
+    /**
+     * Fork-join task that reads and parses one record-aligned chunk
+     */
+    private static class ChunkParser extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+        // Read buffer of each pool thread, kept between chunks and imports
+        private static final ThreadLocal<byte[]> CHUNK_BUFFER = ThreadLocal.withInitial(() -> new byte[0]);
+
+        private final FileChannel channel;
+        private final long start;
+        private final long length;
+
+        ChunkParser(FileChannel channel, long start, long length) {
+            this.channel = channel;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            ChunkResult result = new ChunkResult();
+            byte[] bytes = CHUNK_BUFFER.get();
+            if (bytes.length < length) {
+                bytes = new byte[(int) length];
+                CHUNK_BUFFER.set(bytes);
+            }
+            // Positional reads straight into this worker's reused array
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, (int) length);
+            try {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        break; // File shrank since it was sized
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            CsvReader reader = new CsvReader(bytes, 0, buffer.position());
+            while (reader.nextRecord()) {
+                try {
+                    MTGCard card = parseRecord(reader);
+                    if (card != null) {
+                        result.cards.add(card);
+                    } else if (reader.fieldCount() > 1 || !reader.getString(0).isEmpty()) {
+                        result.rejected++;
+                    }
+                } catch (Exception e) {
+                    result.rejected++;
+                    result.errors.add("Error importing card: " + reader.getString(0) + " - " + e.getMessage());
+                }
+            }
+            return result;
+        }
+    }
+}
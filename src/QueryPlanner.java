@@ -0,0 +1,124 @@
+import java.util.HashMap;
+
+/**
+ * QueryPlanner - Query Execution Context
+ *
+ * Runs one CardQuery against a collection's store and indexes and returns
+ * the matching slots as a bitmap. CardQuery decides the evaluation order;
+ * the planner supplies what it needs to decide: the live slots, index
+ * bitmaps, and counts from the running statistics and the value index
+ * for selectivity estimates. Name lookups are done once per run and
+ * cached, because a predicate's estimate and its evaluation use the same
+ * match set.
+ *
+ * A planner is created for each query by CardCollection while it holds the
+ * read lock (or an optimistic stamp), and must not outlive that.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class QueryPlanner {
+    private final CardStore store;
+    private final Bitmap liveSlots;
+    private final int liveCount;
+    private final AttributeBitmapIndex attributeIndex;
+    private final CollectionStatistics statistics;
+    private final NameHashIndex nameLookup;
+    private final TrigramIndex nameIndex;
+    private final ValueIndex valueIndex;
+    // Name match sets computed during this run, by "=name" or "~term"
+    private final HashMap<String, Bitmap> nameMatches;
+
+    /**
+     * Constructor
+     *
+     * @param store The store holding the cards
+     * @param liveSlots Bitmap of the live slots (owned by the planner)
+     * @param attributeIndex Rarity, condition, color and foil bitmaps
+     * @param statistics Running counts used for estimates
+     * @param nameLookup Exact name index
+     * @param nameIndex Name substring index
+     * @param valueIndex Sorted value index
+     */
+    public QueryPlanner(CardStore store, Bitmap liveSlots, AttributeBitmapIndex attributeIndex,
+                        CollectionStatistics statistics, NameHashIndex nameLookup, TrigramIndex nameIndex,
+                        ValueIndex valueIndex) {
+        this.store = store;
+        this.liveSlots = liveSlots;
+        this.liveCount = statistics.getCardCount();
+        this.attributeIndex = attributeIndex;
+        this.statistics = statistics;
+        this.nameLookup = nameLookup;
+        this.nameIndex = nameIndex;
+        this.valueIndex = valueIndex;
+        this.nameMatches = new HashMap<>();
+    }
+
+    /**
+     * Runs a query
+     *
+     * @param query The query to run
+     * @return Bitmap of the live slots holding matching cards
+     */
+    public Bitmap execute(CardQuery query) {
+        return query.evaluate(this, new Bitmap(liveSlots));
+    }
+
+    /**
+     * Gets the store being queried
+     * @return The card store
+     */
+    public CardStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the number of live cards
+     * @return Live card count
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Gets the attribute bitmaps (live; copy before modifying)
+     * @return The attribute index
+     */
+    public AttributeBitmapIndex getAttributeIndex() {
+        return attributeIndex;
+    }
+
+    /**
+     * Gets the running statistics
+     * @return The collection statistics
+     */
+    public CollectionStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the sorted value index
+     * @return The value index
+     */
+    public ValueIndex getValueIndex() {
+        return valueIndex;
+    }
+
+    /**
+     * Gets the slots whose name matches, from the name indexes
+     *
+     * @param text The full name or the substring
+     * @param substring true for a substring match, false for the exact name
+     * @return Bitmap of matching slots (shared; copy before modifying)
+     */
+    public Bitmap nameMatches(String text, boolean substring) {
+        return nameMatches.computeIfAbsent((substring ? "~" : "=") + text, key -> {
+            IntList slots = substring ? nameIndex.search(text) : nameLookup.slots(text);
+            Bitmap matches = new Bitmap();
+            for (int i = 0; i < slots.size(); i++) {
+                matches.set(slots.get(i));
+            }
+            return matches;
+        });
+    }
+}
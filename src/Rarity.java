@@ -0,0 +1,61 @@
+/**
+ * Rarity - Card Rarity Enumeration
+ * 
+ * The MTG rarity levels. Each card keeps one of these constants instead of
+ * a rarity String, and statistics use the ordinal as an array index.
+ * 
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public enum Rarity implements CardAttribute {
+    COMMON("Common"),
+    UNCOMMON("Uncommon"),
+    RARE("Rare"),
+    MYTHIC_RARE("Mythic Rare"),
+    SPECIAL("Special");
+    
+    // Shared case-insensitive lookup table
+    private static final AttributeTable<Rarity> TABLE = new AttributeTable<>(values());
+    
+    private final String displayName;
+    
+    /**
+     * Constructor
+     * @param displayName The name shown to users
+     */
+    Rarity(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * Parses a rarity string (case-insensitive)
+     * 
+     * @param text The text to parse
+     * @return The matching rarity, or null if invalid
+     */
+    public static Rarity parse(String text) {
+        return TABLE.parse(text);
+    }
+    
+    /**
+     * Gets the shared parse table for this attribute
+     * @return The lookup table
+     */
+    public static AttributeTable<Rarity> table() {
+        return TABLE;
+    }
+    
+    /**
+     * Returns the display name
+     * @return The display name
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
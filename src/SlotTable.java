@@ -0,0 +1,188 @@
+/**
+ * SlotTable - Live Slot Tracker
+ *
+ * Deleting a card only marks its store slot as dead (a tombstone), so later
+ * slots never shift. This class remembers which slots are live and maps
+ * between list positions (what the user sees as the card index) and store
+ * slots with a Fenwick tree, so both directions take O(log n).
+ * CardCollection compacts the store once too many tombstones pile up.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class SlotTable {
+    private Bitmap live;
+    // Fenwick tree over the live flags, 1-based; capacity is tree.length - 1
+    private int[] tree;
+    private int slotCount;
+    private int liveCount;
+
+    /**
+     * Default Constructor
+     * Creates a table with no slots
+     */
+    public SlotTable() {
+        this.live = new Bitmap();
+        this.tree = new int[17];
+        this.slotCount = 0;
+        this.liveCount = 0;
+    }
+
+    /**
+     * Adds a new live slot after the last one
+     * @return The new slot number
+     */
+    public int addSlot() {
+        int slot = slotCount++;
+        if (slotCount >= tree.length) {
+            rebuild(tree.length * 2);
+        }
+        live.set(slot);
+        liveCount++;
+        update(slot + 1, 1);
+        return slot;
+    }
+
+    /**
+     * Marks a slot as deleted
+     * @param slot The slot to kill
+     */
+    public void kill(int slot) {
+        if (live.get(slot)) {
+            live.clear(slot);
+            liveCount--;
+            update(slot + 1, -1);
+        }
+    }
+
+    /**
+     * Checks if a slot holds a live card
+     * @param slot The slot to check
+     * @return true if the slot is live
+     */
+    public boolean isLive(int slot) {
+        return live.get(slot);
+    }
+
+    /**
+     * Finds the next live slot at or after a slot
+     * @param slot The slot to start from
+     * @return The next live slot, or -1 if there is none
+     */
+    public int nextLive(int slot) {
+        return live.nextSetBit(slot);
+    }
+
+    /**
+     * Gets the slot of the card at a list position
+     *
+     * @param position The 0-based position among live cards
+     * @return The store slot holding that card
+     */
+    public int slotAt(int position) {
+        if (liveCount == slotCount) {
+            return position;
+        }
+
+        // Descend the Fenwick tree to the first prefix holding position + 1 live slots
+        int index = 0;
+        int remaining = position + 1;
+        int capacity = tree.length - 1;
+        for (int step = Integer.highestOneBit(capacity); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= capacity && tree[next] < remaining) {
+                index = next;
+                remaining -= tree[next];
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the list position of a live slot
+     *
+     * @param slot The store slot
+     * @return The number of live slots before it
+     */
+    public int positionOf(int slot) {
+        if (liveCount == slotCount) {
+            return slot;
+        }
+
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Gets a copy of the live slot bitmap
+     * @return Bitmap with a bit set for every live slot
+     */
+    public Bitmap liveSlots() {
+        return new Bitmap(live);
+    }
+
+    /**
+     * Gets the number of live cards
+     * @return Live slot count
+     */
+    public int liveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Gets the number of slots including tombstones
+     * @return Total slot count
+     */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Gets the number of tombstones
+     * @return Dead slot count
+     */
+    public int deadCount() {
+        return slotCount - liveCount;
+    }
+
+    /**
+     * Resets the table after the store has been compacted
+     * @param count The number of slots left, all of them live
+     */
+    public void reset(int count) {
+        live = new Bitmap();
+        for (int i = 0; i < count; i++) {
+            live.set(i);
+        }
+        slotCount = count;
+        liveCount = count;
+        rebuild(Math.max(16, Integer.highestOneBit(Math.max(count, 1)) * 2));
+    }
+
+    // Internal helpers
+
+    private void update(int index, int delta) {
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Rebuilds the Fenwick tree from the live bitmap in linear time
+     */
+    private void rebuild(int capacity) {
+        tree = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= slotCount && live.get(i - 1)) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
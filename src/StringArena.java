@@ -0,0 +1,104 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * StringArena - Off-Heap String Storage
+ *
+ * Appends strings as (int length, UTF-8 bytes) to a list of direct buffers
+ * and hands back a long reference (page index in the high 32 bits, offset in
+ * the low 32 bits). The arena is append-only: replacing a string leaves the
+ * old bytes behind until the owner copies its live strings into a new arena.
+ * Reads use absolute buffer access, so they never disturb one another.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class StringArena {
+    private static final int PAGE_SIZE = 4 * 1024 * 1024;
+
+    private ByteBuffer[] pages;
+    private int pageCount;
+    // Write offset in the last page
+    private int position;
+    private long usedBytes;
+
+    /**
+     * Default Constructor
+     * Creates an empty arena; pages are allocated as strings are added
+     */
+    public StringArena() {
+        this.pages = new ByteBuffer[8];
+    }
+
+    /**
+     * Appends a string
+     *
+     * @param value The string to store
+     * @return Reference for get()
+     */
+    public long append(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = 4 + bytes.length;
+        if (pageCount == 0 || position + needed > pages[pageCount - 1].capacity()) {
+            // Oversized strings get a page of their own
+            addPage(Math.max(PAGE_SIZE, needed));
+        }
+        ByteBuffer page = pages[pageCount - 1];
+        page.putInt(position, bytes.length);
+        page.put(position + 4, bytes);
+        long reference = ((long) (pageCount - 1) << 32) | position;
+        position += needed;
+        usedBytes += needed;
+        return reference;
+    }
+
+    /**
+     * Reads a string back
+     *
+     * @param reference A reference returned by append()
+     * @return The stored string
+     * @throws IndexOutOfBoundsException if the reference or its length is
+     *         not within a page (a torn optimistic read can see either)
+     */
+    public String get(long reference) {
+        ByteBuffer page = pages[(int) (reference >>> 32)];
+        int offset = (int) reference;
+        int length = page.getInt(offset);
+        // Checked before allocating, so a garbage length cannot ask for a huge array
+        if (length < 0 || length > page.capacity() - offset - 4) {
+            throw new IndexOutOfBoundsException("String length " + length + " at offset " + offset
+                                                + " runs past its page");
+        }
+        byte[] bytes = new byte[length];
+        page.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of bytes appended so far, including replaced strings
+     * @return Bytes used
+     */
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Releases every page
+     * The direct memory is returned once the buffers are garbage collected
+     */
+    public void clear() {
+        Arrays.fill(pages, 0, pageCount, null);
+        pageCount = 0;
+        position = 0;
+        usedBytes = 0;
+    }
+
+    private void addPage(int capacity) {
+        if (pageCount == pages.length) {
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        pages[pageCount++] = ByteBuffer.allocateDirect(capacity);
+        position = 0;
+    }
+}
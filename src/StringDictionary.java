@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * StringDictionary - Dictionary Encoding Helper
+ *
+ * Maps each distinct string to a small integer code and back.
+ * Columnar storage keeps the codes in primitive arrays so repeated values
+ * like "Alpha" or "Creature" are stored only once.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class StringDictionary {
+    private HashMap<String, Integer> codes;
+    private ArrayList<String> strings;
+
+    /**
+     * Default Constructor
+     * Creates an empty dictionary
+     */
+    public StringDictionary() {
+        this.codes = new HashMap<>();
+        this.strings = new ArrayList<>();
+    }
+
+    /**
+     * Gets the code for a string, adding it to the dictionary if needed
+     *
+     * @param value The string to encode
+     * @return The code for the string
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = strings.size();
+            strings.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the code for a string without adding it
+     *
+     * @param value The string to look up
+     * @return The code, or -1 if the string is not in the dictionary
+     */
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Gets the string for a code
+     *
+     * @param code The code to decode
+     * @return The original string
+     */
+    public String decode(int code) {
+        return strings.get(code);
+    }
+
+    /**
+     * Gets the number of distinct strings in the dictionary
+     * @return Number of entries
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Removes every entry from the dictionary
+     */
+    public void clear() {
+        codes.clear();
+        strings.clear();
+    }
+}
@@ -0,0 +1,95 @@
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * StringPool - String Interning Pool
+ *
+ * Keeps one canonical instance of each distinct string so that fields which
+ * repeat across a collection (edition, card type, subtype) are stored once.
+ * The pool belongs to a single CardCollection instead of the JVM-wide
+ * String.intern() table. With weak references enabled, strings that no card
+ * uses any more can be garbage collected.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class StringPool {
+    private final boolean weakReferences;
+    private HashMap<String, String> strongPool;
+    private WeakHashMap<String, WeakReference<String>> weakPool;
+
+    /**
+     * Default Constructor
+     * Creates a pool that holds its strings strongly
+     */
+    public StringPool() {
+        this(false);
+    }
+
+    /**
+     * Parameterized Constructor
+     *
+     * @param weakReferences true to let unused strings be garbage collected
+     */
+    public StringPool(boolean weakReferences) {
+        this.weakReferences = weakReferences;
+        if (weakReferences) {
+            this.weakPool = new WeakHashMap<>();
+        } else {
+            this.strongPool = new HashMap<>();
+        }
+    }
+
+    /**
+     * Gets the canonical instance of a string, adding it if it is new
+     *
+     * @param value The string to intern
+     * @return The pooled instance equal to value (null if value is null)
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (!weakReferences) {
+            String pooled = strongPool.putIfAbsent(value, value);
+            return pooled == null ? value : pooled;
+        }
+
+        WeakReference<String> ref = weakPool.get(value);
+        String pooled = ref == null ? null : ref.get();
+        if (pooled == null) {
+            weakPool.put(value, new WeakReference<>(value));
+            pooled = value;
+        }
+        return pooled;
+    }
+
+    /**
+     * Checks if the pool uses weak references
+     * @return true if unused strings can be collected
+     */
+    public boolean isWeak() {
+        return weakReferences;
+    }
+
+    /**
+     * Gets the number of distinct strings in the pool
+     * @return Number of pooled strings
+     */
+    public int size() {
+        return weakReferences ? weakPool.size() : strongPool.size();
+    }
+
+    /**
+     * Removes every string from the pool
+     */
+    public void clear() {
+        if (weakReferences) {
+            weakPool.clear();
+        } else {
+            strongPool.clear();
+        }
+    }
+}
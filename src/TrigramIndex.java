@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * TrigramIndex - Substring Search Index
+ *
+ * Inverted index from every three-character sequence (trigram) of a
+ * lowercased card name to the sorted slots whose name contains it. A search
+ * intersects the posting lists of the term's trigrams and only checks the
+ * few candidate names that survive. Terms shorter than three characters
+ * fall back to a scan over the cached lowercased names. Deleted slots stay
+ * in the posting lists until the collection compacts; their cached name is
+ * cleared so they never verify.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class TrigramIndex implements CollectionIndex {
+    // Lowercased name for every slot (null once deleted), so searches never lowercase card names
+    private ArrayList<String> lowerNames;
+    // Trigram (three chars packed into a long) -> sorted slots
+    private HashMap<Long, IntList> postings;
+
+    /**
+     * Default Constructor
+     * Creates an empty index
+     */
+    public TrigramIndex() {
+        this.lowerNames = new ArrayList<>();
+        this.postings = new HashMap<>();
+    }
+
+    /**
+     * Finds the slots whose name contains a term (case-insensitive)
+     *
+     * @param searchTerm The substring to look for
+     * @return Matching slots in ascending order
+     */
+    public IntList search(String searchTerm) {
+        String term = searchTerm.toLowerCase();
+        IntList results = new IntList();
+
+        if (term.length() < 3) {
+            for (int slot = 0; slot < lowerNames.size(); slot++) {
+                String name = lowerNames.get(slot);
+                if (name != null && name.contains(term)) {
+                    results.add(slot);
+                }
+            }
+            return results;
+        }
+
+        // Collect the posting list of every distinct trigram in the term
+        ArrayList<IntList> lists = new ArrayList<>();
+        for (long trigram : trigrams(term)) {
+            IntList list = postings.get(trigram);
+            if (list == null) {
+                return results;
+            }
+            lists.add(list);
+        }
+
+        // Intersect starting from the shortest list
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        IntList candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.size() > 0; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+
+        // Trigrams can match out of order, so verify each candidate
+        for (int i = 0; i < candidates.size(); i++) {
+            int slot = candidates.get(i);
+            String name = lowerNames.get(slot);
+            if (name != null && name.contains(term)) {
+                results.add(slot);
+            }
+        }
+        return results;
+    }
+
+    // CollectionIndex maintenance
+
+    @Override
+    public void cardAdded(int slot, MTGCard card) {
+        String lowerName = card.getName().toLowerCase();
+        lowerNames.add(lowerName);
+        for (long trigram : trigrams(lowerName)) {
+            postings.computeIfAbsent(trigram, k -> new IntList()).add(slot);
+        }
+    }
+
+    @Override
+    public void cardRemoved(int slot, MTGCard card) {
+        lowerNames.set(slot, null);
+    }
+
+    @Override
+    public void cardChanged(int slot, MTGCard before, MTGCard after) {
+        String lowerName = after.getName().toLowerCase();
+        String oldName = lowerNames.set(slot, lowerName);
+        if (oldName.equals(lowerName)) {
+            return;
+        }
+
+        for (long trigram : trigrams(oldName)) {
+            IntList list = postings.get(trigram);
+            list.removeSorted(slot);
+            if (list.size() == 0) {
+                postings.remove(trigram);
+            }
+        }
+        for (long trigram : trigrams(lowerName)) {
+            postings.computeIfAbsent(trigram, k -> new IntList()).addSorted(slot);
+        }
+    }
+
+    @Override
+    public void clear() {
+        lowerNames.clear();
+        postings.clear();
+    }
+
+    // Internal helpers
+
+    /**
+     * Gets the distinct trigrams of a lowercased string, each packed into a long
+     */
+    private static HashSet<Long> trigrams(String text) {
+        HashSet<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return result;
+    }
+
+    /**
+     * Intersects two ascending posting lists
+     */
+    private static IntList intersect(IntList a, IntList b) {
+        IntList result = new IntList();
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int x = a.get(i);
+            int y = b.get(j);
+            if (x == y) {
+                result.add(x);
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,395 @@
+/**
+ * ValueIndex - Sorted Index on Card Value
+ *
+ * A B+ tree keyed on (value, slot). Leaves hold up to 64 entries in
+ * primitive arrays and are linked in both directions, so a range scan or a
+ * top/bottom-N walk is one O(log n) descent followed by a sequential pass
+ * over the k entries it returns. Inner nodes keep the number of entries
+ * below them, which makes counting a range O(log n) as well; the query
+ * planner uses that count as the selectivity of a value range.
+ *
+ * Removals never merge nodes. Leaves emptied by deletes stay in the chain
+ * and are skipped, and the whole tree is rebuilt when the collection
+ * compacts, so under-full nodes never build up for long.
+ *
+ * @author Card Collection Tracker
+ * @version 1.0
+ */
+public class ValueIndex implements CollectionIndex {
+    private static final int LEAF_CAPACITY = 64;
+    private static final int INNER_CAPACITY = 64;
+
+    private Node root;
+    // Ends of the leaf chain
+    private Leaf first;
+    private Leaf last;
+
+    // Smallest key of the node created by the last split (set by insert)
+    private double splitValue;
+    private int splitSlot;
+
+    /**
+     * Entries in a subtree
+     */
+    private abstract static class Node {
+        int count;
+    }
+
+    private static final class Leaf extends Node {
+        final double[] values = new double[LEAF_CAPACITY];
+        final int[] slots = new int[LEAF_CAPACITY];
+        Leaf prev;
+        Leaf next;
+    }
+
+    private static final class Inner extends Node {
+        int size;
+        final Node[] children = new Node[INNER_CAPACITY];
+        // Smallest key of each child; entry 0 is unused
+        final double[] values = new double[INNER_CAPACITY];
+        final int[] slots = new int[INNER_CAPACITY];
+    }
+
+    /**
+     * Default Constructor
+     * Creates an empty index
+     */
+    public ValueIndex() {
+        clear();
+    }
+
+    /**
+     * Gets the number of indexed cards
+     * @return Number of entries
+     */
+    public int size() {
+        return root.count;
+    }
+
+    /**
+     * Counts the cards whose value is in a range
+     *
+     * @param min Lowest value (inclusive)
+     * @param max Highest value (inclusive)
+     * @return Number of cards in the range
+     */
+    public int countBetween(double min, double max) {
+        if (!(min <= max)) {
+            return 0;
+        }
+        return rank(normalize(max), Integer.MAX_VALUE) - rank(normalize(min), Integer.MIN_VALUE);
+    }
+
+    /**
+     * Gets the slots of the cards whose value is in a range
+     *
+     * @param min Lowest value (inclusive)
+     * @param max Highest value (inclusive)
+     * @return Slots ordered by ascending value (ties by slot)
+     */
+    public IntList slotsBetween(double min, double max) {
+        IntList result = new IntList();
+        if (!(min <= max)) {
+            return result;
+        }
+        min = normalize(min);
+        max = normalize(max);
+
+        Leaf leaf = findLeaf(min, Integer.MIN_VALUE);
+        int i = lowerBound(leaf, min, Integer.MIN_VALUE);
+        for (; leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.count; i++) {
+                if (leaf.values[i] > max) {
+                    return result;
+                }
+                result.add(leaf.slots[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the slots of the most valuable cards
+     *
+     * @param n Maximum number of slots to return
+     * @return Slots ordered by descending value (ties by descending slot)
+     */
+    public IntList highest(int n) {
+        IntList result = new IntList();
+        for (Leaf leaf = last; leaf != null && result.size() < n; leaf = leaf.prev) {
+            for (int i = leaf.count - 1; i >= 0 && result.size() < n; i--) {
+                result.add(leaf.slots[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the slots of the least valuable cards
+     *
+     * @param n Maximum number of slots to return
+     * @return Slots ordered by ascending value (ties by slot)
+     */
+    public IntList lowest(int n) {
+        IntList result = new IntList();
+        for (Leaf leaf = first; leaf != null && result.size() < n; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count && result.size() < n; i++) {
+                result.add(leaf.slots[i]);
+            }
+        }
+        return result;
+    }
+
+    // CollectionIndex maintenance
+
+    @Override
+    public void cardAdded(int slot, MTGCard card) {
+        insert(normalize(card.getValue()), slot);
+    }
+
+    @Override
+    public void cardRemoved(int slot, MTGCard card) {
+        remove(root, normalize(card.getValue()), slot);
+    }
+
+    @Override
+    public void cardChanged(int slot, MTGCard before, MTGCard after) {
+        double oldValue = normalize(before.getValue());
+        double newValue = normalize(after.getValue());
+        if (Double.compare(oldValue, newValue) != 0) {
+            remove(root, oldValue, slot);
+            insert(newValue, slot);
+        }
+    }
+
+    @Override
+    public void clear() {
+        Leaf leaf = new Leaf();
+        root = leaf;
+        first = leaf;
+        last = leaf;
+    }
+
+    // ---- Tree operations ----
+
+    private static double normalize(double value) {
+        // Adding 0.0 turns -0.0 into 0.0, so both sort as the same key
+        return value + 0.0;
+    }
+
+    private static int compare(double value, int slot, double otherValue, int otherSlot) {
+        int order = Double.compare(value, otherValue);
+        return order != 0 ? order : Integer.compare(slot, otherSlot);
+    }
+
+    /**
+     * Finds the child of an inner node whose range holds a key
+     */
+    private static int childIndex(Inner inner, double value, int slot) {
+        // Last child whose smallest key is <= the key (child 0 if none)
+        int low = 1;
+        int high = inner.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(inner.values[mid], inner.slots[mid], value, slot) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Finds the first position in a leaf whose key is >= the given key
+     */
+    private static int lowerBound(Leaf leaf, double value, int slot) {
+        int low = 0;
+        int high = leaf.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(leaf.values[mid], leaf.slots[mid], value, slot) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Leaf findLeaf(double value, int slot) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, value, slot)];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Counts the entries whose key is below the given key
+     */
+    private int rank(double value, int slot) {
+        int rank = 0;
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int child = childIndex(inner, value, slot);
+            for (int i = 0; i < child; i++) {
+                rank += inner.children[i].count;
+            }
+            node = inner.children[child];
+        }
+        return rank + lowerBound((Leaf) node, value, slot);
+    }
+
+    private void insert(double value, int slot) {
+        Node right = insert(root, value, slot);
+        if (right != null) {
+            // The root split: grow the tree by one level
+            Inner newRoot = new Inner();
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.values[1] = splitValue;
+            newRoot.slots[1] = splitSlot;
+            newRoot.size = 2;
+            newRoot.count = root.count + right.count;
+            root = newRoot;
+        }
+    }
+
+    /**
+     * Inserts into a subtree
+     * @return The new right sibling if the node split (its smallest key in splitValue/splitSlot), else null
+     */
+    private Node insert(Node node, double value, int slot) {
+        if (node instanceof Leaf) {
+            return insertIntoLeaf((Leaf) node, value, slot);
+        }
+
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, value, slot);
+        Node right = insert(inner.children[child], value, slot);
+        inner.count++;
+        if (right == null) {
+            return null;
+        }
+
+        if (inner.size < INNER_CAPACITY) {
+            insertChild(inner, child + 1, right, splitValue, splitSlot);
+            return null;
+        }
+
+        // Split: the upper half of the children move to a new node
+        Inner sibling = new Inner();
+        int half = INNER_CAPACITY / 2;
+        double newValue = splitValue;
+        int newSlot = splitSlot;
+        for (int i = half; i < INNER_CAPACITY; i++) {
+            sibling.children[i - half] = inner.children[i];
+            sibling.values[i - half] = inner.values[i];
+            sibling.slots[i - half] = inner.slots[i];
+            inner.children[i] = null;
+        }
+        sibling.size = INNER_CAPACITY - half;
+        inner.size = half;
+        if (child + 1 <= half) {
+            insertChild(inner, child + 1, right, newValue, newSlot);
+        } else {
+            insertChild(sibling, child + 1 - half, right, newValue, newSlot);
+        }
+        inner.count = sumCounts(inner);
+        sibling.count = sumCounts(sibling);
+        splitValue = sibling.values[0];
+        splitSlot = sibling.slots[0];
+        return sibling;
+    }
+
+    private static void insertChild(Inner inner, int index, Node child, double value, int slot) {
+        int moved = inner.size - index;
+        System.arraycopy(inner.children, index, inner.children, index + 1, moved);
+        System.arraycopy(inner.values, index, inner.values, index + 1, moved);
+        System.arraycopy(inner.slots, index, inner.slots, index + 1, moved);
+        inner.children[index] = child;
+        inner.values[index] = value;
+        inner.slots[index] = slot;
+        inner.size++;
+    }
+
+    private static int sumCounts(Inner inner) {
+        int count = 0;
+        for (int i = 0; i < inner.size; i++) {
+            count += inner.children[i].count;
+        }
+        return count;
+    }
+
+    private Node insertIntoLeaf(Leaf leaf, double value, int slot) {
+        int position = lowerBound(leaf, value, slot);
+        if (leaf.count < LEAF_CAPACITY) {
+            insertEntry(leaf, position, value, slot);
+            return null;
+        }
+
+        // Split: the upper half moves to a new leaf linked after this one
+        Leaf sibling = new Leaf();
+        int half = LEAF_CAPACITY / 2;
+        System.arraycopy(leaf.values, half, sibling.values, 0, LEAF_CAPACITY - half);
+        System.arraycopy(leaf.slots, half, sibling.slots, 0, LEAF_CAPACITY - half);
+        sibling.count = LEAF_CAPACITY - half;
+        leaf.count = half;
+        if (position <= half) {
+            insertEntry(leaf, position, value, slot);
+        } else {
+            insertEntry(sibling, position - half, value, slot);
+        }
+
+        sibling.prev = leaf;
+        sibling.next = leaf.next;
+        if (leaf.next != null) {
+            leaf.next.prev = sibling;
+        } else {
+            last = sibling;
+        }
+        leaf.next = sibling;
+
+        splitValue = sibling.values[0];
+        splitSlot = sibling.slots[0];
+        return sibling;
+    }
+
+    private static void insertEntry(Leaf leaf, int position, double value, int slot) {
+        int moved = leaf.count - position;
+        System.arraycopy(leaf.values, position, leaf.values, position + 1, moved);
+        System.arraycopy(leaf.slots, position, leaf.slots, position + 1, moved);
+        leaf.values[position] = value;
+        leaf.slots[position] = slot;
+        leaf.count++;
+    }
+
+    /**
+     * Removes an entry from a subtree
+     * @return true if the entry was found
+     */
+    private static boolean remove(Node node, double value, int slot) {
+        if (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            if (remove(inner.children[childIndex(inner, value, slot)], value, slot)) {
+                inner.count--;
+                return true;
+            }
+            return false;
+        }
+
+        Leaf leaf = (Leaf) node;
+        int position = lowerBound(leaf, value, slot);
+        if (position == leaf.count || compare(leaf.values[position], leaf.slots[position], value, slot) != 0) {
+            return false;
+        }
+        int moved = leaf.count - position - 1;
+        System.arraycopy(leaf.values, position + 1, leaf.values, position, moved);
+        System.arraycopy(leaf.slots, position + 1, leaf.slots, position, moved);
+        leaf.count--;
+        return true;
+    }
+}